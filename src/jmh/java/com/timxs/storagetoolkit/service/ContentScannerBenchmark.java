@@ -0,0 +1,88 @@
+package com.timxs.storagetoolkit.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL 提取基准测试：单次扫描实现与原正则实现对比
+ * 内容为固定种子生成的 HTML、Markdown、JSON 混合文本，运行：./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentScannerBenchmark {
+
+    /**
+     * 内容长度（字符数），分别对应评论、普通文章和长文章
+     */
+    @Param({"1000", "20000", "500000"})
+    public int contentLength;
+
+    private final ContentScanner contentScanner = new ContentScanner();
+    private final RegexContentScanner regexContentScanner = new RegexContentScanner();
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = generateContent(new Random(42), contentLength);
+    }
+
+    @Benchmark
+    public ContentScanner.ExtractResult singlePass() {
+        return contentScanner.extractUrlsWithType(content);
+    }
+
+    @Benchmark
+    public ContentScanner.ExtractResult regex() {
+        return regexContentScanner.extractUrlsWithType(content);
+    }
+
+    /**
+     * 生成混合内容：正文段落中穿插各种语法的附件链接
+     */
+    static String generateContent(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length + 256);
+        while (builder.length() < length) {
+            appendText(random, builder, 20 + random.nextInt(200));
+            String file = "/upload/" + (random.nextBoolean() ? "2024/" : "")
+                + (random.nextInt(5) == 0 ? "%E5%9B%BE%E7%89%87-" : "image-") + random.nextInt(1000) + ".png";
+            String url = random.nextBoolean() ? file : "https://blog.example.com" + file;
+            switch (random.nextInt(8)) {
+                case 0 -> builder.append("<p><img class=\"aligncenter\" alt=\"image\" src=\"")
+                    .append(url).append("\" width=\"800\"></p>");
+                case 1 -> builder.append("<a target=\"_blank\" href=\"").append(url).append("\">下载</a>");
+                case 2 -> builder.append("<video controls src=\"").append(url).append("\"></video>");
+                case 3 -> builder.append("![image](").append(url).append(")");
+                case 4 -> builder.append("[附件](").append(url).append(" \"title\")");
+                case 5 -> builder.append("{\"cover\":\"").append(url).append("\",\"size\":")
+                    .append(random.nextInt(100000)).append('}');
+                case 6 -> builder.append("参见 https://example.org/page/").append(random.nextInt(100)).append(' ');
+                default -> builder.append(' ').append(file).append(' ');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void appendText(Random random, StringBuilder builder, int length) {
+        String words = "the quick brown fox jumps over the lazy dog 内容扫描 附件 引用 ";
+        for (int i = 0; i < length; i++) {
+            builder.append(words.charAt(random.nextInt(words.length())));
+        }
+    }
+}
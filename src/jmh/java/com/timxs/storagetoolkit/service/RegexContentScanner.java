@@ -0,0 +1,82 @@
+package com.timxs.storagetoolkit.service;
+
+import org.springframework.util.StringUtils;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 单次扫描实现之前的正则提取（基准测试对照组）
+ * 与原 ContentScanner.extractUrlsWithType 相同：七个正则各扫描一遍内容
+ */
+class RegexContentScanner {
+
+    private static final Pattern HTML_IMG_PATTERN =
+        Pattern.compile("<img[^>]+src=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern HTML_A_PATTERN =
+        Pattern.compile("<a[^>]+href=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern HTML_MEDIA_PATTERN =
+        Pattern.compile("<(?:source|video|audio)[^>]+src=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern MD_IMAGE_PATTERN =
+        Pattern.compile("!\\[[^\\]]*\\]\\(([^)\\s]+)(?:\\s+[\"'][^\"']*[\"'])?\\)");
+
+    private static final Pattern MD_LINK_PATTERN =
+        Pattern.compile("(?<!!)\\[[^\\]]*\\]\\(([^)\\s]+)(?:\\s+[\"'][^\"']*[\"'])?\\)");
+
+    private static final Pattern UPLOAD_PATH_PATTERN =
+        Pattern.compile("(?<![a-zA-Z0-9.\\-])(/upload/[^\"'\\s<>\\]\\)]+)");
+
+    private static final Pattern HTTP_URL_PATTERN =
+        Pattern.compile("([\"']?)(https?://[^\"'\\s<>\\]\\)]+)\\1");
+
+    ContentScanner.ExtractResult extractUrlsWithType(String content) {
+        ContentScanner.ExtractResult result = new ContentScanner.ExtractResult();
+        if (!StringUtils.hasText(content)) {
+            return result;
+        }
+        extract(content, HTML_IMG_PATTERN, result, 1);
+        extract(content, HTML_A_PATTERN, result, 1);
+        extract(content, HTML_MEDIA_PATTERN, result, 1);
+        extract(content, MD_IMAGE_PATTERN, result, 1);
+        extract(content, MD_LINK_PATTERN, result, 1);
+        extract(content, HTTP_URL_PATTERN, result, 2);
+        extract(content, UPLOAD_PATH_PATTERN, result, 1);
+        return result;
+    }
+
+    private static void extract(String content, Pattern pattern, ContentScanner.ExtractResult result, int group) {
+        Matcher matcher = pattern.matcher(content);
+        while (matcher.find()) {
+            String url = matcher.group(group);
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String decodedUrl = decodeUrl(url.trim());
+            if (isValidUrl(decodedUrl)) {
+                if (decodedUrl.startsWith("http://") || decodedUrl.startsWith("https://")) {
+                    result.fullUrls().add(decodedUrl);
+                } else if (decodedUrl.startsWith("/")) {
+                    result.relativePaths().add(decodedUrl);
+                }
+            }
+        }
+    }
+
+    private static boolean isValidUrl(String url) {
+        return !url.isEmpty() && !url.startsWith("data:") && !url.startsWith("javascript:")
+            && !url.startsWith("mailto:") && !url.startsWith("#");
+    }
+
+    private static String decodeUrl(String url) {
+        try {
+            return URLDecoder.decode(url, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.timxs.storagetoolkit;
 
+import com.timxs.storagetoolkit.extension.AttachmentFingerprint;
 import com.timxs.storagetoolkit.extension.AttachmentReference;
+import com.timxs.storagetoolkit.extension.ContentUrlCache;
 import com.timxs.storagetoolkit.extension.DuplicateGroup;
 import com.timxs.storagetoolkit.extension.DuplicateScanStatus;
 import com.timxs.storagetoolkit.extension.ProcessingLog;
+import com.timxs.storagetoolkit.extension.ReferenceScanCheckpoint;
+import com.timxs.storagetoolkit.extension.ReferenceScanCheckpointBatch;
 import com.timxs.storagetoolkit.extension.ReferenceScanStatus;
+import com.timxs.storagetoolkit.extension.SimilarImageGroup;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import run.halo.app.extension.SchemeManager;
@@ -18,7 +23,11 @@ import javax.imageio.spi.ImageReaderSpi;
 import javax.imageio.spi.ImageWriterSpi;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import static run.halo.app.extension.index.IndexAttributeFactory.multiValueAttribute;
 import static run.halo.app.extension.index.IndexAttributeFactory.simpleAttribute;
 
 /**
@@ -70,16 +79,54 @@ public class StorageToolkitPlugin extends BasePlugin {
                 .setName("spec.attachmentName")
                 .setIndexFunc(simpleAttribute(AttachmentReference.class,
                     ref -> ref.getSpec() != null ? ref.getSpec().getAttachmentName() : null)));
+            // 引用源名称（增量更新时查找引用了某个内容的附件）
+            indexSpecs.add(new IndexSpec()
+                .setName("status.references.sourceName")
+                .setIndexFunc(multiValueAttribute(AttachmentReference.class,
+                    ref -> ref.getStatus() == null || ref.getStatus().getReferences() == null
+                        ? Set.of()
+                        : ref.getStatus().getReferences().stream()
+                            .map(AttachmentReference.ReferenceSource::getSourceName)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toSet()))));
         });
 
         // 注册 ReferenceScanStatus Extension
         schemeManager.register(ReferenceScanStatus.class);
 
+        // 注册 ReferenceScanCheckpoint Extension
+        schemeManager.register(ReferenceScanCheckpoint.class);
+        schemeManager.register(ReferenceScanCheckpointBatch.class);
+
+        // 注册 ContentUrlCache Extension
+        schemeManager.register(ContentUrlCache.class);
+
         // 注册 DuplicateScanStatus Extension
         schemeManager.register(DuplicateScanStatus.class);
 
-        // 注册 DuplicateGroup Extension
-        schemeManager.register(DuplicateGroup.class);
+        // 注册 DuplicateGroup Extension（带索引，列表按可节省空间分页排序）
+        schemeManager.register(DuplicateGroup.class, indexSpecs -> {
+            indexSpecs.add(new IndexSpec()
+                .setName("status.savableSize")
+                .setIndexFunc(simpleAttribute(DuplicateGroup.class,
+                    group -> sortableSize(group.getStatus() != null ? group.getStatus().getSavableSize() : 0))));
+            indexSpecs.add(new IndexSpec()
+                .setName("status.pendingDelete")
+                .setIndexFunc(simpleAttribute(DuplicateGroup.class,
+                    group -> String.valueOf(group.getStatus() != null
+                        && Boolean.TRUE.equals(group.getStatus().getPendingDelete())))));
+        });
+
+        // 注册 AttachmentFingerprint Extension
+        schemeManager.register(AttachmentFingerprint.class);
+
+        // 注册 SimilarImageGroup Extension（带索引，列表按可节省空间分页排序）
+        schemeManager.register(SimilarImageGroup.class, indexSpecs -> {
+            indexSpecs.add(new IndexSpec()
+                .setName("status.savableSize")
+                .setIndexFunc(simpleAttribute(SimilarImageGroup.class,
+                    group -> sortableSize(group.getStatus() != null ? group.getStatus().getSavableSize() : 0))));
+        });
 
         // 手动注册 ImageIO SPI（解决插件类加载器隔离问题）
         registerImageIOSpi();
@@ -102,12 +149,24 @@ public class StorageToolkitPlugin extends BasePlugin {
         schemeManager.unregister(schemeManager.get(ProcessingLog.class));
         schemeManager.unregister(schemeManager.get(AttachmentReference.class));
         schemeManager.unregister(schemeManager.get(ReferenceScanStatus.class));
+        schemeManager.unregister(schemeManager.get(ReferenceScanCheckpoint.class));
+        schemeManager.unregister(schemeManager.get(ReferenceScanCheckpointBatch.class));
+        schemeManager.unregister(schemeManager.get(ContentUrlCache.class));
         schemeManager.unregister(schemeManager.get(DuplicateScanStatus.class));
         schemeManager.unregister(schemeManager.get(DuplicateGroup.class));
+        schemeManager.unregister(schemeManager.get(AttachmentFingerprint.class));
+        schemeManager.unregister(schemeManager.get(SimilarImageGroup.class));
 
         log.info("Storage Toolkit 插件已停止");
     }
 
+    /**
+     * 将大小转换为可按字符串排序的索引值（补零到固定长度）
+     */
+    private static String sortableSize(long size) {
+        return String.format("%019d", Math.max(0, size));
+    }
+
     /**
      * 手动注册 ImageIO SPI（WebP 和 AVIF）
      * 由于 Halo 插件使用独立的类加载器，ImageIO 的 SPI 自动发现机制可能失效
@@ -49,4 +49,10 @@ public class FormatConversionConfig {
      * 值越大压缩越慢但文件越小，默认 4
      */
     private int avifEffort = 4;
+    
+    /**
+     * 是否保留透明通道
+     * 开启后带透明背景的图片转换为 WebP/AVIF 时保留 Alpha，关闭时透明区域填充为白色
+     */
+    private boolean preserveAlpha = false;
 }
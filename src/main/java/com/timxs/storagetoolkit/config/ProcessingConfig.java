@@ -5,7 +5,7 @@ import java.util.List;
 
 /**
  * 图片处理配置
- * 包含全局设置、文件过滤、水印、格式转换和日志设置
+ * 包含全局设置、文件过滤、尺寸限制、水印、格式转换和日志设置
  */
 @Data
 public class ProcessingConfig {
@@ -35,10 +35,28 @@ public class ProcessingConfig {
     
     /**
      * 图片处理并发数
-     * 限制同时处理的图片数量，防止内存溢出
+     * 限制同时处理的图片数量，防止内存溢出；实际线程数不超过 CPU 核数
      */
     private int imageProcessingConcurrency = 3;
     
+    /**
+     * 处理队列容量
+     * 超过并发数的图片最多排队的数量，队列已满时直接上传原图
+     */
+    private int processingQueueCapacity = 20;
+    
+    /**
+     * 排队超时（秒），0 表示不限制
+     * 排队超过此时间仍未开始处理的图片直接上传原图
+     */
+    private int processingQueueTimeout = 30;
+    
+    /**
+     * 磁盘缓冲阈值（字节），0 表示始终在内存中缓冲
+     * 超过此大小（或大小未知）的上传先写入临时文件，解码时从磁盘读取，避免整个文件驻留堆内存
+     */
+    private long diskBufferThreshold = 2 * 1024 * 1024;
+    
     // ========== 文件过滤 ==========
     
     /**
@@ -57,6 +75,20 @@ public class ProcessingConfig {
      */
     private long maxFileSize = 10 * 1024 * 1024;
     
+    /**
+     * 最大像素数，0 表示不限制
+     * 解码前从文件头读取宽高判断，防止体积很小但展开后占用数 GB 内存的图片（解压炸弹）
+     * 默认 50 百万像素
+     */
+    private long maxPixels = 50_000_000L;
+    
+    // ========== 尺寸限制 ==========
+    
+    /**
+     * 尺寸限制配置
+     */
+    private ResizeConfig resize = new ResizeConfig();
+    
     // ========== 水印设置 ==========
     
     /**
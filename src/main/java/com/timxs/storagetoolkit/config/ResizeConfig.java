@@ -0,0 +1,48 @@
+package com.timxs.storagetoolkit.config;
+
+import lombok.Data;
+
+/**
+ * 尺寸限制配置
+ * 超过最大宽度/高度的图片按比例缩小，解码时使用子采样直接读取接近目标尺寸的像素
+ */
+@Data
+public class ResizeConfig {
+    
+    /**
+     * 是否启用尺寸限制
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 最大宽度（像素），0 表示不限制
+     */
+    private int maxWidth = 1920;
+    
+    /**
+     * 最大高度（像素），0 表示不限制
+     */
+    private int maxHeight = 0;
+    
+    /**
+     * 计算缩放比例
+     * 同时受最大宽度和最大高度约束，保持宽高比，只缩小不放大
+     *
+     * @param width  原始宽度
+     * @param height 原始高度
+     * @return 缩放比例（1.0 表示无需缩放）
+     */
+    public double calculateScale(int width, int height) {
+        if (!enabled || width <= 0 || height <= 0) {
+            return 1.0;
+        }
+        double scale = 1.0;
+        if (maxWidth > 0 && width > maxWidth) {
+            scale = Math.min(scale, (double) maxWidth / width);
+        }
+        if (maxHeight > 0 && height > maxHeight) {
+            scale = Math.min(scale, (double) maxHeight / height);
+        }
+        return scale;
+    }
+}
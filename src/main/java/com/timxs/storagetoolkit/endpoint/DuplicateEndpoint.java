@@ -2,12 +2,17 @@ package com.timxs.storagetoolkit.endpoint;
 
 import com.timxs.storagetoolkit.extension.DuplicateScanStatus;
 import com.timxs.storagetoolkit.model.DuplicateGroupVo;
+import com.timxs.storagetoolkit.model.ScanProgress;
+import com.timxs.storagetoolkit.model.SimilarImageGroupVo;
 import com.timxs.storagetoolkit.service.DuplicateService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
 import run.halo.app.plugin.ApiVersion;
@@ -43,6 +48,18 @@ public class DuplicateEndpoint {
             );
     }
 
+    /**
+     * 扫描进度事件流（SSE）
+     * 连接后立即推送当前进度，扫描期间节流推送，扫描结束后保持连接等待下一次扫描
+     */
+    @GetMapping(value = "/scan/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ScanProgress>> streamProgress() {
+        return duplicateService.streamProgress()
+            .map(progress -> ServerSentEvent.builder(progress)
+                .event("progress")
+                .build());
+    }
+
     /**
      * 获取扫描状态和统计概览
      */
@@ -60,6 +77,7 @@ public class DuplicateEndpoint {
                     s != null ? s.getDuplicateGroupCount() : 0,
                     s != null ? s.getDuplicateFileCount() : 0,
                     s != null ? s.getSavableSize() : 0,
+                    s != null ? s.getSimilarGroupCount() : 0,
                     s != null ? s.getErrorMessage() : null
                 );
             });
@@ -75,6 +93,16 @@ public class DuplicateEndpoint {
         return duplicateService.listDuplicateGroups(page, size);
     }
 
+    /**
+     * 获取相似图片组列表
+     */
+    @GetMapping("/similar")
+    public Mono<ListResult<SimilarImageGroupVo>> listSimilarImageGroups(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return duplicateService.listSimilarImageGroups(page, size);
+    }
+
     /**
      * 清空所有重复检测记录和扫描状态
      */
@@ -106,6 +134,7 @@ public class DuplicateEndpoint {
         int duplicateGroupCount,
         int duplicateFileCount,
         long savableSize,
+        int similarGroupCount,
         String errorMessage
     ) {}
 
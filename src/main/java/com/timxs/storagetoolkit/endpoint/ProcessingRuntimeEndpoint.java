@@ -0,0 +1,68 @@
+package com.timxs.storagetoolkit.endpoint;
+
+import com.timxs.storagetoolkit.service.FormatConverter;
+import com.timxs.storagetoolkit.service.impl.ExtensionWriteBatcher;
+import com.timxs.storagetoolkit.service.impl.ImageProcessingExecutor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import run.halo.app.plugin.ApiVersion;
+
+import java.util.List;
+
+/**
+ * 图片处理运行状态 REST API 端点
+ * 提供处理线程池（队列深度、等待时间、活跃线程数）、编码器池和扫描结果批量写入的实时指标
+ */
+@ApiVersion("console.api.storage-toolkit.timxs.com/v1alpha1")
+@RestController
+@RequestMapping("/processing-runtime")
+@RequiredArgsConstructor
+@PreAuthorize("isAuthenticated()")
+public class ProcessingRuntimeEndpoint {
+
+    private final ImageProcessingExecutor processingExecutor;
+    private final FormatConverter formatConverter;
+    private final ExtensionWriteBatcher writeBatcher;
+
+    /**
+     * 获取图片处理运行状态
+     *
+     * @return 运行状态
+     */
+    @GetMapping
+    public Mono<RuntimeStats> getRuntimeStats() {
+        return Mono.fromSupplier(() -> {
+            RuntimeStats stats = new RuntimeStats();
+            stats.setExecutor(processingExecutor.getStats());
+            stats.setWriterPools(formatConverter.getWriterPoolStats());
+            stats.setExtensionWrites(writeBatcher.getStats());
+            return stats;
+        });
+    }
+
+    /**
+     * 运行状态响应
+     */
+    @Data
+    public static class RuntimeStats {
+        /**
+         * 处理线程池状态
+         */
+        private ImageProcessingExecutor.ExecutorStats executor;
+
+        /**
+         * 各格式 ImageWriter 池统计
+         */
+        private List<FormatConverter.WriterPoolStats> writerPools;
+
+        /**
+         * 扫描结果批量写入统计
+         */
+        private ExtensionWriteBatcher.WriteStats extensionWrites;
+    }
+}
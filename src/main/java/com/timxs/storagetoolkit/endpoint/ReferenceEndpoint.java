@@ -1,15 +1,19 @@
 package com.timxs.storagetoolkit.endpoint;
 
 import com.timxs.storagetoolkit.extension.ReferenceScanStatus;
+import com.timxs.storagetoolkit.model.ScanProgress;
 import com.timxs.storagetoolkit.service.ReferenceService;
 import com.timxs.storagetoolkit.service.ReferenceService.AttachmentReferenceVo;
 import com.timxs.storagetoolkit.service.ReferenceService.ReferenceQuery;
 import com.timxs.storagetoolkit.service.ReferenceService.SubjectInfo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.core.extension.attachment.Group;
 import run.halo.app.core.extension.attachment.Policy;
@@ -50,6 +54,18 @@ public class ReferenceEndpoint {
             );
     }
 
+    /**
+     * 扫描进度事件流（SSE）
+     * 连接后立即推送当前进度，扫描期间节流推送，扫描结束后保持连接等待下一次扫描
+     */
+    @GetMapping(value = "/scan/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ScanProgress>> streamProgress() {
+        return referenceService.streamProgress()
+            .map(progress -> ServerSentEvent.builder(progress)
+                .event("progress")
+                .build());
+    }
+
     /**
      * 获取扫描状态和统计概览
      */
@@ -0,0 +1,80 @@
+package com.timxs.storagetoolkit.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import java.time.Instant;
+
+/**
+ * 附件内容指纹 Extension 实体
+ * 持久化每个附件的内容哈希，重复检测扫描时只重新计算新增或变更的附件
+ * metadata.name 格式为 fp-{attachmentName}
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "storage-toolkit.timxs.com",
+     version = "v1alpha1",
+     kind = "AttachmentFingerprint",
+     plural = "attachmentfingerprints",
+     singular = "attachmentfingerprint")
+public class AttachmentFingerprint extends AbstractExtension {
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+    private AttachmentFingerprintSpec spec;
+
+    @Data
+    public static class AttachmentFingerprintSpec {
+        /**
+         * 关联的附件名称（Attachment 的 metadata.name）
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private String attachmentName;
+
+        /**
+         * 计算哈希时的附件大小（字节）
+         */
+        private Long size;
+
+        /**
+         * 计算哈希时附件的 metadata.version，附件被修改后版本号变化
+         */
+        private Long attachmentVersion;
+
+        /**
+         * 计算哈希使用的算法（HashAlgorithm 名称，为空表示旧版本写入的 MD5）
+         * 与当前配置的算法不一致时指纹失效
+         */
+        private String hashAlgorithm;
+
+        /**
+         * 部分哈希（首部 64KB + 尾部 64KB），用于完整哈希前的快速排除
+         */
+        private String partialHash;
+
+        /**
+         * 文件内容哈希值（大小唯一或部分哈希唯一的附件不计算，为 null）
+         */
+        private String hash;
+
+        /**
+         * 图片感知哈希（dHash，16 位十六进制），非图片或未启用相似图片检测时为 null
+         * 与内容哈希算法无关，附件未变化时始终有效
+         */
+        private String perceptualHash;
+
+        /**
+         * 哈希计算时间
+         */
+        private Instant hashedAt;
+    }
+
+    /**
+     * 根据附件名称生成指纹记录名称
+     */
+    public static String nameOf(String attachmentName) {
+        return "fp-" + attachmentName;
+    }
+}
@@ -8,6 +8,7 @@ import run.halo.app.extension.GVK;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 附件引用关系 Extension 实体
@@ -39,6 +40,12 @@ public class AttachmentReference extends AbstractExtension {
          */
         @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
         private String attachmentName;
+
+        /**
+         * 写入此记录的扫描代数（旧版本写入的记录为 null）
+         * 只有与 ReferenceScanStatus.status.generation 相同的记录对查询可见
+         */
+        private Long generation;
     }
 
     /**
@@ -63,11 +70,24 @@ public class AttachmentReference extends AbstractExtension {
         private List<ReferenceSource> references;
 
         /**
-         * 待删除标识（扫描时标记旧记录）
+         * 待删除标识（旧版本扫描时标记旧记录；现在使用扫描代数，保留字段以兼容旧数据）
          */
         private Boolean pendingDelete;
     }
 
+    /**
+     * 是否属于指定扫描代数且未被标记删除
+     *
+     * @param generation 当前生效的扫描代数（从未完成过分代扫描时为 null）
+     * @return 是否对查询可见
+     */
+    public boolean belongsTo(Long generation) {
+        if (spec == null || !Objects.equals(spec.getGeneration(), generation)) {
+            return false;
+        }
+        return status == null || !Boolean.TRUE.equals(status.getPendingDelete());
+    }
+
     /**
      * 引用源信息
      */
@@ -0,0 +1,87 @@
+package com.timxs.storagetoolkit.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 内容 URL 提取缓存 Extension 实体
+ * 记录文章、页面、文档按快照合并后的内容中提取出的 URL，
+ * 引用扫描时快照名称和版本号都未变化则直接复用，跳过快照合并和 URL 提取
+ * metadata.name 格式为 urls-{sourceType}-{sourceName}
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "storage-toolkit.timxs.com",
+     version = "v1alpha1",
+     kind = "ContentUrlCache",
+     plural = "contenturlcaches",
+     singular = "contenturlcache")
+public class ContentUrlCache extends AbstractExtension {
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+    private ContentUrlCacheSpec spec;
+
+    @Data
+    public static class ContentUrlCacheSpec {
+        /**
+         * 内容类型：Post、SinglePage、Doc
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private String sourceType;
+
+        /**
+         * 内容名称（metadata.name）
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private String sourceName;
+
+        /**
+         * 提取时的 head 快照名称
+         */
+        private String headSnapshot;
+
+        /**
+         * 提取时的 base 快照名称
+         */
+        private String baseSnapshot;
+
+        /**
+         * 提取时 head 快照的 metadata.version（草稿保存会原地更新 head 快照）
+         */
+        private Long headVersion;
+
+        /**
+         * 提取时 base 快照的 metadata.version
+         */
+        private Long baseVersion;
+
+        /**
+         * 提取出的完整 URL
+         */
+        private List<String> fullUrls;
+
+        /**
+         * 提取出的相对路径
+         */
+        private List<String> relativePaths;
+
+        /**
+         * 提取时间
+         */
+        private Instant extractedAt;
+    }
+
+    /**
+     * 根据内容类型和名称生成缓存记录名称
+     */
+    public static String nameOf(String sourceType, String sourceName) {
+        return "urls-" + sourceType.toLowerCase(Locale.ROOT) + "-" + sourceName;
+    }
+}
@@ -10,8 +10,8 @@ import java.util.List;
 
 /**
  * 重复组 Extension 实体
- * 存储具有相同 MD5 哈希的附件组
- * metadata.name 格式为 dup-{md5hash}
+ * 存储具有相同内容哈希的附件组
+ * metadata.name 格式为 dup-{算法前缀}{hash}，MD5 没有前缀（与旧版本一致）
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -30,10 +30,15 @@ public class DuplicateGroup extends AbstractExtension {
     @Data
     public static class DuplicateGroupSpec {
         /**
-         * 文件 MD5 哈希值
+         * 文件内容哈希值（字段名沿用旧版本，算法见 hashAlgorithm）
          */
         @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
         private String md5Hash;
+
+        /**
+         * 计算哈希使用的算法（HashAlgorithm 名称，为空表示旧版本写入的 MD5）
+         */
+        private String hashAlgorithm;
     }
 
     @Data
@@ -64,7 +69,7 @@ public class DuplicateGroup extends AbstractExtension {
         private List<String> attachmentNames;
 
         /**
-         * 待删除标识（扫描时标记旧记录）
+         * 待删除标识（旧版本扫描时标记旧记录；现在过期组会直接删除，保留字段以兼容旧数据）
          */
         private Boolean pendingDelete;
     }
@@ -48,6 +48,17 @@ public class DuplicateScanStatus extends AbstractExtension {
          */
         private Instant lastScanTime;
 
+        /**
+         * 最近一次保存检查点的时间（扫描期间定期写入已计算的指纹）
+         * 超时判断以开始时间和检查点时间中较晚者为准，仍在推进的扫描不会被判定为卡住
+         */
+        private Instant checkpointTime;
+
+        /**
+         * 服务重启后自动继续扫描的次数（手动触发扫描时清零）
+         */
+        private int resumeCount;
+
         /**
          * 已扫描数量（用于进度显示）
          */
@@ -78,10 +89,25 @@ public class DuplicateScanStatus extends AbstractExtension {
          */
         private long savableSize;
 
+        /**
+         * 相似图片组数量（未启用感知哈希检测时为 0）
+         */
+        private int similarGroupCount;
+
         /**
          * 错误信息
          */
         private String errorMessage;
+
+        /**
+         * 扫描最近一次有进展的时间：开始时间和检查点时间中较晚者
+         */
+        public Instant lastActiveTime() {
+            if (checkpointTime != null && (startTime == null || checkpointTime.isAfter(startTime))) {
+                return checkpointTime;
+            }
+            return startTime;
+        }
     }
 
     /**
@@ -0,0 +1,63 @@
+package com.timxs.storagetoolkit.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 引用扫描检查点 Extension 实体（全局单例）
+ * 记录扫描进度：已完成的任务（内容类型）和未完成任务的名称游标。
+ * 大类内容（文章、页面、评论等）按名称顺序分批扫描，每批完成后保存一次游标，
+ * 本批提取的 URL 和引用源单独保存为 {@link ReferenceScanCheckpointBatch}，单条记录大小受批次大小限制。
+ * 服务重启或扫描失败后从检查点继续，已完成的任务和批次不再重复扫描。
+ * 扫描成功完成或清空记录时删除
+ * metadata.name 固定为 "reference-scan-checkpoint"
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "storage-toolkit.timxs.com",
+     version = "v1alpha1",
+     kind = "ReferenceScanCheckpoint",
+     plural = "referencescancheckpoints",
+     singular = "referencescancheckpoint")
+public class ReferenceScanCheckpoint extends AbstractExtension {
+
+    /**
+     * 全局单例的固定名称
+     */
+    public static final String SINGLETON_NAME = "reference-scan-checkpoint";
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+    private ReferenceScanCheckpointSpec spec;
+
+    @Data
+    public static class ReferenceScanCheckpointSpec {
+        /**
+         * 检查点所属的扫描代数，继续扫描时沿用
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private Long generation;
+
+        /**
+         * 已完成的扫描任务（内容类型）
+         */
+        private List<String> completedTasks;
+
+        /**
+         * 未完成任务的名称游标（任务 -> 最后一个已保存批次的最后一条内容名称）
+         * 继续扫描时只扫描名称大于游标的内容
+         */
+        private Map<String, String> taskCursors;
+
+        /**
+         * 检查点保存时间
+         */
+        private Instant checkpointTime;
+    }
+}
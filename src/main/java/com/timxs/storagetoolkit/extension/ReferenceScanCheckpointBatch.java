@@ -0,0 +1,66 @@
+package com.timxs.storagetoolkit.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 引用扫描检查点批次 Extension 实体
+ * 保存一批内容提取出的 URL 和引用源，只创建不更新；
+ * 继续扫描时合并同一代数的全部批次，与检查点一起删除
+ * metadata.name 格式为 reference-scan-checkpoint-{generation}-{sequence}
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "storage-toolkit.timxs.com",
+     version = "v1alpha1",
+     kind = "ReferenceScanCheckpointBatch",
+     plural = "referencescancheckpointbatches",
+     singular = "referencescancheckpointbatch")
+public class ReferenceScanCheckpointBatch extends AbstractExtension {
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+    private ReferenceScanCheckpointBatchSpec spec;
+
+    @Data
+    public static class ReferenceScanCheckpointBatchSpec {
+        /**
+         * 所属的扫描代数
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private Long generation;
+
+        /**
+         * 批次序号（同一代数内递增）
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private Integer sequence;
+
+        /**
+         * 所属的扫描任务
+         */
+        private String task;
+
+        /**
+         * 本批提取的完整 URL -> 引用源
+         */
+        private Map<String, List<AttachmentReference.ReferenceSource>> fullUrlSources;
+
+        /**
+         * 本批提取的相对路径 -> 引用源
+         */
+        private Map<String, List<AttachmentReference.ReferenceSource>> relativePathSources;
+    }
+
+    /**
+     * 根据代数和序号生成批次名称
+     */
+    public static String nameOf(long generation, int sequence) {
+        return "reference-scan-checkpoint-" + generation + "-" + sequence;
+    }
+}
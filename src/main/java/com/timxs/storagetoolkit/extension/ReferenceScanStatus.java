@@ -7,6 +7,7 @@ import run.halo.app.extension.AbstractExtension;
 import run.halo.app.extension.GVK;
 
 import java.time.Instant;
+import java.util.Map;
 
 /**
  * 引用扫描状态 Extension 实体（全局单例）
@@ -55,6 +56,23 @@ public class ReferenceScanStatus extends AbstractExtension {
          */
         private Instant lastScanTime;
 
+        /**
+         * 最近一次保存检查点的时间（每完成一批或一类内容的扫描写入一次）
+         * 超时判断以开始时间和检查点时间中较晚者为准，仍在推进的扫描不会被判定为卡住
+         */
+        private Instant checkpointTime;
+
+        /**
+         * 服务重启后自动继续扫描的次数（手动触发扫描时清零）
+         */
+        private int resumeCount;
+
+        /**
+         * 当前生效的扫描代数（最后一次成功完成的扫描）
+         * 查询只读取该代的引用记录，重新扫描期间结果保持不变
+         */
+        private Long generation;
+
         /**
          * 总附件数
          */
@@ -75,10 +93,26 @@ public class ReferenceScanStatus extends AbstractExtension {
          */
         private long unreferencedSize;
 
+        /**
+         * 最近一次扫描各内容类型的耗时（毫秒），键为扫描任务名称（posts、pages 等）
+         * 从检查点继续的扫描只记录本次执行的任务
+         */
+        private Map<String, Long> sourceDurations;
+
         /**
          * 错误信息（如有）
          */
         private String errorMessage;
+
+        /**
+         * 扫描最近一次有进展的时间：开始时间和检查点时间中较晚者
+         */
+        public Instant lastActiveTime() {
+            if (checkpointTime != null && (startTime == null || checkpointTime.isAfter(startTime))) {
+                return checkpointTime;
+            }
+            return startTime;
+        }
     }
 
     /**
@@ -0,0 +1,79 @@
+package com.timxs.storagetoolkit.extension;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+import java.util.List;
+
+/**
+ * 相似图片组 Extension 实体
+ * 存储感知哈希（dHash）汉明距离在阈值内的图片附件组，
+ * 用于发现同一张图片以不同格式、不同尺寸重复上传的情况
+ * metadata.name 格式为 sim-{组内第一个附件名称}
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "storage-toolkit.timxs.com",
+     version = "v1alpha1",
+     kind = "SimilarImageGroup",
+     plural = "similarimagegroups",
+     singular = "similarimagegroup")
+public class SimilarImageGroup extends AbstractExtension {
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+    private SimilarImageGroupSpec spec;
+
+    private SimilarImageGroupStatus status;
+
+    @Data
+    public static class SimilarImageGroupSpec {
+        /**
+         * 代表图片（推荐保留的附件）的感知哈希，16 位十六进制
+         */
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private String perceptualHash;
+    }
+
+    @Data
+    public static class SimilarImageGroupStatus {
+        /**
+         * 组内文件总大小（字节）
+         */
+        private long totalSize;
+
+        /**
+         * 组内文件数量
+         */
+        private int fileCount;
+
+        /**
+         * 可节省空间 = totalSize - 推荐保留文件的大小
+         */
+        private long savableSize;
+
+        /**
+         * 组内任意两张图片的最大汉明距离
+         */
+        private int maxDistance;
+
+        /**
+         * 推荐保留的附件名称
+         */
+        private String recommendedKeep;
+
+        /**
+         * 组内附件名称列表
+         */
+        private List<String> attachmentNames;
+    }
+
+    /**
+     * 根据组内第一个附件名称生成组名称
+     */
+    public static String nameOf(String firstAttachmentName) {
+        return "sim-" + firstAttachmentName;
+    }
+}
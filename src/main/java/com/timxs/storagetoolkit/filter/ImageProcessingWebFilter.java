@@ -2,15 +2,18 @@ package com.timxs.storagetoolkit.filter;
 
 import com.timxs.storagetoolkit.config.ProcessingConfig;
 import com.timxs.storagetoolkit.extension.ProcessingLog;
+import com.timxs.storagetoolkit.model.ImageSource;
 import com.timxs.storagetoolkit.model.ProcessingResult;
 import com.timxs.storagetoolkit.model.ProcessingStatus;
 import com.timxs.storagetoolkit.service.ImageProcessor;
 import com.timxs.storagetoolkit.service.ProcessingLogService;
 import com.timxs.storagetoolkit.service.SettingsManager;
 import com.timxs.storagetoolkit.service.SettingsManager.AttachmentUploadConfig;
+import com.timxs.storagetoolkit.service.impl.ImageProcessingExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
@@ -39,9 +42,12 @@ import run.halo.app.core.extension.attachment.Attachment;
 import run.halo.app.core.extension.service.AttachmentService;
 import run.halo.app.security.AdditionalWebFilter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.Semaphore;
 
 /**
  * 图片处理 WebFilter
@@ -58,6 +64,7 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
     private final ProcessingLogService processingLogService;
     private final AttachmentService attachmentService;
     private final ServerSecurityContextRepository securityContextRepository;
+    private final ImageProcessingExecutor processingExecutor;
 
     private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
     
@@ -65,20 +72,14 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
         run.halo.app.infra.utils.JsonUtils.mapper();
 
     /**
-     * 默认并发处理数
+     * 磁盘缓冲临时文件前缀
      */
-    private static final int DEFAULT_PROCESSING_CONCURRENCY = 3;
+    private static final String TEMP_FILE_PREFIX = "storage-toolkit-upload-";
 
     /**
-     * 并发处理限制信号量
-     * 使用 volatile 确保多线程可见性
+     * 读取临时文件时的缓冲块大小
      */
-    private volatile Semaphore processingPermits = new Semaphore(DEFAULT_PROCESSING_CONCURRENCY);
-    
-    /**
-     * 当前配置的并发数
-     */
-    private volatile int currentConcurrency = DEFAULT_PROCESSING_CONCURRENCY;
+    private static final int FILE_READ_BUFFER_SIZE = 64 * 1024;
 
     /**
      * 控制台编辑器上传路径匹配器（新版 Console API - Halo 2.22+）
@@ -105,30 +106,6 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
     private static final String SOURCE_CONSOLE_EDITOR = "console-editor";
     private static final String SOURCE_UC_EDITOR = "uc-editor";
 
-    /**
-     * 获取处理许可的 Semaphore
-     * 如果配置的并发数发生变化，会重建 Semaphore
-     */
-    private Semaphore getProcessingPermits(ProcessingConfig config) {
-        int configuredConcurrency = config.getImageProcessingConcurrency();
-        if (configuredConcurrency < 1) {
-            configuredConcurrency = DEFAULT_PROCESSING_CONCURRENCY;
-        } else if (configuredConcurrency > 10) {
-            configuredConcurrency = 10;
-        }
-        
-        if (configuredConcurrency != currentConcurrency) {
-            synchronized (this) {
-                if (configuredConcurrency != currentConcurrency) {
-                    log.info("图片处理并发数配置变更: {} -> {}", currentConcurrency, configuredConcurrency);
-                    currentConcurrency = configuredConcurrency;
-                    processingPermits = new Semaphore(configuredConcurrency);
-                }
-            }
-        }
-        return processingPermits;
-    }
-
     @Override
     @NonNull
     public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
@@ -220,7 +197,8 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
 
                 // 检查是否有任何处理功能启用
                 boolean hasProcessing = config.getWatermark().isEnabled() 
-                    || config.getFormatConversion().isEnabled();
+                    || config.getFormatConversion().isEnabled()
+                    || config.getResize().isEnabled();
                 if (!hasProcessing) {
                     log.debug("No processing enabled, skip: {}", filename);
                     return uploadWithStream(attachConfig, filename, filePart.content(), mediaType, auth, exchange);
@@ -247,53 +225,52 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
                     return uploadWithStream(attachConfig, filename, filePart.content(), imageMediaType, auth, exchange);
                 }
 
-                // 获取处理许可，限制并发数
-                Semaphore permits = getProcessingPermits(config);
-                return Mono.fromCallable(() -> {
-                        permits.acquire();
-                        return true;
-                    })
-                    .subscribeOn(Schedulers.boundedElastic())
-                    .flatMap(acquired -> DataBufferUtils.join(filePart.content())
-                        .flatMap(dataBuffer -> {
-                            byte[] imageData = new byte[dataBuffer.readableByteCount()];
-                            dataBuffer.read(imageData);
-                            DataBufferUtils.release(dataBuffer);
-                            long originalSize = imageData.length;
-
-                            // 检查是否需要处理
-                            String skipReason = imageProcessor.getSkipReason(contentType, originalSize, config);
-                            if (skipReason != null) {
-                                log.debug("File skipped: {} - {}", filename, skipReason);
-                                saveSkippedLog(filename, contentType, originalSize, startTime, skipReason, source);
-                                return uploadAndRespond(attachConfig, filename, imageData, imageMediaType, auth, exchange);
-                            }
-
-                            // 处理图片
-                            return imageProcessor.process(imageData, filename, contentType, config)
-                                .flatMap(result -> {
-                                    saveProcessingLog(result, filename, originalSize, startTime, source);
-                                    
-                                    if (result.status() == ProcessingStatus.SKIPPED ||
-                                        result.status() == ProcessingStatus.FAILED) {
-                                        return uploadAndRespond(attachConfig, filename, imageData, imageMediaType, auth, exchange);
-                                    }
-
-                                    log.debug("Image processed: {} -> {} ({} bytes -> {} bytes, {}% reduction)",
-                                        filename, result.filename(),
-                                        originalSize, result.data().length,
-                                        originalSize > 0 ? (100 - (result.data().length * 100 / originalSize)) : 0);
-
-                                    return uploadAndRespond(attachConfig, result.filename(), 
-                                        result.data(), MediaType.parseMediaType(result.contentType()), auth, exchange);
-                                })
-                                .onErrorResume(e -> {
-                                    log.error("Image processing error, uploading original: {}", e.getMessage());
-                                    return uploadAndRespond(attachConfig, filename, imageData, imageMediaType, auth, exchange);
-                                });
-                        })
-                    )
-                    .doFinally(signal -> permits.release());
+                // 先预留处理名额再缓冲上传内容，名额已满时不读取内容，直接上传原图
+                long estimatedSize = estimateUploadSize(exchange, filePart);
+                ImageProcessingExecutor.Admission admission = processingExecutor.tryAdmit(config);
+                if (admission == null) {
+                    log.debug("Processing queue full, skip processing: {}", filename);
+                    saveSkippedLog(filename, contentType, estimatedSize, startTime, "图片处理队列已满", source);
+                    return uploadWithStream(attachConfig, filename, filePart.content(), imageMediaType, auth, exchange);
+                }
+                return Mono.usingWhen(
+                    bufferUpload(filePart, estimatedSize, config),
+                    imageSource -> {
+                        long originalSize = imageSource.size();
+
+                        // 检查是否需要处理
+                        String skipReason = imageProcessor.getSkipReason(contentType, originalSize, config);
+                        if (skipReason != null) {
+                            log.debug("File skipped: {} - {}", filename, skipReason);
+                            saveSkippedLog(filename, contentType, originalSize, startTime, skipReason, source);
+                            return uploadWithStream(attachConfig, filename, sourceContent(imageSource), imageMediaType, auth, exchange);
+                        }
+
+                        // 处理图片
+                        return imageProcessor.process(imageSource, filename, contentType, config)
+                            .flatMap(result -> {
+                                saveProcessingLog(result, filename, originalSize, startTime, source);
+                                
+                                if (result.status() == ProcessingStatus.SKIPPED ||
+                                    result.status() == ProcessingStatus.FAILED) {
+                                    return uploadWithStream(attachConfig, filename, sourceContent(imageSource), imageMediaType, auth, exchange);
+                                }
+
+                                log.debug("Image processed: {} -> {} ({} bytes -> {} bytes, {}% reduction)",
+                                    filename, result.filename(),
+                                    originalSize, result.data().length,
+                                    originalSize > 0 ? (100 - (result.data().length * 100 / originalSize)) : 0);
+
+                                return uploadAndRespond(attachConfig, result.filename(), 
+                                    result.data(), MediaType.parseMediaType(result.contentType()), auth, exchange);
+                            })
+                            .onErrorResume(e -> {
+                                log.error("Image processing error, uploading original: {}", e.getMessage());
+                                return uploadWithStream(attachConfig, filename, sourceContent(imageSource), imageMediaType, auth, exchange);
+                            });
+                    },
+                    this::releaseSource)
+                    .doFinally(signal -> admission.release());
             });
     }
 
@@ -436,29 +413,24 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
 
                 // 检查是否有任何处理功能启用
                 boolean hasProcessing = config.getWatermark().isEnabled() 
-                    || config.getFormatConversion().isEnabled();
+                    || config.getFormatConversion().isEnabled()
+                    || config.getResize().isEnabled();
                 if (!hasProcessing) {
                     log.debug("No processing enabled, skip: {}", filePart.filename());
-                    return filePart.content().collectList()
-                        .flatMap(buffers -> decorateExchange(exchange, parts, filePart, Flux.fromIterable(buffers)))
-                        .flatMap(chain::filter);
+                    return passThrough(exchange, chain, parts, filePart);
                 }
                 
                 // 检查是否是允许处理的格式
                 if (!imageProcessor.isAllowedFormat(fileContentType, config)) {
                     log.debug("Format not in allowed list, skip processing: {} ({})", 
                         filePart.filename(), fileContentType);
-                    return filePart.content().collectList()
-                        .flatMap(buffers -> decorateExchange(exchange, parts, filePart, Flux.fromIterable(buffers)))
-                        .flatMap(chain::filter);
+                    return passThrough(exchange, chain, parts, filePart);
                 }
 
                 // 检查策略/分组
                 if (!shouldProcessForPolicyAndGroup(parts, config)) {
                     log.debug("Attachment manager: policy or group not in target list");
-                    return filePart.content().collectList()
-                        .flatMap(buffers -> decorateExchange(exchange, parts, filePart, Flux.fromIterable(buffers)))
-                        .flatMap(chain::filter);
+                    return passThrough(exchange, chain, parts, filePart);
                 }
 
                 return doProcessAttachmentManager(exchange, chain, parts, filePart, config, source);
@@ -484,66 +456,135 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
             saveSkippedLog(filename, contentType, contentLength, startTime, 
                 "文件大小超过限制（提前检查）", source);
             // 直接流式传递，不读入内存
-            return filePart.content().collectList()
-                .flatMap(buffers -> decorateExchange(exchange, parts, filePart, Flux.fromIterable(buffers)))
-                .flatMap(chain::filter);
+            return passThrough(exchange, chain, parts, filePart);
         }
 
-        // 获取处理许可，限制并发数
-        Semaphore permits = getProcessingPermits(config);
-        return Mono.fromCallable(() -> {
-                permits.acquire();
-                return true;
-            })
-            .subscribeOn(Schedulers.boundedElastic())
-            .flatMap(acquired -> DataBufferUtils.join(filePart.content())
-                .flatMap(dataBuffer -> {
+        // 先预留处理名额再缓冲上传内容，名额已满时不读取内容，直接传递原图
+        long estimatedSize = estimateUploadSize(exchange, filePart);
+        ImageProcessingExecutor.Admission admission = processingExecutor.tryAdmit(config);
+        if (admission == null) {
+            log.debug("Processing queue full, skip processing: {}", filename);
+            saveSkippedLog(filename, contentType, estimatedSize, startTime, "图片处理队列已满", source);
+            return passThrough(exchange, chain, parts, filePart);
+        }
+        return Mono.usingWhen(
+            bufferUpload(filePart, estimatedSize, config),
+            imageSource -> {
+                long originalSize = imageSource.size();
+
+                String skipReason = imageProcessor.getSkipReason(contentType, originalSize, config);
+                if (skipReason != null) {
+                    log.debug("File skipped: {} - {}", filename, skipReason);
+                    saveSkippedLog(filename, contentType, originalSize, startTime, skipReason, source);
+                    return decorateExchange(exchange, parts, filePart, sourceContent(imageSource), imageSource.size())
+                        .flatMap(chain::filter);
+                }
+
+                return imageProcessor.process(imageSource, filename, contentType, config)
+                    .flatMap(result -> {
+                        saveProcessingLog(result, filename, originalSize, startTime, source);
+
+                        if (result.status() == ProcessingStatus.SKIPPED ||
+                            result.status() == ProcessingStatus.FAILED) {
+                            return decorateExchange(exchange, parts, filePart, sourceContent(imageSource), imageSource.size())
+                                .flatMap(chain::filter);
+                        }
+
+                        log.debug("Image processed: {} -> {} ({} bytes -> {} bytes, {}% reduction)",
+                            filename, result.filename(),
+                            originalSize, result.data().length,
+                            originalSize > 0 ? (100 - (result.data().length * 100 / originalSize)) : 0);
+
+                        DataBuffer processedBuffer = bufferFactory.wrap(result.data());
+                        MediaType newContentType = MediaType.parseMediaType(result.contentType());
+                        
+                        return decorateExchange(exchange, parts, filePart, Flux.just(processedBuffer),
+                            result.data().length, result.filename(), newContentType)
+                            .flatMap(chain::filter);
+                    })
+                    .onErrorResume(e -> {
+                        log.error("Image processing error, using original: {}", e.getMessage());
+                        return decorateExchange(exchange, parts, filePart, sourceContent(imageSource), imageSource.size())
+                            .flatMap(chain::filter);
+                    });
+            },
+            this::releaseSource)
+            .doFinally(signal -> admission.release());
+    }
+
+    /**
+     * 估算上传文件大小
+     * 优先使用文件 part 的 Content-Length，缺失时退化为整个请求的 Content-Length（上限估计）
+     *
+     * @return 估算大小，未知时返回 -1
+     */
+    private long estimateUploadSize(ServerWebExchange exchange, FilePart filePart) {
+        long partLength = filePart.headers().getContentLength();
+        if (partLength >= 0) {
+            return partLength;
+        }
+        return exchange.getRequest().getHeaders().getContentLength();
+    }
+
+    /**
+     * 缓冲上传内容
+     * 小文件合并到内存；超过磁盘缓冲阈值或大小未知的文件直接流式写入临时文件，
+     * 解码时再通过 FileImageInputStream 读取，避免整个文件驻留堆内存
+     */
+    private Mono<ImageSource> bufferUpload(FilePart filePart, long estimatedSize, ProcessingConfig config) {
+        long threshold = config.getDiskBufferThreshold();
+        boolean spillToDisk = threshold > 0 && (estimatedSize < 0 || estimatedSize > threshold);
+        if (!spillToDisk) {
+            return DataBufferUtils.join(filePart.content())
+                .map(dataBuffer -> {
                     byte[] imageData = new byte[dataBuffer.readableByteCount()];
                     dataBuffer.read(imageData);
                     DataBufferUtils.release(dataBuffer);
-                    long originalSize = imageData.length;
-
-                    String skipReason = imageProcessor.getSkipReason(contentType, originalSize, config);
-                    if (skipReason != null) {
-                        log.debug("File skipped: {} - {}", filename, skipReason);
-                        saveSkippedLog(filename, contentType, originalSize, startTime, skipReason, source);
-                        DataBuffer buffer = bufferFactory.wrap(imageData);
-                        return decorateExchange(exchange, parts, filePart, Flux.just(buffer))
-                            .flatMap(chain::filter);
-                    }
+                    return ImageSource.of(imageData);
+                });
+        }
 
-                    return imageProcessor.process(imageData, filename, contentType, config)
-                        .flatMap(result -> {
-                            saveProcessingLog(result, filename, originalSize, startTime, source);
-
-                            if (result.status() == ProcessingStatus.SKIPPED ||
-                                result.status() == ProcessingStatus.FAILED) {
-                                DataBuffer buffer = bufferFactory.wrap(imageData);
-                                return decorateExchange(exchange, parts, filePart, Flux.just(buffer))
-                                    .flatMap(chain::filter);
-                            }
-
-                            log.debug("Image processed: {} -> {} ({} bytes -> {} bytes, {}% reduction)",
-                                filename, result.filename(),
-                                originalSize, result.data().length,
-                                originalSize > 0 ? (100 - (result.data().length * 100 / originalSize)) : 0);
-
-                            DataBuffer processedBuffer = bufferFactory.wrap(result.data());
-                            MediaType newContentType = MediaType.parseMediaType(result.contentType());
-                            
-                            return decorateExchange(exchange, parts, filePart, 
-                                Flux.just(processedBuffer), result.filename(), newContentType)
-                                .flatMap(chain::filter);
-                        })
-                        .onErrorResume(e -> {
-                            log.error("Image processing error, using original: {}", e.getMessage());
-                            DataBuffer buffer = bufferFactory.wrap(imageData);
-                            return decorateExchange(exchange, parts, filePart, Flux.just(buffer))
-                                .flatMap(chain::filter);
-                        });
-                })
-            )
-            .doFinally(signal -> permits.release());
+        return Mono.fromCallable(() -> Files.createTempFile(TEMP_FILE_PREFIX, ".tmp"))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(tempFile -> filePart.transferTo(tempFile)
+                .then(Mono.fromCallable(() -> ImageSource.of(tempFile, Files.size(tempFile))))
+                .doOnNext(imageSource -> log.debug("Upload buffered to disk: {} ({} bytes)",
+                    filePart.filename(), imageSource.size()))
+                .onErrorResume(e -> {
+                    deleteTempFile(tempFile);
+                    return Mono.error(e);
+                }));
+    }
+
+    /**
+     * 获取原始上传内容的数据流
+     * 磁盘缓冲时按块读取临时文件，不一次性读入内存
+     */
+    private Flux<DataBuffer> sourceContent(ImageSource imageSource) {
+        if (imageSource.isFileBacked()) {
+            return DataBufferUtils.read(imageSource.file(), bufferFactory, FILE_READ_BUFFER_SIZE);
+        }
+        return Flux.just(bufferFactory.wrap(imageSource.data()));
+    }
+
+    /**
+     * 释放缓冲资源，删除临时文件
+     */
+    private Mono<Void> releaseSource(ImageSource imageSource) {
+        if (!imageSource.isFileBacked()) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> deleteTempFile(imageSource.file()))
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    private void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file {}: {}", tempFile, e.getMessage());
+        }
     }
 
     private boolean shouldProcessForConfig(ProcessingConfig config, String policyName, String groupName) {
@@ -585,18 +626,37 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
         return shouldProcessForConfig(config, currentPolicy, currentGroup);
     }
 
+    /**
+     * 原样传递上传内容给下游
+     * 文件内容按需流式读取，不会整体收集到内存
+     */
+    private Mono<Void> passThrough(ServerWebExchange exchange, WebFilterChain chain,
+                                   MultiValueMap<String, Part> parts, FilePart filePart) {
+        return decorateExchange(exchange, parts, filePart, filePart.content(),
+            filePart.headers().getContentLength())
+            .flatMap(chain::filter);
+    }
+
     private Mono<ServerWebExchange> decorateExchange(ServerWebExchange exchange,
                                                       MultiValueMap<String, Part> parts,
                                                       FilePart filePart,
-                                                      Flux<DataBuffer> processedImage) {
-        return decorateExchange(exchange, parts, filePart, processedImage, 
+                                                      Flux<DataBuffer> fileContent,
+                                                      long fileContentLength) {
+        return decorateExchange(exchange, parts, filePart, fileContent, fileContentLength,
             filePart.filename(), filePart.headers().getContentType());
     }
 
+    /**
+     * 用新的文件内容重建 multipart 请求体
+     * 文件内容在下游订阅请求体时才惰性读取，不做 collectList
+     *
+     * @param fileContentLength 文件内容长度，未知时为 -1（此时移除 Content-Length）
+     */
     private Mono<ServerWebExchange> decorateExchange(ServerWebExchange exchange,
                                                       MultiValueMap<String, Part> parts,
                                                       FilePart filePart,
-                                                      Flux<DataBuffer> processedImage,
+                                                      Flux<DataBuffer> fileContent,
+                                                      long fileContentLength,
                                                       String newFilename,
                                                       MediaType newContentType) {
         String boundary = getBoundary(exchange);
@@ -605,51 +665,57 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
             return Mono.just(exchange);
         }
 
-        return processedImage.collectList()
-            .flatMap(buffers -> createDecoratedExchange(exchange, parts, boundary, buffers, newFilename, newContentType));
+        return Mono.just(createDecoratedExchange(exchange, parts, boundary, fileContent, fileContentLength,
+            newFilename, newContentType));
     }
 
-    private Mono<ServerWebExchange> createDecoratedExchange(final ServerWebExchange exchange,
-                                                             MultiValueMap<String, Part> parts,
-                                                             String boundary,
-                                                             List<DataBuffer> buffers,
-                                                             String filename,
-                                                             MediaType contentType) {
-        String multipartContent = buildMultipartContent(boundary, parts, filename, contentType);
-        String footer = "\r\n--" + boundary + "--\r\n";
-
-        final DataBuffer headerBuffer = bufferFactory.wrap(multipartContent.getBytes());
-        final DataBuffer footerBuffer = bufferFactory.wrap(footer.getBytes());
-
-        final List<DataBuffer> finalBuffers = buffers.isEmpty()
-            ? List.of(bufferFactory.wrap(new byte[0]))
-            : buffers;
+    private ServerWebExchange createDecoratedExchange(final ServerWebExchange exchange,
+                                                      MultiValueMap<String, Part> parts,
+                                                      String boundary,
+                                                      Flux<DataBuffer> fileContent,
+                                                      long fileContentLength,
+                                                      String filename,
+                                                      MediaType contentType) {
+        final byte[] header = buildMultipartContent(boundary, parts, filename, contentType)
+            .getBytes(StandardCharsets.UTF_8);
+        final byte[] footer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        // 头尾缓冲区从响应的 bufferFactory 分配（Netty 下为池化内存），每次订阅重新分配，由下游消费后释放
+        final DataBufferFactory pooledFactory = exchange.getResponse().bufferFactory();
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.putAll(exchange.getRequest().getHeaders());
+        if (fileContentLength >= 0) {
+            headers.setContentLength(header.length + fileContentLength + footer.length);
+        } else {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
 
         final ServerHttpRequest decoratedRequest = new ServerHttpRequestDecorator(exchange.getRequest()) {
             @Override
             @NonNull
             public Flux<DataBuffer> getBody() {
-                return Flux.just(headerBuffer)
-                    .concatWith(Flux.fromIterable(finalBuffers))
-                    .concatWith(Flux.just(footerBuffer));
+                return Flux.concat(
+                    Mono.fromSupplier(() -> pooledFactory.allocateBuffer(header.length).write(header)),
+                    fileContent,
+                    Mono.fromSupplier(() -> pooledFactory.allocateBuffer(footer.length).write(footer))
+                );
             }
 
             @Override
             @NonNull
             public HttpHeaders getHeaders() {
-                HttpHeaders headers = new HttpHeaders();
-                headers.putAll(exchange.getRequest().getHeaders());
                 return headers;
             }
         };
 
-        return Mono.just(new ServerWebExchangeDecorator(exchange) {
+        return new ServerWebExchangeDecorator(exchange) {
             @Override
             @NonNull
             public ServerHttpRequest getRequest() {
                 return decoratedRequest;
             }
-        });
+        };
     }
 
     private String buildMultipartContent(String boundary,
@@ -713,7 +779,8 @@ public class ImageProcessingWebFilter implements AdditionalWebFilter {
             spec.setOriginalFilename(originalFilename);
             spec.setResultFilename(result.filename());
             spec.setOriginalSize(originalSize);
-            spec.setResultSize(result.data().length);
+            // 磁盘缓冲的跳过/失败结果不携带数据，结果大小即原始大小
+            spec.setResultSize(result.data() != null ? result.data().length : originalSize);
             spec.setStatus(result.status());
             spec.setProcessedAt(startTime);
             spec.setProcessingDuration(Instant.now().toEpochMilli() - startTime.toEpochMilli());
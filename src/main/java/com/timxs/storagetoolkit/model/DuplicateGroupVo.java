@@ -17,10 +17,15 @@ import java.util.List;
 @AllArgsConstructor
 public class DuplicateGroupVo {
     /**
-     * MD5 哈希值
+     * 内容哈希值（字段名沿用旧版本）
      */
     private String md5Hash;
 
+    /**
+     * 哈希算法（HashAlgorithm 名称）
+     */
+    private String hashAlgorithm;
+
     /**
      * 文件大小（字节）
      */
@@ -68,6 +73,7 @@ public class DuplicateGroupVo {
         private String displayName;
         private String mediaType;
         private String permalink;
+        private Long size;
         private Instant uploadTime;
         private String groupName;
         private String groupDisplayName;
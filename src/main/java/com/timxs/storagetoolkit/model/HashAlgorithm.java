@@ -0,0 +1,73 @@
+package com.timxs.storagetoolkit.model;
+
+/**
+ * 重复检测使用的内容哈希算法
+ */
+public enum HashAlgorithm {
+
+    /**
+     * MD5（默认，兼容旧版本扫描结果）
+     */
+    MD5("MD5", ""),
+
+    /**
+     * SHA-256（JDK 在支持的 CPU 上使用硬件指令加速）
+     */
+    SHA256("SHA-256", "sha256-"),
+
+    /**
+     * MurmurHash3 x64 128 位（非加密哈希，速度最快，仅用于内容比对）
+     */
+    MURMUR3_128(null, "murmur3-");
+
+    /**
+     * JCA MessageDigest 算法名称，非加密哈希为 null
+     */
+    private final String digestName;
+
+    /**
+     * 重复组名称前缀，保证不同算法的重复组不会混在一起
+     */
+    private final String groupPrefix;
+
+    HashAlgorithm(String digestName, String groupPrefix) {
+        this.digestName = digestName;
+        this.groupPrefix = groupPrefix;
+    }
+
+    /**
+     * 获取 JCA MessageDigest 算法名称
+     *
+     * @return 算法名称，非加密哈希返回 null
+     */
+    public String getDigestName() {
+        return digestName;
+    }
+
+    /**
+     * 获取重复组名称前缀
+     *
+     * @return 前缀（MD5 为空字符串，与旧版本组名一致）
+     */
+    public String getGroupPrefix() {
+        return groupPrefix;
+    }
+
+    /**
+     * 根据名称获取算法
+     *
+     * @param name 算法名称
+     * @return 对应的算法，未找到或为空时返回 MD5
+     */
+    public static HashAlgorithm fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return MD5;
+        }
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name.trim())) {
+                return algorithm;
+            }
+        }
+        return MD5;
+    }
+}
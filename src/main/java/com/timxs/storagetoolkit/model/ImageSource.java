@@ -0,0 +1,57 @@
+package com.timxs.storagetoolkit.model;
+
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 待处理的图片数据来源
+ * 小文件直接保存在内存中，大文件先写入临时文件，解码时按需从磁盘读取
+ *
+ * @param data 内存中的图片数据（磁盘缓冲时为 null）
+ * @param file 临时文件路径（内存缓冲时为 null）
+ * @param size 图片大小（字节）
+ */
+public record ImageSource(
+    byte[] data,
+    Path file,
+    long size
+) {
+    /**
+     * 创建内存缓冲的图片来源
+     */
+    public static ImageSource of(byte[] data) {
+        return new ImageSource(data, null, data.length);
+    }
+
+    /**
+     * 创建磁盘缓冲的图片来源
+     */
+    public static ImageSource of(Path file, long size) {
+        return new ImageSource(null, file, size);
+    }
+
+    /**
+     * 是否为磁盘缓冲
+     */
+    public boolean isFileBacked() {
+        return file != null;
+    }
+
+    /**
+     * 打开图片输入流，供 ImageIO 解码使用
+     * 磁盘缓冲使用 FileImageInputStream 随机读取，不会把整个文件读入堆内存
+     *
+     * @return 图片输入流（调用方负责关闭）
+     * @throws IOException 打开失败时抛出
+     */
+    public ImageInputStream openImageInputStream() throws IOException {
+        if (isFileBacked()) {
+            return new FileImageInputStream(file.toFile());
+        }
+        return new MemoryCacheImageInputStream(new ByteArrayInputStream(data));
+    }
+}
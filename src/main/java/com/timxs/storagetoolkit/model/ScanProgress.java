@@ -0,0 +1,37 @@
+package com.timxs.storagetoolkit.model;
+
+import java.time.Instant;
+
+/**
+ * 扫描进度事件（通过 SSE 推送给控制台）
+ *
+ * @param phase          扫描阶段：scanning、completed、error，尚未扫描过时为 null
+ * @param stage          当前步骤（如 hashing、matching），用于显示
+ * @param processed      已处理数量
+ * @param total          总数量，未知时为 0
+ * @param bytesProcessed 已读取的字节数（重复检测为已哈希的字节数）
+ * @param throughput     处理速度（个/秒）
+ * @param bytesPerSecond 读取速度（字节/秒）
+ * @param etaSeconds     预计剩余时间（秒），无法估算时为 null
+ * @param startTime      扫描开始时间
+ * @param message        附加信息（如错误信息）
+ */
+public record ScanProgress(
+    String phase,
+    String stage,
+    long processed,
+    long total,
+    long bytesProcessed,
+    double throughput,
+    double bytesPerSecond,
+    Long etaSeconds,
+    Instant startTime,
+    String message
+) {
+    /**
+     * 尚未开始扫描时的进度
+     */
+    public static ScanProgress idle() {
+        return new ScanProgress(null, null, 0, 0, 0, 0, 0, null, null, null);
+    }
+}
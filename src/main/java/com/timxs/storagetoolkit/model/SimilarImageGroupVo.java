@@ -0,0 +1,57 @@
+package com.timxs.storagetoolkit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 相似图片组视图对象
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarImageGroupVo {
+    /**
+     * 代表图片的感知哈希（dHash，16 位十六进制）
+     */
+    private String perceptualHash;
+
+    /**
+     * 组内文件总大小（字节）
+     */
+    private long totalSize;
+
+    /**
+     * 组内文件数量
+     */
+    private int fileCount;
+
+    /**
+     * 可节省空间（只保留推荐文件时）
+     */
+    private long savableSize;
+
+    /**
+     * 组内任意两张图片的最大汉明距离
+     */
+    private int maxDistance;
+
+    /**
+     * 推荐保留的附件名称
+     */
+    private String recommendedKeep;
+
+    /**
+     * 预览 URL（推荐保留文件的 permalink）
+     */
+    private String previewUrl;
+
+    /**
+     * 组内文件列表（大小各不相同，见 DuplicateFileVo.size）
+     */
+    private List<DuplicateGroupVo.DuplicateFileVo> files;
+}
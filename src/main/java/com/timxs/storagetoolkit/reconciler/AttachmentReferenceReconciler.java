@@ -0,0 +1,33 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import com.timxs.storagetoolkit.service.ReferenceService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.attachment.Attachment;
+import run.halo.app.extension.ExtensionClient;
+
+/**
+ * 附件引用记录增量更新（附件上传时建立未引用记录，删除或移入排除的分组时移除记录，链接变化时重建附件链接查找表）
+ */
+@Component
+public class AttachmentReferenceReconciler extends ReferenceIndexReconciler<Attachment> {
+
+    private final ReferenceService referenceService;
+
+    public AttachmentReferenceReconciler(ExtensionClient client, ReferenceService referenceService) {
+        super(client, Attachment.class, Attachment::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected Mono<Boolean> reindex(String name) {
+        return referenceService.reindexAttachment(name);
+    }
+
+    @Override
+    protected String fingerprint(Attachment attachment) {
+        // 链接变化时需要重建增量更新使用的附件链接查找表
+        String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
+        return fingerprintOf(attachment.getSpec().getGroupName(), attachment.getSpec().getPolicyName(), permalink);
+    }
+}
@@ -0,0 +1,31 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import com.timxs.storagetoolkit.service.ReferenceService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.Comment;
+import run.halo.app.extension.ExtensionClient;
+
+/**
+ * 评论引用增量更新（评论创建、编辑或删除时重新扫描该评论）
+ */
+@Component
+public class CommentReferenceReconciler extends ReferenceIndexReconciler<Comment> {
+
+    private final ReferenceService referenceService;
+
+    public CommentReferenceReconciler(ExtensionClient client, ReferenceService referenceService) {
+        super(client, Comment.class, Comment::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected Mono<Boolean> reindex(String name) {
+        return referenceService.reindexSource("Comment", name);
+    }
+
+    @Override
+    protected String fingerprint(Comment comment) {
+        return fingerprintOf(comment.getSpec().getRaw(), comment.getSpec().getSubjectRef());
+    }
+}
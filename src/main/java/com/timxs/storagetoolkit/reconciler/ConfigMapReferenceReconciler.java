@@ -0,0 +1,31 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import com.timxs.storagetoolkit.service.ReferenceService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ConfigMap;
+import run.halo.app.extension.ExtensionClient;
+
+/**
+ * 设置引用增量更新（系统、插件或主题设置保存时重新扫描该 ConfigMap）
+ */
+@Component
+public class ConfigMapReferenceReconciler extends ReferenceIndexReconciler<ConfigMap> {
+
+    private final ReferenceService referenceService;
+
+    public ConfigMapReferenceReconciler(ExtensionClient client, ReferenceService referenceService) {
+        super(client, ConfigMap.class, ConfigMap::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected Mono<Boolean> reindex(String name) {
+        return referenceService.reindexSource("ConfigMap", name);
+    }
+
+    @Override
+    protected String fingerprint(ConfigMap configMap) {
+        return fingerprintOf(configMap.getData());
+    }
+}
@@ -0,0 +1,35 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import com.timxs.storagetoolkit.service.ReferenceService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.Post;
+import run.halo.app.extension.ExtensionClient;
+
+/**
+ * 文章引用增量更新（草稿保存、发布、封面或回收站状态变化时重新扫描该文章）
+ */
+@Component
+public class PostReferenceReconciler extends ReferenceIndexReconciler<Post> {
+
+    private final ReferenceService referenceService;
+
+    public PostReferenceReconciler(ExtensionClient client, ReferenceService referenceService) {
+        super(client, Post.class, Post::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected Mono<Boolean> reindex(String name) {
+        return referenceService.reindexSource("Post", name);
+    }
+
+    @Override
+    protected String fingerprint(Post post) {
+        return fingerprintOf(post.getSpec().getHeadSnapshot(), post.getSpec().getBaseSnapshot(),
+            post.getSpec().getReleaseSnapshot(), post.getSpec().getCover(), post.getSpec().getDeleted(),
+            post.getSpec().getTitle(), post.getSpec().getSlug(),
+            // 草稿保存可能只更新快照内容，用最后修改时间识别
+            post.getStatus() != null ? post.getStatus().getLastModifyTime() : null);
+    }
+}
@@ -0,0 +1,122 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.ExtensionClient;
+import run.halo.app.extension.controller.Controller;
+import run.halo.app.extension.controller.ControllerBuilder;
+import run.halo.app.extension.controller.Reconciler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 引用记录增量更新 Reconciler 基类
+ * 监听 Extension 变更事件，只重新扫描变更的对象并更新受影响的引用记录，全量扫描作为定期校正保留。
+ * 对象的相关字段没有变化时（如只更新了统计状态）跳过；全量扫描进行中时等扫描结束后重试
+ *
+ * @param <E> 监听的 Extension 类型
+ */
+@Slf4j
+abstract class ReferenceIndexReconciler<E extends Extension> implements Reconciler<Reconciler.Request> {
+
+    /**
+     * 全量扫描进行中时的重试间隔
+     */
+    private static final Duration SCANNING_RETRY_DELAY = Duration.ofMinutes(1);
+
+    /**
+     * 单次增量更新的超时时间
+     */
+    private static final Duration REINDEX_TIMEOUT = Duration.ofMinutes(2);
+
+    private final ExtensionClient client;
+    private final Class<E> type;
+    private final Supplier<E> factory;
+
+    /**
+     * 已处理对象的字段指纹，用于跳过无关变更（重启后清空，首次事件总是处理）
+     */
+    private final Map<String, String> indexedFingerprints = new ConcurrentHashMap<>();
+
+    protected ReferenceIndexReconciler(ExtensionClient client, Class<E> type, Supplier<E> factory) {
+        this.client = client;
+        this.type = type;
+        this.factory = factory;
+    }
+
+    @Override
+    public Result reconcile(Request request) {
+        String name = request.name();
+        String fingerprint = client.fetch(type, name)
+            .filter(extension -> extension.getMetadata().getDeletionTimestamp() == null)
+            .map(this::fingerprint)
+            .orElse(null);
+        if (fingerprint != null && fingerprint.equals(indexedFingerprints.get(name))) {
+            return Result.doNotRetry();
+        }
+
+        Boolean done = reindex(name).block(REINDEX_TIMEOUT);
+        if (!Boolean.TRUE.equals(done)) {
+            log.debug("全量扫描进行中，稍后更新 {} {} 的引用", type.getSimpleName(), name);
+            return new Result(true, SCANNING_RETRY_DELAY);
+        }
+        if (fingerprint != null) {
+            indexedFingerprints.put(name, fingerprint);
+        } else {
+            indexedFingerprints.remove(name);
+        }
+        return Result.doNotRetry();
+    }
+
+    @Override
+    public Controller setupWith(ControllerBuilder builder) {
+        // 启动时不同步全部对象，启动前的变更由全量扫描覆盖
+        return builder
+            .extension(factory.get())
+            .syncAllOnStart(false)
+            .build();
+    }
+
+    /**
+     * 更新对象的引用
+     *
+     * @param name 对象名称
+     * @return 是否已处理，全量扫描进行中时为 false
+     */
+    protected abstract Mono<Boolean> reindex(String name);
+
+    /**
+     * 影响引用提取结果的字段指纹
+     *
+     * @param extension 对象
+     * @return 指纹，字段不变时指纹不变
+     */
+    protected abstract String fingerprint(E extension);
+
+    /**
+     * 拼接字段生成指纹（只保留 SHA-256 摘要，不同内容的指纹实际上不会相同）
+     */
+    protected static String fingerprintOf(Object... fields) {
+        String joined = Arrays.stream(fields)
+            .map(field -> Objects.toString(field, ""))
+            .collect(Collectors.joining("\u0000"));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(joined.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 Java 平台都必须提供 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
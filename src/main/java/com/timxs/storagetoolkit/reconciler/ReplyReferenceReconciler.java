@@ -0,0 +1,31 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import com.timxs.storagetoolkit.service.ReferenceService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.Reply;
+import run.halo.app.extension.ExtensionClient;
+
+/**
+ * 回复引用增量更新（回复创建、编辑或删除时重新扫描该回复）
+ */
+@Component
+public class ReplyReferenceReconciler extends ReferenceIndexReconciler<Reply> {
+
+    private final ReferenceService referenceService;
+
+    public ReplyReferenceReconciler(ExtensionClient client, ReferenceService referenceService) {
+        super(client, Reply.class, Reply::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected Mono<Boolean> reindex(String name) {
+        return referenceService.reindexSource("Reply", name);
+    }
+
+    @Override
+    protected String fingerprint(Reply reply) {
+        return fingerprintOf(reply.getSpec().getRaw(), reply.getSpec().getCommentName());
+    }
+}
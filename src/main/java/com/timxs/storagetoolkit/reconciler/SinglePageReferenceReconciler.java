@@ -0,0 +1,35 @@
+package com.timxs.storagetoolkit.reconciler;
+
+import com.timxs.storagetoolkit.service.ReferenceService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.SinglePage;
+import run.halo.app.extension.ExtensionClient;
+
+/**
+ * 独立页面引用增量更新（草稿保存、发布、封面或回收站状态变化时重新扫描该页面）
+ */
+@Component
+public class SinglePageReferenceReconciler extends ReferenceIndexReconciler<SinglePage> {
+
+    private final ReferenceService referenceService;
+
+    public SinglePageReferenceReconciler(ExtensionClient client, ReferenceService referenceService) {
+        super(client, SinglePage.class, SinglePage::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected Mono<Boolean> reindex(String name) {
+        return referenceService.reindexSource("SinglePage", name);
+    }
+
+    @Override
+    protected String fingerprint(SinglePage page) {
+        return fingerprintOf(page.getSpec().getHeadSnapshot(), page.getSpec().getBaseSnapshot(),
+            page.getSpec().getReleaseSnapshot(), page.getSpec().getCover(), page.getSpec().getDeleted(),
+            page.getSpec().getTitle(), page.getSpec().getSlug(),
+            // 草稿保存可能只更新快照内容，用最后修改时间识别
+            page.getStatus() != null ? page.getStatus().getLastModifyTime() : null);
+    }
+}
@@ -9,8 +9,6 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 内容扫描器
@@ -20,49 +18,14 @@ import java.util.regex.Pattern;
 @Component
 public class ContentScanner {
 
-    /**
-     * HTML img 标签 src 属性
-     */
-    private static final Pattern HTML_IMG_PATTERN = 
-        Pattern.compile("<img[^>]+src=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-
-    /**
-     * HTML a 标签 href 属性
-     */
-    private static final Pattern HTML_A_PATTERN = 
-        Pattern.compile("<a[^>]+href=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-
-    /**
-     * HTML video/audio source 标签 src 属性
-     */
-    private static final Pattern HTML_MEDIA_PATTERN = 
-        Pattern.compile("<(?:source|video|audio)[^>]+src=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-
-    /**
-     * Markdown 图片语法
-     */
-    private static final Pattern MD_IMAGE_PATTERN = 
-        Pattern.compile("!\\[[^\\]]*\\]\\(([^)\\s]+)(?:\\s+[\"'][^\"']*[\"'])?\\)");
-
-    /**
-     * Markdown 链接语法
-     */
-    private static final Pattern MD_LINK_PATTERN = 
-        Pattern.compile("(?<!!)\\[[^\\]]*\\]\\(([^)\\s]+)(?:\\s+[\"'][^\"']*[\"'])?\\)");
-
-    /**
-     * 通用相对路径匹配（适用于 JSON、纯文本等）
-     * 匹配 /upload/ 开头的路径，但排除完整 URL 中的路径部分
-     * 负向后行断言：前面不能是字母、数字、点、横线（域名字符）
-     */
-    private static final Pattern UPLOAD_PATH_PATTERN = 
-        Pattern.compile("(?<![a-zA-Z0-9.\\-])(/upload/[^\"'\\s<>\\]\\)]+)");
+    private static final String HTTP_PREFIX = "http://";
+    private static final String HTTPS_PREFIX = "https://";
+    private static final String UPLOAD_PREFIX = "/upload/";
 
     /**
-     * HTTP/HTTPS URL 匹配（适用于 JSON、纯文本等）
+     * 带 src 属性的 HTML 标签名（前缀匹配，忽略大小写）
      */
-    private static final Pattern HTTP_URL_PATTERN = 
-        Pattern.compile("([\"']?)(https?://[^\"'\\s<>\\]\\)]+)\\1");
+    private static final String[] SRC_TAGS = {"img", "source", "video", "audio"};
 
     /**
      * 提取结果，区分完整 URL 和相对路径
@@ -75,6 +38,14 @@ public class ContentScanner {
 
     /**
      * 从内容中提取所有 URL，区分完整 URL 和相对路径
+     * 单次线性扫描内容，在以下锚点处提取：
+     * <ul>
+     *   <li>HTML 标签：img/source/video/audio 的 src 属性、a 的 href 属性</li>
+     *   <li>Markdown 图片和链接：[...](url "title")</li>
+     *   <li>JSON、纯文本中的 http/https URL</li>
+     *   <li>JSON、纯文本中以 /upload/ 开头的相对路径（不含完整 URL 中的路径部分）</li>
+     * </ul>
+     * 各类锚点独立识别，同一 URL 被多种语法命中时由结果集合去重
      */
     public ExtractResult extractUrlsWithType(String content) {
         ExtractResult result = new ExtractResult();
@@ -83,19 +54,63 @@ public class ContentScanner {
             return result;
         }
 
-        // HTML 标签
-        extractByPatternWithType(content, HTML_IMG_PATTERN, result, 1);
-        extractByPatternWithType(content, HTML_A_PATTERN, result, 1);
-        extractByPatternWithType(content, HTML_MEDIA_PATTERN, result, 1);
-        
-        // Markdown 语法
-        extractByPatternWithType(content, MD_IMAGE_PATTERN, result, 1);
-        extractByPatternWithType(content, MD_LINK_PATTERN, result, 1);
-        
-        // JSON、纯文本中的 URL
-        extractByPatternWithType(content, HTTP_URL_PATTERN, result, 2);
-        // 相对路径使用 group 1（正则已调整）
-        extractByPatternWithType(content, UPLOAD_PATH_PATTERN, result, 1);
+        int length = content.length();
+        // 各类匹配的结束位置，同一类匹配之间不重叠
+        int httpEnd = 0;
+        int uploadEnd = 0;
+        int markdownEnd = 0;
+        // 是否处于 Markdown 的 [ 之后、] 之前
+        boolean bracketOpen = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            switch (c) {
+                case '<' -> scanHtmlTag(content, i, result);
+                case '[' -> {
+                    if (i >= markdownEnd) {
+                        bracketOpen = true;
+                    }
+                }
+                case ']' -> {
+                    if (i >= markdownEnd && bracketOpen && i + 1 < length && content.charAt(i + 1) == '(') {
+                        int end = scanMarkdownTarget(content, i + 2, result);
+                        if (end > 0) {
+                            markdownEnd = end;
+                        }
+                    }
+                    if (i >= markdownEnd) {
+                        bracketOpen = false;
+                    }
+                }
+                case 'h' -> {
+                    if (i >= httpEnd) {
+                        int prefixLength = content.startsWith(HTTPS_PREFIX, i) ? HTTPS_PREFIX.length()
+                            : content.startsWith(HTTP_PREFIX, i) ? HTTP_PREFIX.length() : 0;
+                        if (prefixLength > 0) {
+                            int end = urlRunEnd(content, i + prefixLength);
+                            if (end > i + prefixLength) {
+                                addUrl(content, i, end, result);
+                                httpEnd = end;
+                            }
+                        }
+                    }
+                }
+                case '/' -> {
+                    // 前面不能是字母、数字、点、横线（域名字符），排除完整 URL 中的路径部分
+                    if (i >= uploadEnd && content.startsWith(UPLOAD_PREFIX, i)
+                        && (i == 0 || !isHostChar(content.charAt(i - 1)))) {
+                        int end = urlRunEnd(content, i + UPLOAD_PREFIX.length());
+                        if (end > i + UPLOAD_PREFIX.length()) {
+                            addUrl(content, i, end, result);
+                            uploadEnd = end;
+                        }
+                    }
+                }
+                default -> {
+                    // 非锚点字符
+                }
+            }
+        }
 
         return result;
     }
@@ -111,21 +126,135 @@ public class ContentScanner {
         return urls;
     }
 
-    private void extractByPatternWithType(String content, Pattern pattern, ExtractResult result, int group) {
-        Matcher matcher = pattern.matcher(content);
-        while (matcher.find()) {
-            String url = matcher.group(group);
-            if (StringUtils.hasText(url)) {
-                String decodedUrl = decodeUrl(url.trim());
-                if (isValidUrl(decodedUrl)) {
-                    if (isFullUrl(decodedUrl)) {
-                        result.fullUrls().add(decodedUrl);
-                    } else if (decodedUrl.startsWith("/")) {
-                        result.relativePaths().add(decodedUrl);
-                    }
-                }
+    /**
+     * 提取 HTML 标签中的 src / href 属性值
+     * 属性名必须出现在标签结束符 > 之前，属性值取到下一个引号为止
+     */
+    private void scanHtmlTag(String content, int tagStart, ExtractResult result) {
+        int nameStart = tagStart + 1;
+        String attribute;
+        if (startsWithAny(content, nameStart, SRC_TAGS)) {
+            attribute = "src=";
+        } else if (content.regionMatches(true, nameStart, "a", 0, 1)) {
+            attribute = "href=";
+        } else {
+            return;
+        }
+
+        int tagEnd = content.indexOf('>', nameStart);
+        if (tagEnd < 0) {
+            tagEnd = content.length();
+        }
+        // 属性名前至少还有一个字符（标签名的剩余部分或空白）
+        for (int i = nameStart + 1; i + attribute.length() <= tagEnd; i++) {
+            if (!content.regionMatches(true, i, attribute, 0, attribute.length())) {
+                continue;
+            }
+            int quote = i + attribute.length();
+            if (quote >= content.length() || !isQuote(content.charAt(quote))) {
+                continue;
+            }
+            int valueStart = quote + 1;
+            int valueEnd = valueStart;
+            while (valueEnd < content.length() && !isQuote(content.charAt(valueEnd))) {
+                valueEnd++;
+            }
+            if (valueEnd < content.length() && valueEnd > valueStart) {
+                addUrl(content, valueStart, valueEnd, result);
+            }
+            i = valueEnd;
+        }
+    }
+
+    /**
+     * 提取 Markdown 图片或链接的目标地址：](url) 或 ](url "title")
+     *
+     * @param start 左括号之后的位置
+     * @return 匹配结束位置（右括号之后），不匹配时返回 -1
+     */
+    private int scanMarkdownTarget(String content, int start, ExtractResult result) {
+        int length = content.length();
+        int end = start;
+        while (end < length && content.charAt(end) != ')' && !isWhitespace(content.charAt(end))) {
+            end++;
+        }
+        if (end == start || end >= length) {
+            return -1;
+        }
+        int close = end;
+        if (content.charAt(close) != ')') {
+            // 可选标题：空白 + 引号包裹的文本
+            while (close < length && isWhitespace(content.charAt(close))) {
+                close++;
+            }
+            if (close >= length || !isQuote(content.charAt(close))) {
+                return -1;
+            }
+            close++;
+            while (close < length && !isQuote(content.charAt(close))) {
+                close++;
+            }
+            close++;
+            if (close >= length || content.charAt(close) != ')') {
+                return -1;
+            }
+        }
+        addUrl(content, start, end, result);
+        return close + 1;
+    }
+
+    /**
+     * 添加候选 URL：只在包含编码字符时解码，过滤无效 URL 后按完整 URL / 相对路径分类
+     */
+    private void addUrl(String content, int start, int end, ExtractResult result) {
+        String url = content.substring(start, end).trim();
+        if (url.isEmpty()) {
+            return;
+        }
+        String decodedUrl = url.indexOf('%') >= 0 || url.indexOf('+') >= 0 ? decodeUrl(url) : url;
+        if (isValidUrl(decodedUrl)) {
+            if (isFullUrl(decodedUrl)) {
+                result.fullUrls().add(decodedUrl);
+            } else if (decodedUrl.startsWith("/")) {
+                result.relativePaths().add(decodedUrl);
+            }
+        }
+    }
+
+    /**
+     * URL 字符连续区间的结束位置（遇到引号、空白、尖括号、右方括号、右圆括号结束）
+     */
+    private static int urlRunEnd(String content, int start) {
+        int end = start;
+        while (end < content.length() && isUrlChar(content.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isUrlChar(char c) {
+        return !isQuote(c) && !isWhitespace(c) && c != '<' && c != '>' && c != ']' && c != ')';
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    private static boolean isHostChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
+    }
+
+    private static boolean startsWithAny(String content, int offset, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (content.regionMatches(true, offset, prefix, 0, prefix.length())) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -2,6 +2,9 @@ package com.timxs.storagetoolkit.service;
 
 import com.timxs.storagetoolkit.extension.DuplicateScanStatus;
 import com.timxs.storagetoolkit.model.DuplicateGroupVo;
+import com.timxs.storagetoolkit.model.ScanProgress;
+import com.timxs.storagetoolkit.model.SimilarImageGroupVo;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
 
@@ -16,12 +19,25 @@ public interface DuplicateService {
      */
     Mono<DuplicateScanStatus> startScan();
 
+    /**
+     * 继续被服务重启中断的扫描，已保存指纹的附件不再重新计算哈希
+     *
+     * @return 扫描状态，当前没有进行中的扫描时返回 empty
+     */
+    Mono<DuplicateScanStatus> resumeScan();
+
     /**
      * 获取扫描状态和统计数据
      * @return 扫描状态
      */
     Mono<DuplicateScanStatus> getScanStatus();
 
+    /**
+     * 订阅扫描进度事件流（节流推送，订阅时立即收到当前进度）
+     * @return 进度事件流，不会结束
+     */
+    Flux<ScanProgress> streamProgress();
+
     /**
      * 获取重复组列表
      * @param page 页码（从 1 开始）
@@ -30,6 +46,14 @@ public interface DuplicateService {
      */
     Mono<ListResult<DuplicateGroupVo>> listDuplicateGroups(int page, int size);
 
+    /**
+     * 获取相似图片组列表（感知哈希检测结果）
+     * @param page 页码（从 1 开始）
+     * @param size 每页数量
+     * @return 相似图片组列表
+     */
+    Mono<ListResult<SimilarImageGroupVo>> listSimilarImageGroups(int page, int size);
+
     /**
      * 清空所有重复检测记录和扫描状态
      * @return 完成信号
@@ -3,6 +3,7 @@ package com.timxs.storagetoolkit.service;
 import com.timxs.storagetoolkit.model.ImageFormat;
 
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 /**
  * 格式转换器接口
@@ -21,6 +22,18 @@ public interface FormatConverter {
      */
     byte[] convert(BufferedImage image, ImageFormat targetFormat, int quality, int effort);
 
+    /**
+     * 转换图片格式，可选保留透明通道
+     *
+     * @param image         BufferedImage 对象
+     * @param targetFormat  目标格式
+     * @param quality       输出质量（0-100，对有损格式有效）
+     * @param effort        压缩等级（WebP: 0-6, AVIF: 0-10）
+     * @param preserveAlpha 是否保留透明通道（否则透明区域填充为白色）
+     * @return 转换后的字节数组
+     */
+    byte[] convert(BufferedImage image, ImageFormat targetFormat, int quality, int effort, boolean preserveAlpha);
+
     /**
      * 检查是否支持指定格式
      *
@@ -45,4 +58,22 @@ public interface FormatConverter {
      * @return MIME 类型，如果是 ORIGINAL 则返回 null
      */
     String getMimeType(ImageFormat format);
+
+    /**
+     * 获取各格式 ImageWriter 池的命中统计
+     *
+     * @return 统计列表（仅包含已使用过的格式）
+     */
+    List<WriterPoolStats> getWriterPoolStats();
+
+    /**
+     * ImageWriter 池统计
+     *
+     * @param format 目标格式
+     * @param hits   复用空闲实例次数
+     * @param misses 新建实例次数
+     * @param idle   当前空闲实例数
+     */
+    record WriterPoolStats(ImageFormat format, long hits, long misses, int idle) {
+    }
 }
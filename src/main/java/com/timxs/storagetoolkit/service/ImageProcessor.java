@@ -1,6 +1,7 @@
 package com.timxs.storagetoolkit.service;
 
 import com.timxs.storagetoolkit.config.ProcessingConfig;
+import com.timxs.storagetoolkit.model.ImageSource;
 import com.timxs.storagetoolkit.model.ProcessingResult;
 import reactor.core.publisher.Mono;
 
@@ -13,14 +14,15 @@ public interface ImageProcessor {
     /**
      * 处理图片
      * 根据配置执行水印添加和格式转换
+     * 来源为磁盘缓冲时，跳过/失败结果的 data 为 null，调用方应直接使用原始上传内容
      *
-     * @param imageData        原始图片数据
+     * @param source           原始图片来源（内存或临时文件）
      * @param originalFilename 原始文件名
      * @param contentType      原始 MIME 类型
      * @param config           处理配置
      * @return 处理结果（异步）
      */
-    Mono<ProcessingResult> process(byte[] imageData, String originalFilename, 
+    Mono<ProcessingResult> process(ImageSource source, String originalFilename, 
                                     String contentType, ProcessingConfig config);
 
     /**
@@ -2,6 +2,8 @@ package com.timxs.storagetoolkit.service;
 
 import com.timxs.storagetoolkit.extension.AttachmentReference;
 import com.timxs.storagetoolkit.extension.ReferenceScanStatus;
+import com.timxs.storagetoolkit.model.ScanProgress;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
 
@@ -19,6 +21,31 @@ public interface ReferenceService {
      */
     Mono<ReferenceScanStatus> startScan();
 
+    /**
+     * 继续被服务重启中断的扫描，从检查点继续，已完成的内容类型不再重复扫描
+     *
+     * @return 扫描状态，当前没有进行中的扫描时返回 empty
+     */
+    Mono<ReferenceScanStatus> resumeScan();
+
+    /**
+     * 增量更新单个内容的引用（内容变更事件触发）
+     * 只重新提取该内容，替换受影响引用记录中来自它的引用源，内容已删除时移除其引用源
+     *
+     * @param sourceType 内容类型：Post、SinglePage、Comment、Reply、ConfigMap
+     * @param sourceName 内容名称（metadata.name）
+     * @return 是否已处理，全量扫描进行中时返回 false，调用方应稍后重试
+     */
+    Mono<Boolean> reindexSource(String sourceType, String sourceName);
+
+    /**
+     * 增量更新单个附件的引用记录（附件新增或删除事件触发）
+     *
+     * @param attachmentName 附件名称
+     * @return 是否已处理，全量扫描进行中时返回 false，调用方应稍后重试
+     */
+    Mono<Boolean> reindexAttachment(String attachmentName);
+
     /**
      * 获取扫描状态和统计数据
      *
@@ -26,6 +53,13 @@ public interface ReferenceService {
      */
     Mono<ReferenceScanStatus> getScanStatus();
 
+    /**
+     * 订阅扫描进度事件流（节流推送，订阅时立即收到当前进度）
+     *
+     * @return 进度事件流，不会结束
+     */
+    Flux<ScanProgress> streamProgress();
+
     /**
      * 获取附件引用列表
      *
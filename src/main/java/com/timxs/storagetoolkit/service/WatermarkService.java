@@ -8,6 +8,7 @@ import java.awt.image.BufferedImage;
 /**
  * 水印服务接口
  * 定义添加文字水印和图片水印的方法
+ * 实现可以直接在传入的图片上合成水印，调用方不应再使用传入的原图
  */
 public interface WatermarkService {
 
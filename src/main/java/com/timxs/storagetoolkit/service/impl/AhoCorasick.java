@@ -0,0 +1,212 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick 多模式字符串匹配自动机
+ * 一次线性扫描文本即可找出所有模式串的全部出现位置，
+ * 扫描时间与文本长度加命中数成正比，与模式串数量无关。
+ * 构建后不可变，可在多个线程中同时扫描
+ *
+ * @param <T> 模式串关联的数据类型
+ */
+final class AhoCorasick<T> {
+
+    /**
+     * 每个状态的转移字符（升序）和目标状态
+     */
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+
+    /**
+     * 失配指针
+     */
+    private final int[] fail;
+
+    /**
+     * 失配链上最近的有输出的状态，没有时为 -1
+     */
+    private final int[] outputLink;
+
+    /**
+     * 状态深度（到达该状态的前缀长度，即在此结束的模式串长度）
+     */
+    private final int[] depth;
+
+    /**
+     * 在该状态结束的模式串关联的数据
+     */
+    private final List<List<T>> outputs;
+
+    private AhoCorasick(char[][] edgeChars, int[][] edgeTargets, int[] fail, int[] outputLink,
+                        int[] depth, List<List<T>> outputs) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.outputLink = outputLink;
+        this.depth = depth;
+        this.outputs = outputs;
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 扫描文本，对每个命中回调一次（同一位置可能命中多个模式串）
+     *
+     * @param text    文本
+     * @param handler 命中回调
+     */
+    void scan(CharSequence text, MatchHandler<T> handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? 0 : next;
+
+            int output = outputs.get(state) != null ? state : outputLink[state];
+            while (output >= 0) {
+                int end = i + 1;
+                int start = end - depth[output];
+                for (T value : outputs.get(output)) {
+                    handler.onMatch(start, end, value);
+                }
+                output = outputLink[output];
+            }
+        }
+    }
+
+    /**
+     * 状态数（含根状态）
+     */
+    int size() {
+        return fail.length;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index >= 0 ? edgeTargets[state][index] : -1;
+    }
+
+    /**
+     * 命中回调
+     */
+    @FunctionalInterface
+    interface MatchHandler<T> {
+        /**
+         * @param start 命中起始位置（含）
+         * @param end   命中结束位置（不含）
+         * @param value 模式串关联的数据
+         */
+        void onMatch(int start, int end, T value);
+    }
+
+    /**
+     * 自动机构建器：先插入全部模式串构成字典树，再按广度优先计算失配指针
+     */
+    static final class Builder<T> {
+        private final List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        private final List<List<T>> outputs = new ArrayList<>();
+        private final List<Integer> depth = new ArrayList<>();
+
+        private Builder() {
+            newState(0);
+        }
+
+        /**
+         * 添加模式串，空串忽略
+         *
+         * @param pattern 模式串
+         * @param value   关联的数据
+         * @return this
+         */
+        Builder<T> add(String pattern, T value) {
+            if (pattern == null || pattern.isEmpty()) {
+                return this;
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = edges.get(state).get(c);
+                if (next == null) {
+                    next = newState(i + 1);
+                    edges.get(state).put(c, next);
+                }
+                state = next;
+            }
+            if (outputs.get(state) == null) {
+                outputs.set(state, new ArrayList<>(1));
+            }
+            outputs.get(state).add(value);
+            return this;
+        }
+
+        AhoCorasick<T> build() {
+            int size = edges.size();
+            char[][] edgeChars = new char[size][];
+            int[][] edgeTargets = new int[size][];
+            for (int state = 0; state < size; state++) {
+                TreeMap<Character, Integer> stateEdges = edges.get(state);
+                edgeChars[state] = new char[stateEdges.size()];
+                edgeTargets[state] = new int[stateEdges.size()];
+                int index = 0;
+                for (Map.Entry<Character, Integer> edge : stateEdges.entrySet()) {
+                    edgeChars[state][index] = edge.getKey();
+                    edgeTargets[state][index] = edge.getValue();
+                    index++;
+                }
+            }
+
+            int[] fail = new int[size];
+            int[] outputLink = new int[size];
+            Arrays.fill(outputLink, -1);
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int child : edgeTargets[0]) {
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < edgeChars[state].length; i++) {
+                    char c = edgeChars[state][i];
+                    int child = edgeTargets[state][i];
+                    // 沿父状态的失配链找到第一个有 c 转移的状态
+                    int candidate = fail[state];
+                    int target = findEdge(edgeChars, edgeTargets, candidate, c);
+                    while (target < 0 && candidate != 0) {
+                        candidate = fail[candidate];
+                        target = findEdge(edgeChars, edgeTargets, candidate, c);
+                    }
+                    fail[child] = target < 0 ? 0 : target;
+                    outputLink[child] = outputs.get(fail[child]) != null ? fail[child] : outputLink[fail[child]];
+                    queue.add(child);
+                }
+            }
+
+            int[] depths = depth.stream().mapToInt(Integer::intValue).toArray();
+            return new AhoCorasick<>(edgeChars, edgeTargets, fail, outputLink, depths, new ArrayList<>(outputs));
+        }
+
+        private int newState(int stateDepth) {
+            edges.add(new TreeMap<>());
+            outputs.add(null);
+            depth.add(stateDepth);
+            return edges.size() - 1;
+        }
+
+        private static int findEdge(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+            int index = Arrays.binarySearch(edgeChars[state], c);
+            return index >= 0 ? edgeTargets[state][index] : -1;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.model.HashAlgorithm;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import run.halo.app.core.extension.attachment.Attachment;
+import run.halo.app.infra.ExternalLinkProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 附件内容哈希计算
+ * 本地存储策略的附件直接从磁盘读取（FileChannel + 直接缓冲区），
+ * 无法解析出本地路径时才回退为通过 HTTP 下载，避免扫描与访客流量争抢带宽。
+ * 除完整哈希外还提供部分哈希（首尾各 64KB），用于在完整哈希前快速排除不同的文件，
+ * HTTP 回退时部分哈希通过 Range 请求只下载首尾两段。
+ * 哈希算法由调用方指定（MD5 / SHA-256 / MurmurHash3 128 位）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttachmentHasher {
+
+    /**
+     * 本地存储策略记录相对路径的注解（相对于附件根目录）
+     */
+    static final String LOCAL_RELATIVE_PATH_ANNO = "storage.halo.run/local-relative-path";
+
+    /**
+     * Halo 工作目录配置项
+     */
+    private static final String WORK_DIR_PROPERTY = "halo.work-dir";
+
+    /**
+     * 附件根目录（相对于工作目录）
+     */
+    private static final String ATTACHMENTS_DIR = "attachments";
+
+    /**
+     * 磁盘读取缓冲区大小
+     */
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 部分哈希读取的首部/尾部大小
+     * 文件不超过两倍大小时部分哈希覆盖整个文件，等于完整哈希
+     */
+    static final int PARTIAL_CHUNK_SIZE = 64 * 1024;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * 每个线程复用的磁盘读取缓冲区（直接缓冲区分配代价高，不在每个文件上重新分配）
+     */
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+
+    private final ExternalLinkProcessor externalLinkProcessor;
+    private final Environment environment;
+
+    /**
+     * 附件根目录（首次使用时解析）
+     */
+    private volatile Path attachmentsRoot;
+
+    /**
+     * 从磁盘读取的附件数
+     */
+    private final AtomicLong localReads = new AtomicLong();
+
+    /**
+     * 回退为 HTTP 下载的附件数
+     */
+    private final AtomicLong httpReads = new AtomicLong();
+
+    /**
+     * 计算附件内容的完整哈希
+     * 优先读取本地文件，无法解析本地路径时通过 permalink 下载
+     *
+     * @param attachment 附件
+     * @param algorithm  哈希算法
+     * @return 十六进制哈希，无法获取内容时返回 error
+     */
+    public Mono<String> hash(Attachment attachment, HashAlgorithm algorithm) {
+        return Mono.fromCallable(() -> {
+            Path localFile = resolveLocalFile(attachment);
+            if (localFile != null) {
+                localReads.incrementAndGet();
+                return hashFile(localFile, algorithm);
+            }
+            httpReads.incrementAndGet();
+            return hashUrl(requirePermalink(attachment), algorithm);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 计算附件内容的部分哈希：首部 64KB + 尾部（首部之后的最后 64KB）
+     * 文件不超过 128KB 时覆盖整个文件，结果与 {@link #hash(Attachment, HashAlgorithm)} 相同
+     * 通过 HTTP 读取时若不得不下载整个文件（服务器不支持 Range），同时返回完整哈希，避免再下载一次
+     *
+     * @param attachment 附件
+     * @param algorithm  哈希算法
+     * @return 部分哈希（可能附带完整哈希），无法获取内容时返回 error
+     */
+    public Mono<PartialHash> partialHash(Attachment attachment, HashAlgorithm algorithm) {
+        return Mono.fromCallable(() -> {
+            Path localFile = resolveLocalFile(attachment);
+            if (localFile != null) {
+                localReads.incrementAndGet();
+                return new PartialHash(partialHashFile(localFile, algorithm), null);
+            }
+            httpReads.incrementAndGet();
+            return partialHashUrl(requirePermalink(attachment), algorithm);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 部分哈希结果
+     *
+     * @param partialHash 十六进制部分哈希
+     * @param fullHash    读取了整个文件时顺带得到的十六进制完整哈希，否则为 null
+     */
+    public record PartialHash(String partialHash, String fullHash) {
+    }
+
+    private String requirePermalink(Attachment attachment) {
+        String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
+        if (permalink == null) {
+            throw new IllegalStateException("附件没有本地路径和 permalink");
+        }
+        return permalink;
+    }
+
+    /**
+     * 重置读取统计（每次扫描开始时调用）
+     */
+    public void resetStats() {
+        localReads.set(0);
+        httpReads.set(0);
+    }
+
+    public long getLocalReads() {
+        return localReads.get();
+    }
+
+    public long getHttpReads() {
+        return httpReads.get();
+    }
+
+    /**
+     * 解析附件的本地文件路径
+     * 相对路径来自本地存储策略写入的注解，解析结果必须位于附件根目录内，防止路径穿越
+     *
+     * @param attachment 附件
+     * @return 存在的本地文件路径，无法解析时返回 null
+     */
+    Path resolveLocalFile(Attachment attachment) {
+        Map<String, String> annotations = attachment.getMetadata().getAnnotations();
+        if (annotations == null) {
+            return null;
+        }
+        String relativePath = annotations.get(LOCAL_RELATIVE_PATH_ANNO);
+        if (relativePath == null || relativePath.isBlank()) {
+            return null;
+        }
+
+        Path root = getAttachmentsRoot();
+        Path file;
+        try {
+            file = root.resolve(relativePath).normalize();
+        } catch (Exception e) {
+            log.debug("附件 {} 本地路径无效: {}", attachment.getMetadata().getName(), relativePath);
+            return null;
+        }
+        if (!file.startsWith(root)) {
+            log.warn("附件 {} 本地路径超出附件目录，忽略: {}", attachment.getMetadata().getName(), relativePath);
+            return null;
+        }
+        if (!Files.isRegularFile(file)) {
+            log.debug("附件 {} 本地文件不存在: {}", attachment.getMetadata().getName(), file);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * 获取附件根目录：${halo.work-dir}/attachments，未配置时使用 Halo 默认工作目录 ~/.halo2
+     */
+    private Path getAttachmentsRoot() {
+        Path root = attachmentsRoot;
+        if (root == null) {
+            String workDir = environment.getProperty(WORK_DIR_PROPERTY);
+            Path workPath = workDir != null && !workDir.isBlank()
+                ? Paths.get(workDir)
+                : Paths.get(System.getProperty("user.home"), ".halo2");
+            root = workPath.resolve(ATTACHMENTS_DIR).toAbsolutePath().normalize();
+            attachmentsRoot = root;
+            log.info("附件根目录: {}", root);
+        }
+        return root;
+    }
+
+    /**
+     * 通过 FileChannel 读取本地文件计算完整哈希
+     */
+    private String hashFile(Path file, HashAlgorithm algorithm) throws IOException, NoSuchAlgorithmException {
+        ContentDigest digest = ContentDigest.create(algorithm);
+        ByteBuffer buffer = READ_BUFFER.get();
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * 通过 FileChannel 读取首部和尾部计算部分哈希
+     */
+    private String partialHashFile(Path file, HashAlgorithm algorithm) throws IOException, NoSuchAlgorithmException {
+        ContentDigest digest = ContentDigest.create(algorithm);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headLength = Math.min(PARTIAL_CHUNK_SIZE, size);
+            long tailLength = Math.min(PARTIAL_CHUNK_SIZE, size - headLength);
+            ByteBuffer buffer = READ_BUFFER.get();
+            readRange(channel, 0, headLength, buffer, digest);
+            readRange(channel, size - tailLength, tailLength, buffer, digest);
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    private void readRange(FileChannel channel, long position, long length, ByteBuffer buffer,
+                           ContentDigest digest) throws IOException {
+        buffer.clear();
+        buffer.limit((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                break;
+            }
+        }
+        buffer.flip();
+        digest.update(buffer);
+    }
+
+    /**
+     * 通过 HTTP 下载文件计算完整哈希（回退方式）
+     */
+    private String hashUrl(String permalink, HashAlgorithm algorithm) throws IOException, NoSuchAlgorithmException {
+        HttpURLConnection conn = openConnection(permalink, null);
+        try {
+            int responseCode = conn.getResponseCode();
+            if (responseCode != 200) {
+                throw new IOException("HTTP " + responseCode);
+            }
+            ContentDigest digest = ContentDigest.create(algorithm);
+            try (InputStream is = conn.getInputStream()) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return HEX.formatHex(digest.digest());
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * 通过 HTTP 计算部分哈希（回退方式）
+     * 先用 Range 请求首部 64KB，从 Content-Range 得到文件总大小后再请求首部之后的最后 64KB，
+     * 与本地读取的范围一致。服务器忽略 Range 返回整个文件时只顺序读一遍，同时算出部分哈希和完整哈希
+     */
+    private PartialHash partialHashUrl(String permalink, HashAlgorithm algorithm)
+        throws IOException, NoSuchAlgorithmException {
+        ContentDigest digest = ContentDigest.create(algorithm);
+        long totalLength;
+        long headLength;
+        HttpURLConnection conn = openConnection(permalink, "bytes=0-" + (PARTIAL_CHUNK_SIZE - 1));
+        try {
+            int responseCode = conn.getResponseCode();
+            if (responseCode == 200) {
+                return digestWhole(conn, algorithm);
+            }
+            if (responseCode == 416) {
+                // 空文件没有可满足的范围
+                return wholePartialHashUrl(permalink, algorithm);
+            }
+            if (responseCode != 206) {
+                throw new IOException("HTTP " + responseCode);
+            }
+            totalLength = parseTotalLength(conn.getHeaderField("Content-Range"));
+            if (totalLength < 0) {
+                // 不知道文件总大小就无法定位尾部，改为完整下载
+                return wholePartialHashUrl(permalink, algorithm);
+            }
+            headLength = Math.min(PARTIAL_CHUNK_SIZE, totalLength);
+            readExactly(conn, headLength, digest);
+        } finally {
+            conn.disconnect();
+        }
+
+        long tailLength = Math.min(PARTIAL_CHUNK_SIZE, totalLength - headLength);
+        if (tailLength > 0) {
+            long tailStart = totalLength - tailLength;
+            conn = openConnection(permalink, "bytes=" + tailStart + "-" + (totalLength - 1));
+            try {
+                int responseCode = conn.getResponseCode();
+                String contentRange = conn.getHeaderField("Content-Range");
+                if (responseCode != 206 || contentRange == null
+                    || !contentRange.startsWith("bytes " + tailStart + "-")) {
+                    throw new IOException("尾部 Range 请求未返回预期范围: HTTP " + responseCode);
+                }
+                readExactly(conn, tailLength, digest);
+            } finally {
+                conn.disconnect();
+            }
+        }
+
+        String partialHash = HEX.formatHex(digest.digest());
+        // 首尾两段覆盖整个文件时部分哈希即完整哈希
+        return new PartialHash(partialHash, totalLength <= 2L * PARTIAL_CHUNK_SIZE ? partialHash : null);
+    }
+
+    /**
+     * 不带 Range 下载整个文件，同时计算部分哈希和完整哈希
+     */
+    private PartialHash wholePartialHashUrl(String permalink, HashAlgorithm algorithm)
+        throws IOException, NoSuchAlgorithmException {
+        HttpURLConnection conn = openConnection(permalink, null);
+        try {
+            int responseCode = conn.getResponseCode();
+            if (responseCode != 200) {
+                throw new IOException("HTTP " + responseCode);
+            }
+            return digestWhole(conn, algorithm);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private PartialHash digestWhole(HttpURLConnection conn, HashAlgorithm algorithm)
+        throws IOException, NoSuchAlgorithmException {
+        ContentDigest partialDigest = ContentDigest.create(algorithm);
+        ContentDigest fullDigest = ContentDigest.create(algorithm);
+        try (InputStream is = conn.getInputStream()) {
+            digestHeadAndTail(is, partialDigest, fullDigest);
+        }
+        return new PartialHash(HEX.formatHex(partialDigest.digest()), HEX.formatHex(fullDigest.digest()));
+    }
+
+    private HttpURLConnection openConnection(String permalink, String range) throws IOException {
+        // 使用 ExternalLinkProcessor 将相对路径转为完整 URL
+        String fullUrl = externalLinkProcessor.processLink(permalink);
+        HttpURLConnection conn = (HttpURLConnection) URI.create(fullUrl).toURL().openConnection();
+        conn.setConnectTimeout(10000);  // 连接超时 10 秒
+        conn.setReadTimeout(30000);     // 读取超时 30 秒
+        conn.setRequestMethod("GET");
+        if (range != null) {
+            conn.setRequestProperty("Range", range);
+        }
+        return conn;
+    }
+
+    /**
+     * 从 Content-Range（bytes start-end/total）中解析文件总大小，无法解析或总大小未知（*）时返回 -1
+     */
+    static long parseTotalLength(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 读取响应体的前 length 个字节计入摘要，响应不足 length 时抛出异常
+     */
+    private void readExactly(HttpURLConnection conn, long length, ContentDigest digest) throws IOException {
+        try (InputStream is = conn.getInputStream()) {
+            byte[] bytes = is.readNBytes((int) length);
+            if (bytes.length < length) {
+                throw new IOException("响应内容不完整: " + bytes.length + "/" + length);
+            }
+            digest.update(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * 从流中计算首部 + 尾部的摘要，尾部使用环形缓冲区保存首部之后的最后 64KB
+     * 读到的全部内容同时计入完整摘要
+     */
+    private void digestHeadAndTail(InputStream is, ContentDigest digest, ContentDigest fullDigest)
+        throws IOException {
+        byte[] head = is.readNBytes(PARTIAL_CHUNK_SIZE);
+        digest.update(head, 0, head.length);
+        fullDigest.update(head, 0, head.length);
+        if (head.length < PARTIAL_CHUNK_SIZE) {
+            return;
+        }
+
+        byte[] ring = new byte[PARTIAL_CHUNK_SIZE];
+        byte[] buffer = new byte[64 * 1024];
+        long written = 0;
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            fullDigest.update(buffer, 0, read);
+            for (int offset = 0; offset < read; ) {
+                int ringPos = (int) (written % PARTIAL_CHUNK_SIZE);
+                int length = Math.min(read - offset, PARTIAL_CHUNK_SIZE - ringPos);
+                System.arraycopy(buffer, offset, ring, ringPos, length);
+                offset += length;
+                written += length;
+            }
+        }
+
+        if (written <= PARTIAL_CHUNK_SIZE) {
+            digest.update(ring, 0, (int) written);
+        } else {
+            // 环形缓冲区已写满，按时间顺序输出：从最旧的位置开始
+            int start = (int) (written % PARTIAL_CHUNK_SIZE);
+            digest.update(ring, start, PARTIAL_CHUNK_SIZE - start);
+            digest.update(ring, 0, start);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.extension.AttachmentReference;
+import com.timxs.storagetoolkit.service.ContentScanner;
+import org.springframework.util.StringUtils;
+import run.halo.app.core.extension.attachment.Attachment;
+import run.halo.app.infra.ExternalLinkProcessor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 附件链接查找表（引用记录增量更新）
+ * 按全量扫描的匹配规则（完整 URL、相对路径拼接站点地址后的完整 URL、路径部分）建立链接 -> 附件名称的索引，
+ * 单个内容变更时只查找它提取出的链接，不再遍历全部附件。
+ * 按附件链接匹配模式下同时持有用同一批附件构建的匹配器，增量提取与全量扫描的结果一致
+ */
+final class AttachmentPermalinkIndex {
+
+    private final Map<String, Set<String>> fullUrlToAttachments;
+    private final Map<String, Set<String>> pathToAttachments;
+    private final PermalinkMatcher matcher;
+
+    private AttachmentPermalinkIndex(Map<String, Set<String>> fullUrlToAttachments,
+                                     Map<String, Set<String>> pathToAttachments,
+                                     PermalinkMatcher matcher) {
+        this.fullUrlToAttachments = fullUrlToAttachments;
+        this.pathToAttachments = pathToAttachments;
+        this.matcher = matcher;
+    }
+
+    /**
+     * 根据附件 permalink 构建查找表
+     *
+     * @param attachments           参与匹配的附件（已排除的分组和存储策略不在其中）
+     * @param matchPermalinks       是否按附件链接匹配（同时构建匹配器）
+     * @param contentScanner        内容扫描器（URL 类型判断和路径提取）
+     * @param externalLinkProcessor 外部链接处理器（相对路径拼接站点地址）
+     * @param decoder               URL 解码
+     * @return 查找表
+     */
+    static AttachmentPermalinkIndex build(List<Attachment> attachments, boolean matchPermalinks,
+                                          ContentScanner contentScanner,
+                                          ExternalLinkProcessor externalLinkProcessor,
+                                          UnaryOperator<String> decoder) {
+        Map<String, Set<String>> fullUrlToAttachments = new HashMap<>();
+        Map<String, Set<String>> pathToAttachments = new HashMap<>();
+        for (Attachment attachment : attachments) {
+            String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
+            if (!StringUtils.hasText(permalink)) {
+                continue;
+            }
+            String attachmentName = attachment.getMetadata().getName();
+            String decoded = decoder.apply(permalink);
+            if (contentScanner.isFullUrl(decoded)) {
+                index(fullUrlToAttachments, decoded, attachmentName);
+            } else {
+                index(fullUrlToAttachments, externalLinkProcessor.processLink(decoded), attachmentName);
+            }
+            String path = contentScanner.extractPath(decoded);
+            if (path != null) {
+                index(pathToAttachments, path, attachmentName);
+            }
+        }
+        PermalinkMatcher matcher = matchPermalinks
+            ? PermalinkMatcher.build(attachments, contentScanner, externalLinkProcessor, decoder)
+            : null;
+        return new AttachmentPermalinkIndex(fullUrlToAttachments, pathToAttachments, matcher);
+    }
+
+    /**
+     * 按附件链接匹配模式下的匹配器，URL 提取模式下为 null
+     */
+    PermalinkMatcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * 用提取出的链接查找附件
+     *
+     * @param fullUrlToSources      完整 URL -> 引用源
+     * @param relativePathToSources 相对路径 -> 引用源
+     * @return 附件名称 -> 引用源
+     */
+    Map<String, Set<AttachmentReference.ReferenceSource>> match(
+            Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+            Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        Map<String, Set<AttachmentReference.ReferenceSource>> matched = new HashMap<>();
+        collect(fullUrlToSources, fullUrlToAttachments, matched);
+        collect(relativePathToSources, pathToAttachments, matched);
+        return matched;
+    }
+
+    int size() {
+        return fullUrlToAttachments.size() + pathToAttachments.size();
+    }
+
+    private static void collect(Map<String, Set<AttachmentReference.ReferenceSource>> urlToSources,
+                                Map<String, Set<String>> urlToAttachments,
+                                Map<String, Set<AttachmentReference.ReferenceSource>> matched) {
+        urlToSources.forEach((url, sources) -> {
+            for (String attachmentName : urlToAttachments.getOrDefault(url, Set.of())) {
+                matched.computeIfAbsent(attachmentName, k -> new HashSet<>()).addAll(sources);
+            }
+        });
+    }
+
+    private static void index(Map<String, Set<String>> urlToAttachments, String url, String attachmentName) {
+        urlToAttachments.computeIfAbsent(url, k -> new HashSet<>()).add(attachmentName);
+    }
+}
@@ -0,0 +1,89 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以汉明距离为度量的 BK 树
+ * 用于 64 位感知哈希的近邻查询，查询时根据三角不等式剪枝，
+ * 阈值较小时每次查询只访问树的一小部分，整体聚类低于平方复杂度
+ *
+ * @param <T> 节点关联的数据类型
+ */
+final class BkTree<T> {
+
+    private Node<T> root;
+    private int size;
+
+    /**
+     * 插入哈希值
+     *
+     * @param hash  64 位哈希
+     * @param value 关联的数据
+     */
+    void add(long hash, T value) {
+        size++;
+        if (root == null) {
+            root = new Node<>(hash, value);
+            return;
+        }
+        Node<T> node = root;
+        while (true) {
+            int distance = Long.bitCount(node.hash ^ hash);
+            Node<T> child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node<>(hash, value));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * 查询与给定哈希汉明距离不超过阈值的所有数据
+     *
+     * @param hash      64 位哈希
+     * @param threshold 最大汉明距离
+     * @return 匹配的数据（包含哈希相同的节点）
+     */
+    List<T> search(long hash, int threshold) {
+        List<T> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            int distance = Long.bitCount(node.hash ^ hash);
+            if (distance <= threshold) {
+                result.add(node.value);
+            }
+            for (Map.Entry<Integer, Node<T>> entry : node.children.entrySet()) {
+                if (Math.abs(entry.getKey() - distance) <= threshold) {
+                    stack.push(entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static final class Node<T> {
+        private final long hash;
+        private final T value;
+        private final Map<Integer, Node<T>> children = new HashMap<>(4);
+
+        private Node(long hash, T value) {
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+}
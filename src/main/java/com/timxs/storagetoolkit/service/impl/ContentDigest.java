@@ -0,0 +1,59 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.model.HashAlgorithm;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 流式内容摘要
+ * 统一 JCA MessageDigest 和非加密哈希的增量计算接口
+ */
+interface ContentDigest {
+
+    /**
+     * 追加缓冲区中剩余的数据，调用后缓冲区 position 移动到 limit
+     */
+    void update(ByteBuffer input);
+
+    /**
+     * 追加字节数组中的数据
+     */
+    void update(byte[] input, int offset, int length);
+
+    /**
+     * 完成计算并返回摘要
+     */
+    byte[] digest();
+
+    /**
+     * 创建指定算法的摘要实例
+     *
+     * @param algorithm 哈希算法
+     * @return 新的摘要实例
+     * @throws NoSuchAlgorithmException JDK 不支持该算法时抛出
+     */
+    static ContentDigest create(HashAlgorithm algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == HashAlgorithm.MURMUR3_128) {
+            return new Murmur3Hash128();
+        }
+        MessageDigest messageDigest = MessageDigest.getInstance(algorithm.getDigestName());
+        return new ContentDigest() {
+            @Override
+            public void update(ByteBuffer input) {
+                messageDigest.update(input);
+            }
+
+            @Override
+            public void update(byte[] input, int offset, int length) {
+                messageDigest.update(input, offset, length);
+            }
+
+            @Override
+            public byte[] digest() {
+                return messageDigest.digest();
+            }
+        };
+    }
+}
@@ -1,16 +1,22 @@
 package com.timxs.storagetoolkit.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.timxs.storagetoolkit.extension.AttachmentFingerprint;
 import com.timxs.storagetoolkit.extension.AttachmentReference;
 import com.timxs.storagetoolkit.extension.DuplicateGroup;
 import com.timxs.storagetoolkit.extension.DuplicateScanStatus;
 import com.timxs.storagetoolkit.extension.ReferenceScanStatus;
+import com.timxs.storagetoolkit.extension.SimilarImageGroup;
 import com.timxs.storagetoolkit.model.DuplicateGroupVo;
+import com.timxs.storagetoolkit.model.HashAlgorithm;
+import com.timxs.storagetoolkit.model.ScanProgress;
+import com.timxs.storagetoolkit.model.SimilarImageGroupVo;
 import com.timxs.storagetoolkit.service.DuplicateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.core.extension.attachment.Attachment;
@@ -18,19 +24,19 @@ import run.halo.app.core.extension.attachment.Policy;
 import run.halo.app.extension.ListOptions;
 import run.halo.app.extension.ListResult;
 import run.halo.app.extension.Metadata;
+import run.halo.app.extension.PageRequestImpl;
 import run.halo.app.extension.ReactiveExtensionClient;
-import run.halo.app.infra.ExternalLinkProcessor;
 import run.halo.app.plugin.ReactiveSettingFetcher;
 
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
+import static run.halo.app.extension.index.query.Queries.equal;
+import static run.halo.app.extension.index.query.Queries.in;
+
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -42,15 +48,35 @@ import java.util.stream.Collectors;
 public class DuplicateServiceImpl implements DuplicateService {
 
     private final ReactiveExtensionClient client;
-    private final ExternalLinkProcessor externalLinkProcessor;
+    private final AttachmentHasher attachmentHasher;
+    private final PerceptualHasher perceptualHasher;
+    private final ExtensionWriteBatcher writeBatcher;
     private final ReactiveSettingFetcher settingFetcher;
 
     private static final int DEFAULT_SCAN_TIMEOUT_MINUTES = 5;
     private static final int DEFAULT_DUPLICATE_SCAN_CONCURRENCY = 4;
+    private static final int DEFAULT_SIMILAR_IMAGE_THRESHOLD = 6;
+    private static final int MAX_SIMILAR_IMAGE_THRESHOLD = 16;
+
+    /**
+     * 相似图片检测关闭时的阈值
+     */
+    private static final int SIMILAR_IMAGE_DISABLED = -1;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * 重复组和相似图片组列表排序：按可节省空间降序（status.savableSize 索引）
+     */
+    private static final Sort SAVABLE_SIZE_DESC = Sort.by(Sort.Order.desc("status.savableSize"));
 
-    // 内存中的扫描进度（不持久化，重启后清零）
-    private final AtomicInteger scanProgress = new AtomicInteger(0);
-    private final AtomicInteger scanTotal = new AtomicInteger(0);
+    /**
+     * 检查点间隔：扫描期间每隔这么久写入一次已计算的指纹
+     */
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+
+    // 内存中的扫描进度（不持久化，重启后清零），同时通过 SSE 推送
+    private final ScanProgressTracker progress = new ScanProgressTracker();
 
     @Override
     public Mono<DuplicateScanStatus> startScan() {
@@ -62,14 +88,26 @@ public class DuplicateServiceImpl implements DuplicateService {
                     // 检查是否超时
                     return getScanTimeoutMinutes()
                         .flatMap(timeout -> {
-                            if (!isStuck(status.getStatus().getStartTime(), timeout)) {
+                            if (!isStuck(status.getStatus().lastActiveTime(), timeout)) {
                                 return Mono.error(new IllegalStateException("扫描正在进行中"));
                             }
                             log.warn("上次扫描超时，允许重新触发");
-                            return doStartScan(status);
+                            return doStartScan(status, false);
                         });
                 }
-                return doStartScan(status);
+                return doStartScan(status, false);
+            });
+    }
+
+    @Override
+    public Mono<DuplicateScanStatus> resumeScan() {
+        return getScanStatus()
+            .filter(status -> status.getStatus() != null
+                && DuplicateScanStatus.Phase.SCANNING.equals(status.getStatus().getPhase()))
+            .flatMap(status -> {
+                log.info("继续被中断的重复检测扫描（第 {} 次），已保存的指纹直接复用",
+                    status.getStatus().getResumeCount() + 1);
+                return doStartScan(status, true);
             });
     }
 
@@ -131,16 +169,65 @@ public class DuplicateServiceImpl implements DuplicateService {
             .defaultIfEmpty(DEFAULT_DUPLICATE_SCAN_CONCURRENCY);
     }
 
-    private Mono<DuplicateScanStatus> doStartScan(DuplicateScanStatus status) {
+    /**
+     * 获取重复检测哈希算法配置（从 global.analysis.duplicateHashAlgorithm 读取，默认 MD5）
+     */
+    private Mono<HashAlgorithm> getDuplicateHashAlgorithm() {
+        return settingFetcher.get("global")
+            .map(setting -> {
+                JsonNode analysis = setting.get("analysis");
+                if (analysis != null) {
+                    JsonNode algorithm = analysis.get("duplicateHashAlgorithm");
+                    if (algorithm != null && algorithm.isTextual()) {
+                        return HashAlgorithm.fromName(algorithm.asText());
+                    }
+                }
+                return HashAlgorithm.MD5;
+            })
+            .defaultIfEmpty(HashAlgorithm.MD5);
+    }
+
+    /**
+     * 获取相似图片检测的汉明距离阈值
+     * 从 global.analysis.similarImageDetection / similarImageThreshold 读取，未启用时返回 -1
+     */
+    private Mono<Integer> getSimilarImageThreshold() {
+        return settingFetcher.get("global")
+            .map(setting -> {
+                JsonNode analysis = setting.get("analysis");
+                if (analysis == null || !analysis.path("similarImageDetection").asBoolean(false)) {
+                    return SIMILAR_IMAGE_DISABLED;
+                }
+                JsonNode threshold = analysis.get("similarImageThreshold");
+                if (threshold != null) {
+                    if (threshold.isNumber()) {
+                        return Math.max(0, Math.min(MAX_SIMILAR_IMAGE_THRESHOLD, threshold.asInt()));
+                    } else if (threshold.isTextual()) {
+                        try {
+                            int value = Integer.parseInt(threshold.asText());
+                            return Math.max(0, Math.min(MAX_SIMILAR_IMAGE_THRESHOLD, value));
+                        } catch (NumberFormatException e) {
+                            // ignore
+                        }
+                    }
+                }
+                return DEFAULT_SIMILAR_IMAGE_THRESHOLD;
+            })
+            .defaultIfEmpty(SIMILAR_IMAGE_DISABLED);
+    }
+
+    private Mono<DuplicateScanStatus> doStartScan(DuplicateScanStatus status, boolean resume) {
         // 重置内存进度
-        scanProgress.set(0);
-        scanTotal.set(0);
+        progress.start(DuplicateScanStatus.Phase.SCANNING, "listing");
+        attachmentHasher.resetStats();
 
         if (status.getStatus() == null) {
             status.setStatus(new DuplicateScanStatus.DuplicateScanStatusStatus());
         }
         status.getStatus().setPhase(DuplicateScanStatus.Phase.SCANNING);
         status.getStatus().setStartTime(Instant.now());
+        status.getStatus().setCheckpointTime(null);
+        status.getStatus().setResumeCount(resume ? status.getStatus().getResumeCount() + 1 : 0);
         status.getStatus().setErrorMessage(null);
 
         return client.update(status)
@@ -150,15 +237,12 @@ public class DuplicateServiceImpl implements DuplicateService {
                     .subscribe(
                         result -> {
                             log.info("重复检测扫描完成");
-                            // 扫描完成后清零内存进度
-                            scanProgress.set(0);
-                            scanTotal.set(0);
+                            // 扫描过程的错误已写入状态，按最终状态结束进度
+                            progress.finish(result.getStatus().getPhase(), result.getStatus().getErrorMessage());
                         },
                         error -> {
                             log.error("重复检测扫描失败", error);
-                            // 扫描失败后清零内存进度
-                            scanProgress.set(0);
-                            scanTotal.set(0);
+                            progress.finish(DuplicateScanStatus.Phase.ERROR, error.getMessage());
                             updateScanError(error.getMessage()).subscribe();
                         }
                     );
@@ -169,48 +253,76 @@ public class DuplicateServiceImpl implements DuplicateService {
     private Mono<DuplicateScanStatus> performScan() {
         log.info("开始重复检测扫描...");
 
-        // 用于存储 MD5 -> 附件列表的映射
+        // 用于存储哈希 -> 附件列表的映射
         Map<String, List<AttachmentInfo>> hashToAttachments = new ConcurrentHashMap<>();
+        // 指纹未变化、直接复用哈希的附件数
+        AtomicInteger reusedCount = new AtomicInteger(0);
 
-        // 1. 先标记旧数据为待删除
-        return markAllAsPendingDelete()
-            // 2. 获取本地存储策略和并发数配置
-            .then(Mono.zip(getLocalPolicyNames(), getDuplicateScanConcurrency()))
+        // 1. 获取本地存储策略、并发数、哈希算法和相似图片检测配置
+        return Mono.zip(getLocalPolicyNames(), getDuplicateScanConcurrency(), getDuplicateHashAlgorithm(),
+                getSimilarImageThreshold())
             .flatMap(tuple -> {
                 Set<String> localPolicyNames = tuple.getT1();
                 int concurrency = tuple.getT2();
+                HashAlgorithm algorithm = tuple.getT3();
+                int similarThreshold = tuple.getT4();
                 
                 if (localPolicyNames.isEmpty()) {
                     log.info("没有本地存储策略，跳过扫描");
-                    return updateScanCompleted(0, 0, 0, 0);
+                    return syncDuplicateGroups(hashToAttachments, algorithm)
+                        .then(syncSimilarImageGroups(List.of()))
+                        .then(updateScanCompleted(0, 0, 0, 0, 0));
                 }
-                log.info("找到本地存储策略: {}, 并发数: {}", localPolicyNames, concurrency);
+                log.info("找到本地存储策略: {}, 并发数: {}, 哈希算法: {}", localPolicyNames, concurrency, algorithm);
 
-                // 3. 获取本地附件
-                return client.listAll(Attachment.class, ListOptions.builder().build(), Sort.unsorted())
+                // 2. 获取本地附件和已持久化的指纹
+                Mono<List<Attachment>> attachmentsMono = client.listAll(Attachment.class, ListOptions.builder().build(), Sort.unsorted())
                     .filter(attachment -> localPolicyNames.contains(attachment.getSpec().getPolicyName()))
-                    .collectList()
-                    .flatMap(attachments -> {
-                        // 设置内存进度总数
-                        scanTotal.set(attachments.size());
-                        scanProgress.set(0);
-                        log.info("找到 {} 个本地附件，开始计算 MD5...", scanTotal.get());
+                    .collectList();
+                Mono<Map<String, AttachmentFingerprint>> fingerprintsMono = client.listAll(AttachmentFingerprint.class, ListOptions.builder().build(), Sort.unsorted())
+                    .filter(fingerprint -> fingerprint.getSpec() != null && fingerprint.getSpec().getAttachmentName() != null)
+                    .collectMap(fingerprint -> fingerprint.getSpec().getAttachmentName(), fingerprint -> fingerprint);
 
-                        if (attachments.isEmpty()) {
-                            log.info("没有本地附件，完成扫描");
-                            return updateScanCompleted(0, 0, 0, 0);
-                        }
+                return Mono.zip(attachmentsMono, fingerprintsMono)
+                    .flatMap(data -> {
+                        List<Attachment> attachments = data.getT1();
+                        Map<String, AttachmentFingerprint> fingerprints = data.getT2();
 
-                        // 4. 计算 MD5（使用配置的并发数）
-                        return Flux.fromIterable(attachments)
-                            .flatMap(attachment -> processAttachment(attachment, hashToAttachments), concurrency)
+                        // 设置内存进度总数
+                        progress.stage("hashing", attachments.size());
+                        log.info("找到 {} 个本地附件，已有指纹 {} 个，开始计算哈希...", attachments.size(), fingerprints.size());
+
+                        // 3. 分阶段计算哈希（使用配置的并发数）：大小分组 -> 部分哈希 -> 完整哈希
+                        List<ScanEntry> entries = attachments.stream()
+                            .map(attachment -> new ScanEntry(attachment,
+                                fingerprints.get(attachment.getMetadata().getName()), algorithm))
+                            .toList();
+                        // 定期保存已计算的指纹作为检查点，服务重启后继续扫描时直接复用
+                        Disposable checkpointer = Flux.interval(CHECKPOINT_INTERVAL, CHECKPOINT_INTERVAL)
+                            .onBackpressureDrop()
+                            .concatMap(tick -> saveCheckpoint(entries, algorithm), 1)
+                            .subscribe();
+                        return computeHashes(entries, concurrency, algorithm, hashToAttachments, reusedCount)
+                            .then(Mono.defer(() -> similarThreshold == SIMILAR_IMAGE_DISABLED
+                                ? Mono.<Void>empty()
+                                : computePerceptualHashes(entries, concurrency)))
+                            .doFinally(signal -> checkpointer.dispose())
+                            .then(Mono.defer(() -> flushFingerprints(entries, algorithm, "保存附件指纹")))
+                            .then(deleteStaleFingerprints(attachments, fingerprints))
                             .then(Mono.defer(() -> {
-                                log.info("MD5 计算完成，已处理: {}/{}", scanProgress.get(), scanTotal.get());
+                                log.info("哈希计算完成，已处理: {}/{}（复用哈希 {}，本地读取 {}，HTTP 下载 {}）",
+                                    progress.processed(), progress.total(), reusedCount.get(),
+                                    attachmentHasher.getLocalReads(), attachmentHasher.getHttpReads());
                                 
-                                // 5. 创建重复组
-                                return createDuplicateGroups(hashToAttachments)
+                                // 4. 原地更新重复组
+                                progress.stage("grouping");
+                                List<List<ScanEntry>> similarClusters = similarThreshold == SIMILAR_IMAGE_DISABLED
+                                    ? List.of()
+                                    : clusterSimilarImages(entries, similarThreshold);
+                                return syncDuplicateGroups(hashToAttachments, algorithm)
+                                    .then(syncSimilarImageGroups(similarClusters))
                                     .then(Mono.defer(() -> {
-                                        // 6. 计算统计数据并更新状态
+                                        // 5. 计算统计数据并更新状态
                                         int groupCount = (int) hashToAttachments.values().stream()
                                             .filter(list -> list.size() > 1)
                                             .count();
@@ -223,18 +335,14 @@ public class DuplicateServiceImpl implements DuplicateService {
                                             .mapToLong(list -> list.get(0).size * (list.size() - 1))
                                             .sum();
 
-                                        log.info("扫描统计 - 重复组: {}, 重复文件: {}, 可节省: {} bytes", 
-                                            groupCount, fileCount, savableSize);
-                                        return updateScanCompleted(scanTotal.get(), groupCount, fileCount, savableSize);
+                                        log.info("扫描统计 - 重复组: {}, 重复文件: {}, 可节省: {} bytes, 相似图片组: {}",
+                                            groupCount, fileCount, savableSize, similarClusters.size());
+                                        return updateScanCompleted(attachments.size(), groupCount, fileCount, savableSize,
+                                            similarClusters.size());
                                     }));
                             }));
                     });
             })
-            .doOnSuccess(s -> {
-                log.info("扫描流程完成，开始清理旧数据");
-                // 异步删除旧数据
-                asyncDeletePendingRecords();
-            })
             .onErrorResume(error -> {
                 log.error("扫描过程出错: {}", error.getMessage(), error);
                 return updateScanError(error.getMessage());
@@ -242,84 +350,296 @@ public class DuplicateServiceImpl implements DuplicateService {
     }
 
     /**
-     * 处理单个附件：计算 MD5 并添加到映射
+     * 分阶段计算哈希
+     * 1. 按文件大小分组，大小唯一的附件不可能有完全相同的副本，不读取内容
+     * 2. 大小相同的附件计算部分哈希（首尾各 64KB）
+     * 3. 部分哈希仍然相同的附件计算完整哈希，加入哈希 -> 附件列表映射
      */
-    private Mono<Void> processAttachment(Attachment attachment,
-                                          Map<String, List<AttachmentInfo>> hashToAttachments) {
-        String attachmentName = attachment.getMetadata().getName();
-        String displayName = attachment.getSpec().getDisplayName();
-        Long fileSize = attachment.getSpec().getSize();
-        Instant uploadTime = attachment.getMetadata().getCreationTimestamp();
-
-        // 获取文件路径
-        String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
-        if (permalink == null) {
-            log.warn("附件 {} 没有 permalink，跳过", attachmentName);
-            scanProgress.incrementAndGet();
+    private Mono<Void> computeHashes(List<ScanEntry> entries, int concurrency, HashAlgorithm algorithm,
+                                     Map<String, List<AttachmentInfo>> hashToAttachments,
+                                     AtomicInteger reusedCount) {
+        // 阶段1：按大小分组（大小未知的附件直接进入完整哈希阶段）
+        Map<Long, List<ScanEntry>> bySize = entries.stream()
+            .filter(entry -> entry.size() != null)
+            .collect(Collectors.groupingBy(ScanEntry::size));
+        List<ScanEntry> sizeCandidates = bySize.values().stream()
+            .filter(bucket -> bucket.size() > 1)
+            .flatMap(List::stream)
+            .toList();
+        List<ScanEntry> unknownSize = entries.stream()
+            .filter(entry -> entry.size() == null)
+            .toList();
+        advanceProgress(entries.size() - sizeCandidates.size() - unknownSize.size());
+        log.info("大小分组完成 - 大小相同的候选: {}, 大小唯一已跳过: {}",
+            sizeCandidates.size(), entries.size() - sizeCandidates.size() - unknownSize.size());
+
+        // 阶段2：部分哈希
+        return Flux.fromIterable(sizeCandidates)
+            .flatMap(entry -> computePartialHash(entry, algorithm, reusedCount), concurrency)
+            .then(Mono.defer(() -> {
+                Map<String, List<ScanEntry>> byPartial = sizeCandidates.stream()
+                    .filter(entry -> entry.partialHash != null)
+                    .collect(Collectors.groupingBy(entry -> entry.size() + ":" + entry.partialHash));
+                List<ScanEntry> fullCandidates = new ArrayList<>(unknownSize);
+                byPartial.values().stream()
+                    .filter(bucket -> bucket.size() > 1)
+                    .forEach(fullCandidates::addAll);
+                advanceProgress(sizeCandidates.size() - (fullCandidates.size() - unknownSize.size()));
+                log.info("部分哈希完成 - 需要完整哈希的候选: {}", fullCandidates.size());
+
+                // 阶段3：完整哈希
+                return Flux.fromIterable(fullCandidates)
+                    .flatMap(entry -> computeFullHash(entry, algorithm, reusedCount)
+                        .doFinally(signal -> advanceProgress(1)), concurrency)
+                    .then(Mono.fromRunnable(() -> fullCandidates.stream()
+                        .filter(entry -> entry.hash != null)
+                        .forEach(entry -> hashToAttachments
+                            .computeIfAbsent(entry.hash, k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(entry.toInfo()))));
+            }));
+    }
+
+    /**
+     * 计算部分哈希，指纹有效时复用
+     * 文件不超过首尾块总大小、或 HTTP 回退时读取了整个文件，顺带得到的完整哈希直接保存，完整哈希阶段不再重复下载
+     */
+    private Mono<Void> computePartialHash(ScanEntry entry, HashAlgorithm algorithm, AtomicInteger reusedCount) {
+        if (entry.partialHash != null) {
+            reusedCount.incrementAndGet();
             return Mono.empty();
         }
-
-        return calculateMd5(permalink)
+        return attachmentHasher.partialHash(entry.attachment, algorithm)
             .timeout(java.time.Duration.ofSeconds(90))
-            .doOnNext(md5 -> {
-                AttachmentInfo info = new AttachmentInfo(attachmentName, displayName, fileSize, uploadTime, 0);
-                hashToAttachments.computeIfAbsent(md5, k -> Collections.synchronizedList(new ArrayList<>())).add(info);
-            })
-            .doFinally(signal -> {
-                // 无论成功失败都更新进度
-                int count = scanProgress.incrementAndGet();
-                if (count % 50 == 0) {
-                    log.info("已处理 {}/{} 个附件...", count, scanTotal.get());
+            .doOnNext(result -> {
+                entry.partialHash = result.partialHash();
+                if (result.fullHash() != null) {
+                    entry.hash = result.fullHash();
+                } else if (entry.size() != null && entry.size() <= 2L * AttachmentHasher.PARTIAL_CHUNK_SIZE) {
+                    entry.hash = result.partialHash();
+                }
+                entry.markChanged();
+                if (entry.size() != null) {
+                    progress.addBytes(result.fullHash() != null
+                        ? entry.size()
+                        : Math.min(entry.size(), 2L * AttachmentHasher.PARTIAL_CHUNK_SIZE));
                 }
             })
-            .doOnError(e -> log.warn("计算附件 {} MD5 失败: {}", displayName, e.getMessage()))
+            .doOnError(e -> log.warn("计算附件 {} 部分哈希失败: {}", entry.displayName(), e.getMessage()))
             .onErrorResume(e -> Mono.empty())
             .then();
     }
 
     /**
-     * 流式计算文件 MD5（通过 HTTP 获取文件内容）
+     * 计算完整哈希，指纹有效时复用
      */
-    private Mono<String> calculateMd5(String permalink) {
-        return Mono.fromCallable(() -> {
-            // 使用 ExternalLinkProcessor 将相对路径转为完整 URL
-            String fullUrl = externalLinkProcessor.processLink(permalink);
-            
-            HttpURLConnection conn = null;
-            try {
-                URL url = new URL(fullUrl);
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setConnectTimeout(10000);  // 连接超时 10 秒
-                conn.setReadTimeout(30000);     // 读取超时 30 秒
-                conn.setRequestMethod("GET");
-                
-                int responseCode = conn.getResponseCode();
-                if (responseCode != 200) {
-                    throw new RuntimeException("HTTP " + responseCode);
+    private Mono<Void> computeFullHash(ScanEntry entry, HashAlgorithm algorithm, AtomicInteger reusedCount) {
+        if (entry.hash != null) {
+            if (!entry.dirty) {
+                reusedCount.incrementAndGet();
+            }
+            return Mono.empty();
+        }
+        // 本地文件直接从磁盘读取，无法解析本地路径时通过 permalink 下载
+        return attachmentHasher.hash(entry.attachment, algorithm)
+            .timeout(java.time.Duration.ofSeconds(90))
+            .doOnNext(hash -> {
+                entry.hash = hash;
+                entry.markChanged();
+                if (entry.size() != null) {
+                    progress.addBytes(entry.size());
                 }
+            })
+            .doOnError(e -> log.warn("计算附件 {} 哈希失败: {}", entry.displayName(), e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
 
-                MessageDigest md5Digest = MessageDigest.getInstance("MD5");
-                byte[] buffer = new byte[8192]; // 8KB buffer
+    /**
+     * 计算图片附件的感知哈希，指纹中已有且附件未变化时复用
+     * 不推进扫描进度（进度只反映内容哈希阶段）
+     */
+    private Mono<Void> computePerceptualHashes(List<ScanEntry> entries, int concurrency) {
+        List<ScanEntry> images = entries.stream()
+            .filter(ScanEntry::isImage)
+            .filter(entry -> entry.perceptualHash == null)
+            .toList();
+        log.info("开始计算感知哈希 - 需要计算的图片: {}", images.size());
+        progress.stage("perceptual-hashing");
+        return Flux.fromIterable(images)
+            .flatMap(entry -> perceptualHasher.dHash(entry.attachment)
+                .timeout(java.time.Duration.ofSeconds(90))
+                .doOnNext(hash -> {
+                    entry.perceptualHash = HEX.toHexDigits(hash);
+                    entry.markChanged();
+                })
+                .doOnError(e -> log.warn("计算附件 {} 感知哈希失败: {}", entry.displayName(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty()), concurrency)
+            .then();
+    }
 
-                try (InputStream is = conn.getInputStream();
-                     DigestInputStream dis = new DigestInputStream(is, md5Digest)) {
-                    while (dis.read(buffer) != -1) {
-                        // 流式读取，自动更新 digest
-                    }
-                }
+    /**
+     * 按感知哈希聚类相似图片
+     * 所有哈希插入 BK 树，每张图片查询阈值内的近邻并用并查集合并，
+     * 组内全部为字节完全相同的文件时已由重复组覆盖，不再生成相似组。
+     * 纯色、近似纯色和整体渐变的图片哈希几乎没有亮度变化信息（置位数过少或过多），不参与聚类，避免把无关图片归为一组
+     *
+     * @param entries   扫描条目
+     * @param threshold 汉明距离阈值
+     * @return 相似图片簇（每簇至少两个附件）
+     */
+    private List<List<ScanEntry>> clusterSimilarImages(List<ScanEntry> entries, int threshold) {
+        List<ScanEntry> images = entries.stream()
+            .filter(entry -> entry.perceptualHash != null)
+            .filter(entry -> PerceptualHasher.isDistinctive(HexFormat.fromHexDigitsToLong(entry.perceptualHash)))
+            .toList();
+        long[] hashes = new long[images.size()];
+        BkTree<Integer> tree = new BkTree<>();
+        for (int i = 0; i < images.size(); i++) {
+            hashes[i] = HexFormat.fromHexDigitsToLong(images.get(i).perceptualHash);
+            tree.add(hashes[i], i);
+        }
 
-                byte[] digest = md5Digest.digest();
-                StringBuilder sb = new StringBuilder();
-                for (byte b : digest) {
-                    sb.append(String.format("%02x", b));
-                }
-                return sb.toString();
-            } finally {
-                if (conn != null) {
-                    conn.disconnect();
+        int[] parent = new int[images.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < images.size(); i++) {
+            for (int j : tree.search(hashes[i], threshold)) {
+                int rootI = findRoot(parent, i);
+                int rootJ = findRoot(parent, j);
+                if (rootI != rootJ) {
+                    parent[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
                 }
             }
-        }).subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic());
+        }
+
+        Map<Integer, List<ScanEntry>> clusters = new HashMap<>();
+        for (int i = 0; i < images.size(); i++) {
+            clusters.computeIfAbsent(findRoot(parent, i), k -> new ArrayList<>()).add(images.get(i));
+        }
+        List<List<ScanEntry>> result = clusters.values().stream()
+            .filter(cluster -> cluster.size() > 1)
+            .filter(cluster -> cluster.stream().map(entry -> entry.hash).distinct().count() > 1
+                || cluster.get(0).hash == null)
+            .toList();
+        log.info("感知哈希聚类完成 - 图片: {}, 相似组: {}", images.size(), result.size());
+        return result;
+    }
+
+    private static int findRoot(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void advanceProgress(int delta) {
+        if (delta <= 0) {
+            return;
+        }
+        long before = progress.processed();
+        progress.advance(delta);
+        if ((before + delta) / 50 > before / 50) {
+            log.info("已处理 {}/{} 个附件...", before + delta, progress.total());
+        }
+    }
+
+    /**
+     * 指纹记录的附件是否未变化：附件版本号和大小都未变化
+     */
+    private static boolean isFingerprintCurrent(AttachmentFingerprint fingerprint, Attachment attachment) {
+        if (fingerprint == null || fingerprint.getSpec() == null) {
+            return false;
+        }
+        AttachmentFingerprint.AttachmentFingerprintSpec spec = fingerprint.getSpec();
+        return Objects.equals(spec.getAttachmentVersion(), attachment.getMetadata().getVersion())
+            && Objects.equals(spec.getSize(), attachment.getSpec().getSize());
+    }
+
+    /**
+     * 保存检查点：写入自上次保存以来新计算的指纹，并刷新扫描状态的检查点时间
+     * 失败只记录日志，不影响扫描
+     */
+    private Mono<Void> saveCheckpoint(List<ScanEntry> entries, HashAlgorithm algorithm) {
+        return flushFingerprints(entries, algorithm, "检查点：保存附件指纹")
+            .then(client.fetch(DuplicateScanStatus.class, DuplicateScanStatus.SINGLETON_NAME))
+            .flatMap(status -> {
+                if (status.getStatus() == null) {
+                    return Mono.empty();
+                }
+                status.getStatus().setCheckpointTime(Instant.now());
+                return client.update(status);
+            })
+            .onErrorResume(e -> {
+                log.warn("保存重复检测检查点失败: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * 写入自上次保存以来有新哈希的附件指纹
+     */
+    private Mono<Void> flushFingerprints(List<ScanEntry> entries, HashAlgorithm algorithm, String label) {
+        return writeBatcher.writeAll(label,
+                Flux.fromIterable(entries).filter(ScanEntry::hasUnsavedChanges),
+                entry -> {
+                    int changes = entry.changes;
+                    return saveFingerprint(entry, algorithm)
+                        .doOnNext(saved -> entry.markSaved(saved, changes));
+                })
+            .then();
+    }
+
+    /**
+     * 保存附件指纹（已有记录则原地更新，版本冲突时基于最新版本更新）
+     * 保存失败不影响本次扫描结果，下次扫描会重新计算
+     */
+    private Mono<AttachmentFingerprint> saveFingerprint(ScanEntry entry, HashAlgorithm algorithm) {
+        Attachment attachment = entry.attachment;
+        String attachmentName = attachment.getMetadata().getName();
+        AttachmentFingerprint existing = entry.fingerprint;
+        AttachmentFingerprint fingerprint = existing;
+        if (fingerprint == null) {
+            fingerprint = new AttachmentFingerprint();
+            fingerprint.setMetadata(new Metadata());
+            fingerprint.getMetadata().setName(AttachmentFingerprint.nameOf(attachmentName));
+        }
+        AttachmentFingerprint.AttachmentFingerprintSpec spec = new AttachmentFingerprint.AttachmentFingerprintSpec();
+        spec.setAttachmentName(attachmentName);
+        spec.setSize(attachment.getSpec().getSize());
+        spec.setAttachmentVersion(attachment.getMetadata().getVersion());
+        spec.setHashAlgorithm(algorithm.name());
+        spec.setPartialHash(entry.partialHash);
+        spec.setHash(entry.hash);
+        spec.setPerceptualHash(entry.perceptualHash);
+        spec.setHashedAt(Instant.now());
+        fingerprint.setSpec(spec);
+
+        if (existing == null) {
+            return client.create(fingerprint);
+        }
+        return client.update(fingerprint)
+            .onErrorResume(ExtensionWriteBatcher::isOptimisticLockConflict,
+                e -> client.fetch(AttachmentFingerprint.class, existing.getMetadata().getName())
+                    .flatMap(latest -> {
+                        latest.setSpec(spec);
+                        return client.update(latest);
+                    }));
+    }
+
+    /**
+     * 删除已不存在（或已不在本地策略中）的附件的指纹
+     */
+    private Mono<Void> deleteStaleFingerprints(List<Attachment> attachments,
+                                               Map<String, AttachmentFingerprint> fingerprints) {
+        Set<String> attachmentNames = attachments.stream()
+            .map(attachment -> attachment.getMetadata().getName())
+            .collect(Collectors.toSet());
+        return writeBatcher.deleteAll("删除过期附件指纹", Flux.fromIterable(fingerprints.values())
+                .filter(fingerprint -> !attachmentNames.contains(fingerprint.getSpec().getAttachmentName())))
+            .then();
     }
 
     /**
@@ -333,69 +653,164 @@ public class DuplicateServiceImpl implements DuplicateService {
     }
 
     /**
-     * 标记所有旧的 DuplicateGroup 为待删除
+     * 同步重复组记录
+     * 组名由算法和哈希确定（dup-{算法前缀}{hash}），已存在的组原地更新（内容未变化时不写入），
+     * 新出现的组创建，不再重复的旧组以及其他算法产生的组删除
      */
-    private Mono<Void> markAllAsPendingDelete() {
-        return client.listAll(DuplicateGroup.class, ListOptions.builder().build(), Sort.unsorted())
-            .flatMap(group -> {
-                if (group.getStatus() == null) {
-                    group.setStatus(new DuplicateGroup.DuplicateGroupStatus());
+    private Mono<Void> syncDuplicateGroups(Map<String, List<AttachmentInfo>> hashToAttachments,
+                                           HashAlgorithm algorithm) {
+        Map<String, List<AttachmentInfo>> duplicates = hashToAttachments.entrySet().stream()
+            .filter(entry -> entry.getValue().size() > 1) // 只保留有重复的组
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Set<String> groupNames = duplicates.keySet().stream()
+            .map(hash -> groupNameOf(algorithm, hash))
+            .collect(Collectors.toSet());
+
+        return writeBatcher.writeAll("同步重复组", Flux.fromIterable(duplicates.entrySet()),
+                entry -> upsertDuplicateGroup(algorithm, entry.getKey(), entry.getValue()))
+            .then(Mono.defer(() -> writeBatcher.deleteAll("删除过期重复组",
+                client.listAll(DuplicateGroup.class, ListOptions.builder().build(), Sort.unsorted())
+                    .filter(group -> !groupNames.contains(group.getMetadata().getName())))))
+            .doOnNext(result -> log.info("重复组同步完成 - 当前: {}, 删除过期: {}", duplicates.size(), result.succeeded()))
+            .then();
+    }
+
+    /**
+     * 创建或原地更新单个重复组
+     * 版本冲突时由批量写入器重新订阅，重新读取最新记录后再更新
+     */
+    private Mono<DuplicateGroup> upsertDuplicateGroup(HashAlgorithm algorithm, String hash,
+                                                      List<AttachmentInfo> attachments) {
+        String groupName = groupNameOf(algorithm, hash);
+        // 并发计算导致组内顺序不确定，按名称排序保证结果稳定，避免无意义的更新
+        List<AttachmentInfo> sorted = attachments.stream()
+            .sorted(Comparator.comparing(AttachmentInfo::name))
+            .toList();
+        DuplicateGroup.DuplicateGroupStatus status = buildGroupStatus(sorted);
+
+        return client.fetch(DuplicateGroup.class, groupName)
+            .flatMap(existing -> {
+                // 旧版本的 MD5 组没有记录算法，顺带补上
+                boolean specChanged = !algorithm.name().equals(existing.getSpec().getHashAlgorithm());
+                if (!specChanged && status.equals(existing.getStatus())) {
+                    return Mono.just(existing);
                 }
-                group.getStatus().setPendingDelete(true);
-                return client.update(group);
+                existing.getSpec().setHashAlgorithm(algorithm.name());
+                existing.setStatus(status);
+                return client.update(existing);
             })
-            .then()
-            .doOnSuccess(v -> log.info("已标记所有旧 DuplicateGroup 为待删除"));
+            .switchIfEmpty(Mono.defer(() -> {
+                DuplicateGroup group = new DuplicateGroup();
+                group.setMetadata(new Metadata());
+                group.getMetadata().setName(groupName);
+
+                DuplicateGroup.DuplicateGroupSpec spec = new DuplicateGroup.DuplicateGroupSpec();
+                spec.setMd5Hash(hash);
+                spec.setHashAlgorithm(algorithm.name());
+                group.setSpec(spec);
+                group.setStatus(status);
+                return client.create(group);
+            }));
+    }
+
+    private DuplicateGroup.DuplicateGroupStatus buildGroupStatus(List<AttachmentInfo> attachments) {
+        DuplicateGroup.DuplicateGroupStatus status = new DuplicateGroup.DuplicateGroupStatus();
+        status.setFileSize(attachments.get(0).size);
+        status.setFileCount(attachments.size());
+        status.setSavableSize(attachments.get(0).size * (attachments.size() - 1));
+        status.setAttachmentNames(attachments.stream()
+            .map(AttachmentInfo::name)
+            .collect(Collectors.toList()));
+        status.setRecommendedKeep(selectRecommendedKeep(attachments));
+        status.setPendingDelete(false);
+        return status;
     }
 
     /**
-     * 异步删除待删除的记录
+     * 同步相似图片组记录
+     * 组名由组内第一个附件名称确定，已存在的组原地更新（内容未变化时不写入），
+     * 新出现的组创建，不再存在的旧组删除（未启用检测时传入空列表即全部删除）
      */
-    private void asyncDeletePendingRecords() {
-        client.listAll(DuplicateGroup.class, ListOptions.builder().build(), Sort.unsorted())
-            .filter(group -> group.getStatus() != null && Boolean.TRUE.equals(group.getStatus().getPendingDelete()))
-            .flatMap(group -> client.delete(group))
-            .subscribe(
-                deleted -> {},
-                error -> log.error("删除旧 DuplicateGroup 失败", error),
-                () -> log.info("旧 DuplicateGroup 清理完成")
-            );
+    private Mono<Void> syncSimilarImageGroups(List<List<ScanEntry>> clusters) {
+        Map<String, List<ScanEntry>> groups = new HashMap<>();
+        for (List<ScanEntry> cluster : clusters) {
+            List<ScanEntry> sorted = cluster.stream()
+                .sorted(Comparator.comparing(entry -> entry.attachment.getMetadata().getName()))
+                .toList();
+            groups.put(SimilarImageGroup.nameOf(sorted.get(0).attachment.getMetadata().getName()), sorted);
+        }
+
+        return writeBatcher.writeAll("同步相似图片组", Flux.fromIterable(groups.entrySet()),
+                entry -> upsertSimilarImageGroup(entry.getKey(), entry.getValue()))
+            .then(Mono.defer(() -> writeBatcher.deleteAll("删除过期相似图片组",
+                client.listAll(SimilarImageGroup.class, ListOptions.builder().build(), Sort.unsorted())
+                    .filter(group -> !groups.containsKey(group.getMetadata().getName())))))
+            .doOnNext(result -> {
+                if (!groups.isEmpty() || result.succeeded() > 0) {
+                    log.info("相似图片组同步完成 - 当前: {}, 删除过期: {}", groups.size(), result.succeeded());
+                }
+            })
+            .then();
     }
 
     /**
-     * 创建重复组记录
+     * 创建或原地更新单个相似图片组
      */
-    private Mono<Void> createDuplicateGroups(Map<String, List<AttachmentInfo>> hashToAttachments) {
-        long timestamp = System.currentTimeMillis();
+    private Mono<SimilarImageGroup> upsertSimilarImageGroup(String groupName, List<ScanEntry> entries) {
+        List<AttachmentInfo> infos = entries.stream().map(ScanEntry::toInfo).toList();
+        String recommendedKeep = selectRecommendedKeep(infos);
+        ScanEntry keep = entries.stream()
+            .filter(entry -> entry.attachment.getMetadata().getName().equals(recommendedKeep))
+            .findFirst()
+            .orElse(entries.get(0));
 
-        return Flux.fromIterable(hashToAttachments.entrySet())
-            .filter(entry -> entry.getValue().size() > 1) // 只保留有重复的组
-            .flatMap(entry -> {
-                String md5Hash = entry.getKey();
-                List<AttachmentInfo> attachments = entry.getValue();
+        long totalSize = infos.stream().mapToLong(info -> info.size() != null ? info.size() : 0).sum();
+        long keepSize = keep.size() != null ? keep.size() : 0;
+        int maxDistance = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            long a = HexFormat.fromHexDigitsToLong(entries.get(i).perceptualHash);
+            for (int j = i + 1; j < entries.size(); j++) {
+                long b = HexFormat.fromHexDigitsToLong(entries.get(j).perceptualHash);
+                maxDistance = Math.max(maxDistance, Long.bitCount(a ^ b));
+            }
+        }
 
-                DuplicateGroup group = new DuplicateGroup();
+        SimilarImageGroup.SimilarImageGroupStatus status = new SimilarImageGroup.SimilarImageGroupStatus();
+        status.setTotalSize(totalSize);
+        status.setFileCount(entries.size());
+        status.setSavableSize(totalSize - keepSize);
+        status.setMaxDistance(maxDistance);
+        status.setRecommendedKeep(recommendedKeep);
+        status.setAttachmentNames(infos.stream().map(AttachmentInfo::name).collect(Collectors.toList()));
+
+        return client.fetch(SimilarImageGroup.class, groupName)
+            .flatMap(existing -> {
+                boolean specChanged = !keep.perceptualHash.equals(existing.getSpec().getPerceptualHash());
+                if (!specChanged && status.equals(existing.getStatus())) {
+                    return Mono.just(existing);
+                }
+                existing.getSpec().setPerceptualHash(keep.perceptualHash);
+                existing.setStatus(status);
+                return client.update(existing);
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+                SimilarImageGroup group = new SimilarImageGroup();
                 group.setMetadata(new Metadata());
-                group.getMetadata().setName("dup-" + md5Hash.substring(0, 8) + "-" + timestamp);
+                group.getMetadata().setName(groupName);
 
-                DuplicateGroup.DuplicateGroupSpec spec = new DuplicateGroup.DuplicateGroupSpec();
-                spec.setMd5Hash(md5Hash);
+                SimilarImageGroup.SimilarImageGroupSpec spec = new SimilarImageGroup.SimilarImageGroupSpec();
+                spec.setPerceptualHash(keep.perceptualHash);
                 group.setSpec(spec);
-
-                DuplicateGroup.DuplicateGroupStatus status = new DuplicateGroup.DuplicateGroupStatus();
-                status.setFileSize(attachments.get(0).size);
-                status.setFileCount(attachments.size());
-                status.setSavableSize(attachments.get(0).size * (attachments.size() - 1));
-                status.setAttachmentNames(attachments.stream()
-                    .map(AttachmentInfo::name)
-                    .collect(Collectors.toList()));
-                status.setRecommendedKeep(selectRecommendedKeep(attachments));
-                status.setPendingDelete(false);
                 group.setStatus(status);
-
                 return client.create(group);
-            })
-            .then();
+            }));
+    }
+
+    /**
+     * 根据算法和哈希生成重复组名称
+     */
+    private static String groupNameOf(HashAlgorithm algorithm, String hash) {
+        return "dup-" + algorithm.getGroupPrefix() + hash;
     }
 
     /**
@@ -416,9 +831,10 @@ public class DuplicateServiceImpl implements DuplicateService {
     private Mono<DuplicateScanStatus> updateScanCompleted(int totalCount,
                                                            int groupCount,
                                                            int fileCount,
-                                                           long savableSize) {
-        log.info("扫描完成 - 总附件: {}, 重复组: {}, 重复文件: {}, 可节省: {} bytes",
-            totalCount, groupCount, fileCount, savableSize);
+                                                           long savableSize,
+                                                           int similarGroupCount) {
+        log.info("扫描完成 - 总附件: {}, 重复组: {}, 重复文件: {}, 可节省: {} bytes, 相似图片组: {}",
+            totalCount, groupCount, fileCount, savableSize, similarGroupCount);
 
         return client.fetch(DuplicateScanStatus.class, DuplicateScanStatus.SINGLETON_NAME)
             .flatMap(status -> {
@@ -431,6 +847,7 @@ public class DuplicateServiceImpl implements DuplicateService {
                 status.getStatus().setDuplicateGroupCount(groupCount);
                 status.getStatus().setDuplicateFileCount(fileCount);
                 status.getStatus().setSavableSize(savableSize);
+                status.getStatus().setSimilarGroupCount(similarGroupCount);
                 status.getStatus().setErrorMessage(null);
                 return client.update(status);
             });
@@ -462,136 +879,265 @@ public class DuplicateServiceImpl implements DuplicateService {
                 return client.create(status);
             }))
             .map(status -> {
-                // 注入内存中的扫描进度
-                if (status.getStatus() != null) {
-                    status.getStatus().setScannedCount(scanProgress.get());
-                    status.getStatus().setTotalCount(scanTotal.get());
+                // 扫描期间注入内存中的扫描进度
+                if (status.getStatus() != null
+                    && DuplicateScanStatus.Phase.SCANNING.equals(status.getStatus().getPhase())) {
+                    status.getStatus().setScannedCount((int) progress.processed());
+                    status.getStatus().setTotalCount((int) progress.total());
                 }
                 return status;
             });
     }
 
+    @Override
+    public Flux<ScanProgress> streamProgress() {
+        return progress.flux();
+    }
+
     @Override
     public Mono<ListResult<DuplicateGroupVo>> listDuplicateGroups(int page, int size) {
-        return client.listAll(DuplicateGroup.class, ListOptions.builder().build(), Sort.unsorted())
-            .filter(group -> group.getStatus() == null ||
-                             group.getStatus().getPendingDelete() == null ||
-                             !group.getStatus().getPendingDelete())
-            .collectList()
-            .flatMap(groups -> {
-                // 按 savableSize 降序排序
-                groups.sort((a, b) -> {
-                    long sizeA = a.getStatus() != null ? a.getStatus().getSavableSize() : 0;
-                    long sizeB = b.getStatus() != null ? b.getStatus().getSavableSize() : 0;
-                    return Long.compare(sizeB, sizeA);
-                });
-
-                int total = groups.size();
-                int start = (page - 1) * size;
-                int end = Math.min(start + size, total);
-
-                List<DuplicateGroup> pageItems = start < total
-                    ? groups.subList(start, end)
-                    : Collections.emptyList();
-
-                // 批量获取附件信息
-                Set<String> allAttachmentNames = pageItems.stream()
-                    .filter(g -> g.getStatus() != null && g.getStatus().getAttachmentNames() != null)
-                    .flatMap(g -> g.getStatus().getAttachmentNames().stream())
-                    .collect(Collectors.toSet());
-
-                // 批量获取附件和引用信息
-                Mono<Map<String, Attachment>> attachmentsMono = client.listAll(Attachment.class, ListOptions.builder().build(), Sort.unsorted())
-                    .filter(att -> allAttachmentNames.contains(att.getMetadata().getName()))
-                    .collectMap(att -> att.getMetadata().getName(), att -> att);
-
-                // 通过 spec.attachmentName 关联附件
-                Mono<Map<String, Integer>> referenceCountsMono = client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
-                    .filter(ref -> ref.getSpec() != null 
-                        && ref.getSpec().getAttachmentName() != null
-                        && allAttachmentNames.contains(ref.getSpec().getAttachmentName())
-                        && (ref.getStatus() == null || !Boolean.TRUE.equals(ref.getStatus().getPendingDelete())))
-                    .collectMap(
-                        ref -> ref.getSpec().getAttachmentName(),
-                        ref -> ref.getStatus() != null ? ref.getStatus().getReferenceCount() : 0
-                    );
+        // 通过 status.pendingDelete 和 status.savableSize 索引分页，只读取当前页的组
+        ListOptions options = ListOptions.builder()
+            .fieldQuery(equal("status.pendingDelete", "false"))
+            .build();
+        return client.listBy(DuplicateGroup.class, options, PageRequestImpl.of(page, size, SAVABLE_SIZE_DESC))
+            .flatMap(result -> loadFileContext(collectAttachmentNames(result.getItems(),
+                    group -> group.getStatus() != null ? group.getStatus().getAttachmentNames() : null))
+                .map(context -> new ListResult<>(page, size, result.getTotal(), result.getItems().stream()
+                    .map(group -> convertToVo(group, context))
+                    .collect(Collectors.toList()))));
+    }
 
-                // 检查是否执行过引用扫描（通过 ReferenceScanStatus.lastScanTime 判断）
-                Mono<Boolean> hasReferenceScanMono = client.fetch(ReferenceScanStatus.class, ReferenceScanStatus.SINGLETON_NAME)
-                    .map(scanStatus -> scanStatus.getStatus() != null 
-                        && scanStatus.getStatus().getLastScanTime() != null)
-                    .defaultIfEmpty(false);
-
-                return Mono.zip(attachmentsMono, referenceCountsMono, hasReferenceScanMono)
-                    .map(tuple -> {
-                        Map<String, Attachment> attachmentMap = tuple.getT1();
-                        Map<String, Integer> referenceCountMap = tuple.getT2();
-                        boolean hasReferenceScan = tuple.getT3();
-                        List<DuplicateGroupVo> voList = pageItems.stream()
-                            .map(group -> convertToVo(group, attachmentMap, referenceCountMap, hasReferenceScan))
-                            .collect(Collectors.toList());
-                        return new ListResult<>(page, size, total, voList);
-                    });
-            });
+    @Override
+    public Mono<ListResult<SimilarImageGroupVo>> listSimilarImageGroups(int page, int size) {
+        return client.listBy(SimilarImageGroup.class, ListOptions.builder().build(),
+                PageRequestImpl.of(page, size, SAVABLE_SIZE_DESC))
+            .flatMap(result -> loadFileContext(collectAttachmentNames(result.getItems(),
+                    group -> group.getStatus() != null ? group.getStatus().getAttachmentNames() : null))
+                .map(context -> new ListResult<>(page, size, result.getTotal(), result.getItems().stream()
+                    .map(group -> convertToVo(group, context))
+                    .collect(Collectors.toList()))));
+    }
+
+    /**
+     * 收集当前页所有组的附件名称
+     */
+    private static <G> Set<String> collectAttachmentNames(List<G> groups, Function<G, List<String>> namesOf) {
+        return groups.stream()
+            .map(namesOf)
+            .filter(Objects::nonNull)
+            .flatMap(List::stream)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * 批量获取组内附件、引用次数和引用扫描状态
+     */
+    private Mono<FileContext> loadFileContext(Set<String> allAttachmentNames) {
+        if (allAttachmentNames.isEmpty()) {
+            return Mono.just(new FileContext(Map.of(), Map.of(), false));
+        }
+        // 按名称批量获取附件（metadata.name 索引），只读取当前页用到的附件
+        Mono<Map<String, Attachment>> attachmentsMono = client.listAll(Attachment.class,
+                ListOptions.builder().fieldQuery(in("metadata.name", allAttachmentNames)).build(), Sort.unsorted())
+            .collectMap(att -> att.getMetadata().getName(), att -> att);
+
+        // 引用扫描状态：是否执行过引用扫描（lastScanTime）以及当前生效的扫描代数
+        Mono<Optional<ReferenceScanStatus.ReferenceScanStatusStatus>> referenceScanMono =
+            client.fetch(ReferenceScanStatus.class, ReferenceScanStatus.SINGLETON_NAME)
+                .map(scanStatus -> Optional.ofNullable(scanStatus.getStatus()))
+                .defaultIfEmpty(Optional.empty())
+                .cache();
+        Mono<Boolean> hasReferenceScanMono = referenceScanMono
+            .map(scanStatus -> scanStatus.map(s -> s.getLastScanTime() != null).orElse(false));
+
+        // 通过 spec.attachmentName 关联附件，只读取当前生效代的记录
+        Mono<Map<String, Integer>> referenceCountsMono = referenceScanMono
+            .map(scanStatus -> scanStatus.map(ReferenceScanStatus.ReferenceScanStatusStatus::getGeneration))
+            .flatMapMany(generation -> client.listAll(AttachmentReference.class,
+                    ListOptions.builder().fieldQuery(in("spec.attachmentName", allAttachmentNames)).build(),
+                    Sort.unsorted())
+                .filter(ref -> ref.belongsTo(generation.orElse(null))))
+            .collectMap(
+                ref -> ref.getSpec().getAttachmentName(),
+                ref -> ref.getStatus() != null ? ref.getStatus().getReferenceCount() : 0
+            );
+
+        return Mono.zip(attachmentsMono, referenceCountsMono, hasReferenceScanMono)
+            .map(tuple -> new FileContext(tuple.getT1(), tuple.getT2(), tuple.getT3()));
     }
 
     /**
      * 转换为 VO
      */
-    private DuplicateGroupVo convertToVo(DuplicateGroup group, 
-                                          Map<String, Attachment> attachmentMap,
-                                          Map<String, Integer> referenceCountMap,
-                                          boolean hasReferenceScan) {
+    private DuplicateGroupVo convertToVo(DuplicateGroup group, FileContext context) {
         String recommendedKeep = group.getStatus() != null ? group.getStatus().getRecommendedKeep() : null;
-        String previewUrl = null;
-        String mediaType = null;
+        List<String> attachmentNames = group.getStatus() != null ? group.getStatus().getAttachmentNames() : null;
+        List<DuplicateGroupVo.DuplicateFileVo> files = buildFileVos(attachmentNames, recommendedKeep, context);
 
-        List<DuplicateGroupVo.DuplicateFileVo> files = new ArrayList<>();
-        if (group.getStatus() != null && group.getStatus().getAttachmentNames() != null) {
-            for (String attachmentName : group.getStatus().getAttachmentNames()) {
-                Attachment attachment = attachmentMap.get(attachmentName);
-                DuplicateGroupVo.DuplicateFileVo fileVo = new DuplicateGroupVo.DuplicateFileVo();
-                fileVo.setAttachmentName(attachmentName);
-                fileVo.setRecommended(attachmentName.equals(recommendedKeep));
-
-                if (attachment != null) {
-                    fileVo.setDisplayName(attachment.getSpec().getDisplayName());
-                    fileVo.setMediaType(attachment.getSpec().getMediaType());
-                    fileVo.setPermalink(attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null);
-                    fileVo.setUploadTime(attachment.getMetadata().getCreationTimestamp());
-                    fileVo.setGroupName(attachment.getSpec().getGroupName());
-                    // 从引用扫描结果获取引用次数，没有扫描数据时设为 -1 表示未扫描
-                    fileVo.setReferenceCount(hasReferenceScan 
-                        ? referenceCountMap.getOrDefault(attachmentName, 0) 
-                        : -1);
-
-                    // 设置预览 URL 和媒体类型（使用第一个文件的）
-                    if (previewUrl == null && attachment.getStatus() != null) {
-                        previewUrl = attachment.getStatus().getPermalink();
-                        mediaType = attachment.getSpec().getMediaType();
-                    }
-                } else {
-                    fileVo.setDisplayName(attachmentName);
-                    fileVo.setReferenceCount(hasReferenceScan ? 0 : -1);
-                }
-
-                files.add(fileVo);
-            }
-        }
+        // 设置预览 URL 和媒体类型（使用第一个文件的）
+        DuplicateGroupVo.DuplicateFileVo preview = files.stream()
+            .filter(file -> file.getPermalink() != null)
+            .findFirst()
+            .orElse(null);
 
         DuplicateGroupVo vo = new DuplicateGroupVo();
         vo.setMd5Hash(group.getSpec().getMd5Hash());
+        vo.setHashAlgorithm(HashAlgorithm.fromName(group.getSpec().getHashAlgorithm()).name());
         vo.setFileSize(group.getStatus() != null ? group.getStatus().getFileSize() : 0);
         vo.setFileCount(group.getStatus() != null ? group.getStatus().getFileCount() : 0);
         vo.setSavableSize(group.getStatus() != null ? group.getStatus().getSavableSize() : 0);
         vo.setRecommendedKeep(recommendedKeep);
-        vo.setPreviewUrl(previewUrl);
-        vo.setMediaType(mediaType);
+        vo.setPreviewUrl(preview != null ? preview.getPermalink() : null);
+        vo.setMediaType(preview != null ? preview.getMediaType() : null);
         vo.setFiles(files);
 
         return vo;
     }
 
+    /**
+     * 转换为相似图片组 VO
+     */
+    private SimilarImageGroupVo convertToVo(SimilarImageGroup group, FileContext context) {
+        SimilarImageGroup.SimilarImageGroupStatus status = group.getStatus();
+        String recommendedKeep = status != null ? status.getRecommendedKeep() : null;
+        List<DuplicateGroupVo.DuplicateFileVo> files =
+            buildFileVos(status != null ? status.getAttachmentNames() : null, recommendedKeep, context);
+
+        // 预览使用推荐保留的文件
+        String previewUrl = files.stream()
+            .filter(DuplicateGroupVo.DuplicateFileVo::isRecommended)
+            .map(DuplicateGroupVo.DuplicateFileVo::getPermalink)
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElse(null);
+
+        SimilarImageGroupVo vo = new SimilarImageGroupVo();
+        vo.setPerceptualHash(group.getSpec().getPerceptualHash());
+        vo.setTotalSize(status != null ? status.getTotalSize() : 0);
+        vo.setFileCount(status != null ? status.getFileCount() : 0);
+        vo.setSavableSize(status != null ? status.getSavableSize() : 0);
+        vo.setMaxDistance(status != null ? status.getMaxDistance() : 0);
+        vo.setRecommendedKeep(recommendedKeep);
+        vo.setPreviewUrl(previewUrl);
+        vo.setFiles(files);
+        return vo;
+    }
+
+    /**
+     * 构建组内文件 VO 列表
+     */
+    private List<DuplicateGroupVo.DuplicateFileVo> buildFileVos(List<String> attachmentNames,
+                                                               String recommendedKeep,
+                                                               FileContext context) {
+        List<DuplicateGroupVo.DuplicateFileVo> files = new ArrayList<>();
+        if (attachmentNames == null) {
+            return files;
+        }
+        for (String attachmentName : attachmentNames) {
+            Attachment attachment = context.attachments().get(attachmentName);
+            DuplicateGroupVo.DuplicateFileVo fileVo = new DuplicateGroupVo.DuplicateFileVo();
+            fileVo.setAttachmentName(attachmentName);
+            fileVo.setRecommended(attachmentName.equals(recommendedKeep));
+
+            if (attachment != null) {
+                fileVo.setDisplayName(attachment.getSpec().getDisplayName());
+                fileVo.setMediaType(attachment.getSpec().getMediaType());
+                fileVo.setPermalink(attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null);
+                fileVo.setSize(attachment.getSpec().getSize());
+                fileVo.setUploadTime(attachment.getMetadata().getCreationTimestamp());
+                fileVo.setGroupName(attachment.getSpec().getGroupName());
+                // 从引用扫描结果获取引用次数，没有扫描数据时设为 -1 表示未扫描
+                fileVo.setReferenceCount(context.hasReferenceScan()
+                    ? context.referenceCounts().getOrDefault(attachmentName, 0)
+                    : -1);
+            } else {
+                fileVo.setDisplayName(attachmentName);
+                fileVo.setReferenceCount(context.hasReferenceScan() ? 0 : -1);
+            }
+
+            files.add(fileVo);
+        }
+        return files;
+    }
+
+    /**
+     * 组内文件 VO 所需的批量查询结果
+     */
+    private record FileContext(Map<String, Attachment> attachments,
+                               Map<String, Integer> referenceCounts,
+                               boolean hasReferenceScan) {}
+
+    /**
+     * 单个附件的扫描状态，分阶段计算过程中逐步填充
+     * 指纹有效时预先带入已保存的部分哈希和完整哈希
+     */
+    private static final class ScanEntry {
+        private final Attachment attachment;
+        private volatile AttachmentFingerprint fingerprint;
+        private volatile String partialHash;
+        private volatile String hash;
+        private volatile String perceptualHash;
+        private volatile boolean dirty;
+
+        /**
+         * 本次扫描新计算哈希的次数，与已保存的次数不同时需要写入指纹
+         */
+        private volatile int changes;
+        private volatile int savedChanges;
+
+        private ScanEntry(Attachment attachment, AttachmentFingerprint fingerprint, HashAlgorithm algorithm) {
+            this.attachment = attachment;
+            this.fingerprint = fingerprint;
+            if (isFingerprintCurrent(fingerprint, attachment)) {
+                // 内容哈希只在算法与当前配置一致时复用，感知哈希与算法无关
+                if (HashAlgorithm.fromName(fingerprint.getSpec().getHashAlgorithm()) == algorithm) {
+                    this.partialHash = fingerprint.getSpec().getPartialHash();
+                    this.hash = fingerprint.getSpec().getHash();
+                }
+                this.perceptualHash = fingerprint.getSpec().getPerceptualHash();
+            }
+        }
+
+        /**
+         * 记录新计算的哈希（同一附件的哈希不会并发计算）
+         */
+        private void markChanged() {
+            dirty = true;
+            changes++;
+        }
+
+        private boolean hasUnsavedChanges() {
+            return changes != savedChanges;
+        }
+
+        /**
+         * 记录已保存的指纹，后续保存基于该版本更新
+         */
+        private void markSaved(AttachmentFingerprint saved, int savedAt) {
+            fingerprint = saved;
+            savedChanges = savedAt;
+        }
+
+        private boolean isImage() {
+            String mediaType = attachment.getSpec().getMediaType();
+            return mediaType != null && mediaType.startsWith("image/");
+        }
+
+        private Long size() {
+            return attachment.getSpec().getSize();
+        }
+
+        private String displayName() {
+            return attachment.getSpec().getDisplayName();
+        }
+
+        private AttachmentInfo toInfo() {
+            return new AttachmentInfo(attachment.getMetadata().getName(), displayName(), size(),
+                attachment.getMetadata().getCreationTimestamp(), 0);
+        }
+    }
+
     /**
      * 附件信息内部类
      */
@@ -601,9 +1147,13 @@ public class DuplicateServiceImpl implements DuplicateService {
     public Mono<Void> clearAll() {
         log.info("开始清空重复检测记录...");
         
-        // 删除所有 DuplicateGroup 记录
-        return client.listAll(DuplicateGroup.class, ListOptions.builder().build(), Sort.unsorted())
-            .flatMap(group -> client.delete(group))
+        // 删除所有 DuplicateGroup、SimilarImageGroup 和指纹记录（清空后下次扫描重新计算全部附件）
+        return writeBatcher.deleteAll("清空重复组",
+                client.listAll(DuplicateGroup.class, ListOptions.builder().build(), Sort.unsorted()))
+            .then(writeBatcher.deleteAll("清空相似图片组",
+                client.listAll(SimilarImageGroup.class, ListOptions.builder().build(), Sort.unsorted())))
+            .then(writeBatcher.deleteAll("清空附件指纹",
+                client.listAll(AttachmentFingerprint.class, ListOptions.builder().build(), Sort.unsorted())))
             .then(Mono.defer(() -> {
                 // 重置扫描状态
                 return getScanStatus()
@@ -617,6 +1167,7 @@ public class DuplicateServiceImpl implements DuplicateService {
                             status.getStatus().setDuplicateGroupCount(0);
                             status.getStatus().setDuplicateFileCount(0);
                             status.getStatus().setSavableSize(0);
+                            status.getStatus().setSimilarGroupCount(0);
                             status.getStatus().setErrorMessage(null);
                         }
                         return client.update(status);
@@ -0,0 +1,185 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.ReactiveExtensionClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Extension 批量写入器
+ * 扫描结果的创建、更新、删除统一经过这里：并发数有上限，
+ * 上游（通常是 listAll）按下游消费速度拉取，乐观锁冲突时退避重试。
+ * 单条写入失败只记录日志和计数，不中断整批写入
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExtensionWriteBatcher {
+
+    /**
+     * 同时进行的写入数上限
+     */
+    static final int WRITE_CONCURRENCY = 8;
+
+    /**
+     * 乐观锁冲突最大重试次数
+     */
+    private static final int MAX_RETRIES = 3;
+
+    /**
+     * 每写入多少条输出一次进度日志
+     */
+    private static final int PROGRESS_LOG_INTERVAL = 500;
+
+    private final ReactiveExtensionClient client;
+
+    /**
+     * 正在进行的写入数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 累计成功写入数
+     */
+    private final AtomicLong succeededCount = new AtomicLong();
+
+    /**
+     * 累计失败写入数（重试后仍失败）
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * 累计乐观锁冲突重试次数
+     */
+    private final AtomicLong retriedCount = new AtomicLong();
+
+    /**
+     * 批量创建
+     *
+     * @param label 批次名称（用于日志）
+     * @param items 待创建的 Extension
+     * @return 批次结果
+     */
+    public <E extends Extension> Mono<BatchResult> createAll(String label, Publisher<E> items) {
+        return writeAll(label, items, client::create);
+    }
+
+    /**
+     * 批量删除
+     * 乐观锁冲突时重新读取最新版本后再删除，记录已不存在时视为成功
+     *
+     * @param label 批次名称（用于日志）
+     * @param items 待删除的 Extension
+     * @return 批次结果
+     */
+    public <E extends Extension> Mono<BatchResult> deleteAll(String label, Publisher<E> items) {
+        return writeAll(label, items, this::deleteLatest);
+    }
+
+    /**
+     * 批量执行写入操作
+     * 重试时重新订阅 write 返回的 Mono，需要读取最新版本的写入（如更新）应在 Mono 内部 fetch
+     *
+     * @param label 批次名称（用于日志）
+     * @param items 待写入的数据
+     * @param write 单条写入操作
+     * @return 批次结果
+     */
+    public <T> Mono<BatchResult> writeAll(String label, Publisher<T> items, Function<T, Mono<?>> write) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicLong succeeded = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+
+            return Flux.from(items)
+                .flatMap(item -> Mono.defer(() -> write.apply(item))
+                    .retryWhen(Retry.backoff(MAX_RETRIES, Duration.ofMillis(200))
+                        .filter(ExtensionWriteBatcher::isOptimisticLockConflict)
+                        .doBeforeRetry(signal -> retriedCount.incrementAndGet()))
+                    .doOnSubscribe(s -> inFlight.incrementAndGet())
+                    .doFinally(signal -> inFlight.decrementAndGet())
+                    .then(Mono.fromRunnable(() -> {
+                        succeededCount.incrementAndGet();
+                        long done = succeeded.incrementAndGet();
+                        if (done % PROGRESS_LOG_INTERVAL == 0) {
+                            log.info("{}: 已写入 {} 条", label, done);
+                        }
+                    }))
+                    .onErrorResume(e -> {
+                        failedCount.incrementAndGet();
+                        failed.incrementAndGet();
+                        log.warn("{}: 写入失败: {}", label, e.getMessage());
+                        return Mono.empty();
+                    }), WRITE_CONCURRENCY)
+                .then(Mono.fromSupplier(() -> {
+                    BatchResult result = new BatchResult(succeeded.get(), failed.get(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                    if (result.succeeded() > 0 || result.failed() > 0) {
+                        log.info("{}: 完成 {} 条，失败 {} 条，耗时 {} ms",
+                            label, result.succeeded(), result.failed(), result.elapsedMillis());
+                    }
+                    return result;
+                }));
+        });
+    }
+
+    /**
+     * 获取累计写入统计
+     *
+     * @return 统计快照
+     */
+    public WriteStats getStats() {
+        return new WriteStats(inFlight.get(), succeededCount.get(), failedCount.get(), retriedCount.get());
+    }
+
+    /**
+     * 删除 Extension，调用方持有的版本已过期时读取最新版本再删除
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends Extension> Mono<E> deleteLatest(E item) {
+        return client.delete(item)
+            .onErrorResume(ExtensionWriteBatcher::isOptimisticLockConflict,
+                e -> client.fetch((Class<E>) item.getClass(), item.getMetadata().getName())
+                    .flatMap(client::delete));
+    }
+
+    /**
+     * 是否为乐观锁冲突（版本号不一致）
+     */
+    static boolean isOptimisticLockConflict(Throwable e) {
+        return e instanceof OptimisticLockingFailureException;
+    }
+
+    /**
+     * 单个批次的写入结果
+     *
+     * @param succeeded     成功数
+     * @param failed        失败数
+     * @param elapsedMillis 耗时（毫秒）
+     */
+    public record BatchResult(long succeeded, long failed, long elapsedMillis) {
+    }
+
+    /**
+     * 累计写入统计
+     *
+     * @param inFlight  正在进行的写入数
+     * @param succeeded 累计成功数
+     * @param failed    累计失败数
+     * @param retried   累计乐观锁冲突重试次数
+     */
+    public record WriteStats(int inFlight, long succeeded, long failed, long retried) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.extension.ContentUrlCache;
+import com.timxs.storagetoolkit.service.ContentScanner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.content.Snapshot;
+import run.halo.app.extension.ListOptions;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.ReactiveExtensionClient;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 引用扫描的 URL 提取缓存
+ * 快照创建后内容基本不变（草稿保存原地更新 head 快照时版本号变化），
+ * 以 (head 快照名称, base 快照名称, 两者的版本号) 标识一次提取结果。
+ * 扫描开始时一次性加载全部记录，命中时跳过快照合并和 URL 提取；
+ * 扫描结束时写入新提取的结果，删除已不存在的内容的记录。
+ * 只在全量扫描期间生效，同一时间只有一个扫描在执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExtractedUrlCache {
+
+    private final ReactiveExtensionClient client;
+    private final ExtensionWriteBatcher writeBatcher;
+
+    /**
+     * 本次扫描加载的记录（名称 -> 记录），不在扫描中时为 null
+     */
+    private volatile Map<String, ContentUrlCache> entries;
+
+    /**
+     * 本次扫描新提取、待写入的记录
+     */
+    private final Map<String, ContentUrlCache> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 本次扫描查询过的记录名称，未查询过的记录对应的内容已不存在
+     */
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 扫描开始时加载全部缓存记录
+     */
+    Mono<Void> open() {
+        pending.clear();
+        touched.clear();
+        return client.listAll(ContentUrlCache.class, ListOptions.builder().build(), Sort.unsorted())
+            .collectMap(cache -> cache.getMetadata().getName())
+            .doOnNext(loaded -> {
+                entries = new ConcurrentHashMap<>(loaded);
+                log.info("已加载 URL 提取缓存 {} 条", loaded.size());
+            })
+            .onErrorResume(e -> {
+                log.warn("加载 URL 提取缓存失败，本次扫描不使用缓存: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * 查询快照对应的提取结果
+     *
+     * @return 提取结果，未命中或不在扫描中时返回 null
+     */
+    ContentScanner.ExtractResult get(Key key) {
+        Map<String, ContentUrlCache> current = entries;
+        if (current == null) {
+            return null;
+        }
+        String name = key.name();
+        touched.add(name);
+        ContentUrlCache cache = current.get(name);
+        if (cache == null || cache.getSpec() == null || !key.matches(cache.getSpec())) {
+            return null;
+        }
+        ContentUrlCache.ContentUrlCacheSpec spec = cache.getSpec();
+        return new ContentScanner.ExtractResult(
+            spec.getFullUrls() != null ? new HashSet<>(spec.getFullUrls()) : new HashSet<>(),
+            spec.getRelativePaths() != null ? new HashSet<>(spec.getRelativePaths()) : new HashSet<>());
+    }
+
+    /**
+     * 记录新的提取结果，扫描结束时写入
+     */
+    void put(Key key, ContentScanner.ExtractResult result) {
+        Map<String, ContentUrlCache> current = entries;
+        if (current == null) {
+            return;
+        }
+        ContentUrlCache.ContentUrlCacheSpec spec = new ContentUrlCache.ContentUrlCacheSpec();
+        spec.setSourceType(key.sourceType());
+        spec.setSourceName(key.sourceName());
+        spec.setHeadSnapshot(key.headSnapshot());
+        spec.setBaseSnapshot(key.baseSnapshot());
+        spec.setHeadVersion(key.headVersion());
+        spec.setBaseVersion(key.baseVersion());
+        spec.setFullUrls(new ArrayList<>(result.fullUrls()));
+        spec.setRelativePaths(new ArrayList<>(result.relativePaths()));
+        spec.setExtractedAt(Instant.now());
+
+        String name = key.name();
+        ContentUrlCache cache = current.get(name);
+        if (cache == null) {
+            cache = new ContentUrlCache();
+            cache.setMetadata(new Metadata());
+            cache.getMetadata().setName(name);
+        }
+        cache.setSpec(spec);
+        pending.put(name, cache);
+    }
+
+    /**
+     * 写入本次新提取的结果，删除已扫描内容类型中未再出现的内容的记录
+     * 写入失败不影响扫描结果，下次扫描重新提取
+     *
+     * @param scannedTypes 本次完整扫描过的内容类型（从检查点继续时跳过的类型不清理）
+     */
+    Mono<Void> flush(Set<String> scannedTypes) {
+        Map<String, ContentUrlCache> current = entries;
+        if (current == null) {
+            return Mono.empty();
+        }
+        Mono<Void> save = writeBatcher.writeAll("保存 URL 提取缓存",
+                Flux.fromIterable(pending.values()), this::save)
+            .then();
+        Mono<Void> prune = writeBatcher.deleteAll("删除过期的 URL 提取缓存",
+                Flux.fromIterable(current.values())
+                    .filter(cache -> cache.getSpec() == null
+                        || scannedTypes.contains(cache.getSpec().getSourceType()))
+                    .filter(cache -> !touched.contains(cache.getMetadata().getName())))
+            .then();
+        return save.then(prune)
+            .onErrorResume(e -> {
+                log.warn("保存 URL 提取缓存失败: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * 扫描结束，释放内存中的记录
+     */
+    void close() {
+        entries = null;
+        pending.clear();
+        touched.clear();
+    }
+
+    /**
+     * 删除全部缓存记录（清空引用扫描记录时使用）
+     */
+    Mono<Void> deleteAll() {
+        return writeBatcher.deleteAll("删除 URL 提取缓存",
+                client.listAll(ContentUrlCache.class, ListOptions.builder().build(), Sort.unsorted()))
+            .then();
+    }
+
+    /**
+     * 保存记录（已有记录则原地更新，版本冲突时基于最新版本更新）
+     */
+    private Mono<ContentUrlCache> save(ContentUrlCache cache) {
+        if (cache.getMetadata().getVersion() == null) {
+            return client.create(cache);
+        }
+        ContentUrlCache.ContentUrlCacheSpec spec = cache.getSpec();
+        return client.update(cache)
+            .onErrorResume(ExtensionWriteBatcher::isOptimisticLockConflict,
+                e -> client.fetch(ContentUrlCache.class, cache.getMetadata().getName())
+                    .flatMap(latest -> {
+                        latest.setSpec(spec);
+                        return client.update(latest);
+                    }));
+    }
+
+    /**
+     * 缓存键：内容和提取时使用的快照
+     *
+     * @param sourceType   内容类型
+     * @param sourceName   内容名称
+     * @param headSnapshot head 快照名称
+     * @param baseSnapshot base 快照名称
+     * @param headVersion  head 快照版本号
+     * @param baseVersion  base 快照版本号
+     */
+    record Key(String sourceType, String sourceName, String headSnapshot, String baseSnapshot,
+               Long headVersion, Long baseVersion) {
+
+        static Key of(String sourceType, String sourceName, Snapshot head, Snapshot base) {
+            return new Key(sourceType, sourceName,
+                head.getMetadata().getName(), base.getMetadata().getName(),
+                head.getMetadata().getVersion(), base.getMetadata().getVersion());
+        }
+
+        String name() {
+            return ContentUrlCache.nameOf(sourceType, sourceName);
+        }
+
+        boolean matches(ContentUrlCache.ContentUrlCacheSpec spec) {
+            // 版本号未知时无法判断快照是否变化，不使用缓存
+            return headVersion != null && baseVersion != null
+                && Objects.equals(headSnapshot, spec.getHeadSnapshot())
+                && Objects.equals(baseSnapshot, spec.getBaseSnapshot())
+                && Objects.equals(headVersion, spec.getHeadVersion())
+                && Objects.equals(baseVersion, spec.getBaseVersion());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.github.avifimageio.AvifWriteParam;
 import com.luciad.imageio.webp.WebPWriteParam;
 import com.timxs.storagetoolkit.model.ImageFormat;
 import com.timxs.storagetoolkit.service.FormatConverter;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -11,17 +12,22 @@ import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageWriterSpi;
 import javax.imageio.stream.ImageOutputStream;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 格式转换器实现
  * 使用 WebP ImageIO 库实现图片格式转换
+ * 按格式复用 ImageWriter 实例，避免每次转换都查找 SPI 并初始化 native 编码器
  */
 @Slf4j
 @Service
@@ -36,6 +42,17 @@ public class FormatConverterImpl implements FormatConverter {
         ImageFormat.AVIF
     );
 
+    /**
+     * 每种格式最多保留的空闲 writer 数（与图片处理并发数上限一致）
+     * 空闲实例数实际不会超过同时进行的转换数，即配置的并发数
+     */
+    private static final int MAX_POOLED_WRITERS = 10;
+
+    /**
+     * 各格式的 writer 池
+     */
+    private final Map<ImageFormat, ImageWriterPool> writerPools = new ConcurrentHashMap<>();
+
     /**
      * 转换图片格式
      * 将 BufferedImage 转换为指定格式的字节数组
@@ -51,6 +68,22 @@ public class FormatConverterImpl implements FormatConverter {
      */
     @Override
     public byte[] convert(BufferedImage image, ImageFormat targetFormat, int quality, int effort) {
+        return convert(image, targetFormat, quality, effort, false);
+    }
+
+    /**
+     * 转换图片格式，可选保留透明通道
+     *
+     * @param image         BufferedImage 对象
+     * @param targetFormat  目标格式（不能是 ORIGINAL）
+     * @param quality       输出质量（0-100）
+     * @param effort        压缩等级（WebP: 0-6, AVIF: 0-10）
+     * @param preserveAlpha 是否保留透明通道（WebP/AVIF 均支持 Alpha）
+     * @return 转换后的字节数组
+     */
+    @Override
+    public byte[] convert(BufferedImage image, ImageFormat targetFormat, int quality, int effort,
+                          boolean preserveAlpha) {
         // 参数校验
         if (image == null) {
             throw new IllegalArgumentException("Image cannot be null");
@@ -65,8 +98,10 @@ public class FormatConverterImpl implements FormatConverter {
         log.debug("开始格式转换，输入图片尺寸: {}x{}, 类型: {}, 目标格式: {}, 质量: {}, 压缩等级: {}", 
             image.getWidth(), image.getHeight(), image.getType(), targetFormat, quality, effort);
 
-        // 统一转换为 RGB 格式（去除 Alpha 通道），这是最主流的做法
-        BufferedImage rgbImage = convertToRGB(image);
+        // 准备编码输入：需要保留透明通道时使用 ARGB，否则使用不透明 RGB（已是 RGB 栅格时不复制）
+        BufferedImage rgbImage = preserveAlpha && image.getColorModel().hasAlpha()
+            ? RasterUtils.toArgb(image)
+            : convertToRGB(image);
 
         // 保存当前线程的类加载器，用于后续恢复
         ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
@@ -74,30 +109,12 @@ public class FormatConverterImpl implements FormatConverter {
             // 设置插件类加载器，确保 ImageIO 能找到 WebP 的 SPI
             Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
 
-            // 诊断：列出所有可用的 ImageWriter 格式
-            String[] writerFormats = ImageIO.getWriterFormatNames();
-            log.debug("可用的 ImageWriter 格式: {}", String.join(", ", writerFormats));
-
-            // 诊断：检查 WebP writer 是否可用
-            Iterator<ImageWriter> webpWriters = ImageIO.getImageWritersByFormatName("webp");
-            if (webpWriters.hasNext()) {
-                ImageWriter webpWriter = webpWriters.next();
-                log.debug("WebP ImageWriter 可用: {}", webpWriter.getClass().getName());
-            } else {
-                log.warn("WebP ImageWriter 不可用！检查 native 库是否加载成功，系统架构: {} {}",
-                    System.getProperty("os.name"), System.getProperty("os.arch"));
-            }
-
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            String formatName = targetFormat.getExtension();
 
-            // 获取对应格式的 ImageWriter
-            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
-            if (!writers.hasNext()) {
-                throw new RuntimeException("No appropriate writer found for format: " + targetFormat);
-            }
-            
-            ImageWriter writer = writers.next();
+            // 从对象池获取对应格式的 ImageWriter
+            ImageWriterPool pool = getWriterPool(targetFormat);
+            ImageWriter writer = pool.borrow();
+            boolean healthy = false;
             try (ImageOutputStream ios = ImageIO.createImageOutputStream(outputStream)) {
                 writer.setOutput(ios);
                 
@@ -119,9 +136,12 @@ public class FormatConverterImpl implements FormatConverter {
                 
                 // 执行写入
                 writer.write(null, new IIOImage(rgbImage, null, null), param);
+                healthy = true;
             } finally {
-                writer.dispose();
+                pool.release(writer, healthy);
             }
+            log.debug("{} writer 池: 命中 {}, 未命中 {}, 空闲 {}",
+                targetFormat, pool.getHits(), pool.getMisses(), pool.getIdleCount());
             
             log.debug("Converted image to {} format with quality {}, size: {} KB", 
                 targetFormat, quality, String.format("%.2f", outputStream.size() / 1024.0));
@@ -136,30 +156,90 @@ public class FormatConverterImpl implements FormatConverter {
     }
 
     /**
-     * 将任意类型的 BufferedImage 转换为 TYPE_INT_RGB
-     * 这是处理带 Alpha 通道图片的标准做法，WebP 等格式需要 RGB 输入
+     * 获取指定格式的 writer 池
+     * writer SPI 只在首次使用时从 IIORegistry 解析一次（此时插件已完成 SPI 注册），
+     * 之后的转换不再扫描注册表；未找到时不缓存，以便 SPI 稍后注册成功后仍可使用
+     *
+     * @param targetFormat 目标格式
+     * @return writer 池
+     */
+    private ImageWriterPool getWriterPool(ImageFormat targetFormat) {
+        ImageWriterPool pool = writerPools.get(targetFormat);
+        if (pool != null) {
+            return pool;
+        }
+        synchronized (writerPools) {
+            pool = writerPools.get(targetFormat);
+            if (pool == null) {
+                ImageWriterSpi spi = findWriterSpi(targetFormat.getExtension());
+                if (spi == null) {
+                    log.warn("{} ImageWriter 不可用！检查 native 库是否加载成功，系统架构: {} {}",
+                        targetFormat, System.getProperty("os.name"), System.getProperty("os.arch"));
+                    throw new RuntimeException("No appropriate writer found for format: " + targetFormat);
+                }
+                log.debug("{} ImageWriter 已解析: {}", targetFormat, spi.getClass().getName());
+                pool = new ImageWriterPool(spi, MAX_POOLED_WRITERS);
+                writerPools.put(targetFormat, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * 从 IIORegistry 查找支持指定格式的 writer SPI
+     */
+    private ImageWriterSpi findWriterSpi(String formatName) {
+        Iterator<ImageWriterSpi> providers = IIORegistry.getDefaultInstance()
+            .getServiceProviders(ImageWriterSpi.class, true);
+        while (providers.hasNext()) {
+            ImageWriterSpi spi = providers.next();
+            for (String name : spi.getFormatNames()) {
+                if (name.equalsIgnoreCase(formatName)) {
+                    return spi;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取各格式 writer 池的命中统计
+     *
+     * @return 统计列表
+     */
+    @Override
+    public List<WriterPoolStats> getWriterPoolStats() {
+        return writerPools.entrySet().stream()
+            .map(entry -> new WriterPoolStats(entry.getKey(), entry.getValue().getHits(),
+                entry.getValue().getMisses(), entry.getValue().getIdleCount()))
+            .toList();
+    }
+
+    /**
+     * 插件停止时释放池中 writer 的 native 资源
+     */
+    @PreDestroy
+    public void destroy() {
+        writerPools.values().forEach(ImageWriterPool::close);
+        writerPools.clear();
+    }
+
+    /**
+     * 将图片转换为编码器可用的不透明 RGB 格式
+     * JPEG 等解码得到的 TYPE_3BYTE_BGR/TYPE_INT_RGB 栅格直接交给编码器；
+     * 带 Alpha 的图片单次遍历像素数组与白色背景混合，不再经过 Graphics2D 整帧重绘
      *
      * @param src 源图片
      * @return RGB 格式的图片
      */
     private BufferedImage convertToRGB(BufferedImage src) {
-        // 如果已经是 RGB 格式，直接返回
-        if (src.getType() == BufferedImage.TYPE_INT_RGB) {
-            log.debug("图片已经是 RGB 格式，无需转换");
+        if (RasterUtils.isOpaqueRgb(src)) {
+            log.debug("图片已经是不透明 RGB 格式（类型 {}），无需转换", src.getType());
             return src;
         }
         
         log.debug("将图片从类型 {} 转换为 RGB", src.getType());
-        // 创建新的 RGB 图片
-        BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = rgb.createGraphics();
-        // 白色背景填充透明区域
-        g.setColor(Color.WHITE);
-        g.fillRect(0, 0, src.getWidth(), src.getHeight());
-        // 直接绘制源图像，Java 2D 会自动处理 Alpha 合成
-        g.drawImage(src, 0, 0, null);
-        g.dispose();
-        return rgb;
+        return RasterUtils.flattenToRgb(src);
     }
 
     /**
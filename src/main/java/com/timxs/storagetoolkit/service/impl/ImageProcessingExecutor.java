@@ -0,0 +1,312 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.config.ProcessingConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 图片处理执行器
+ * 专用的 CPU 密集型线程池，线程数不超过 CPU 核数，按提交顺序（FIFO）执行。
+ * 排队数量有上限，排队超时或队列已满时拒绝任务，由调用方直接上传原图。
+ * 上传内容在读取前先预留名额，名额已满的上传不再缓冲，直接上传原图。
+ * 并发数随配置实时调整，不会阻塞 Reactor 线程，也不存在许可泄漏
+ */
+@Slf4j
+@Component
+public class ImageProcessingExecutor {
+
+    /**
+     * 最大并发数上限（与设置项上限一致）
+     */
+    private static final int MAX_CONCURRENCY = 10;
+
+    /**
+     * CPU 核数
+     */
+    private static final int CPU_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 工作线程池
+     * 队列本身不设上限，排队数量由 queuedCount 控制，便于实时调整队列容量
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 当前排队中的任务数
+     */
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    /**
+     * 已预留名额的上传数（缓冲、排队或处理中）
+     */
+    private final AtomicInteger admittedCount = new AtomicInteger();
+
+    /**
+     * 已执行任务数
+     */
+    private final AtomicLong completedCount = new AtomicLong();
+
+    /**
+     * 被拒绝的任务数（队列已满或排队超时）
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * 累计排队等待时间（纳秒）
+     */
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    /**
+     * 最长排队等待时间（纳秒）
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ImageProcessingExecutor() {
+        int threads = effectiveConcurrency(new ProcessingConfig().getImageProcessingConcurrency());
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new ProcessingThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 在处理线程池中执行任务
+     * 队列已满、排队超时时返回 RejectedExecutionException；取消订阅时未开始的任务会从队列移除
+     *
+     * @param task   处理任务
+     * @param config 处理配置（并发数、队列容量、排队超时）
+     * @return 任务结果（异步）
+     */
+    public <T> Mono<T> execute(Callable<T> task, ProcessingConfig config) {
+        return Mono.create(sink -> {
+            resize(config);
+
+            int queueCapacity = Math.max(0, config.getProcessingQueueCapacity());
+            if (queuedCount.incrementAndGet() > queueCapacity + idleWorkers()) {
+                queuedCount.decrementAndGet();
+                rejectedCount.incrementAndGet();
+                sink.error(new RejectedExecutionException("图片处理队列已满（容量 " + queueCapacity + "）"));
+                return;
+            }
+
+            long enqueuedAt = System.nanoTime();
+            AtomicReference<TaskState> state = new AtomicReference<>(TaskState.QUEUED);
+            Future<?> future = executor.submit(() -> {
+                if (!state.compareAndSet(TaskState.QUEUED, TaskState.RUNNING)) {
+                    return;
+                }
+                queuedCount.decrementAndGet();
+                recordWait(System.nanoTime() - enqueuedAt);
+                try {
+                    sink.success(task.call());
+                } catch (Throwable t) {
+                    sink.error(t);
+                } finally {
+                    completedCount.incrementAndGet();
+                }
+            });
+
+            // 排队超时：任务仍未开始则从队列移除并拒绝
+            Disposable timeout = Disposables.disposed();
+            int queueTimeoutSeconds = config.getProcessingQueueTimeout();
+            if (queueTimeoutSeconds > 0) {
+                timeout = Schedulers.parallel().schedule(() -> {
+                    if (state.compareAndSet(TaskState.QUEUED, TaskState.CANCELLED)) {
+                        dequeue(future);
+                        rejectedCount.incrementAndGet();
+                        sink.error(new RejectedExecutionException(
+                            "图片处理排队超时（" + queueTimeoutSeconds + " 秒）"));
+                    }
+                }, queueTimeoutSeconds, TimeUnit.SECONDS);
+            }
+
+            Disposable timeoutTask = timeout;
+            sink.onDispose(timeoutTask::dispose);
+            sink.onCancel(() -> {
+                if (state.compareAndSet(TaskState.QUEUED, TaskState.CANCELLED)) {
+                    dequeue(future);
+                }
+            });
+        });
+    }
+
+    /**
+     * 读取上传内容之前预留处理名额
+     * 名额上限为并发数加队列容量，超出时直接拒绝，上传内容不会被缓冲到堆内存或临时文件；
+     * 缓冲的内容释放后调用 {@link Admission#release()} 归还名额
+     *
+     * @param config 处理配置（并发数、队列容量）
+     * @return 名额，已满时返回 null
+     */
+    public Admission tryAdmit(ProcessingConfig config) {
+        resize(config);
+        int limit = executor.getCorePoolSize() + Math.max(0, config.getProcessingQueueCapacity());
+        if (admittedCount.incrementAndGet() > limit) {
+            admittedCount.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            return null;
+        }
+        return new Admission();
+    }
+
+    /**
+     * 获取执行器运行状态
+     *
+     * @return 运行状态快照
+     */
+    public ExecutorStats getStats() {
+        long completed = completedCount.get();
+        long avgWaitMillis = completed > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / completed) : 0;
+        return new ExecutorStats(
+            executor.getCorePoolSize(),
+            executor.getActiveCount(),
+            queuedCount.get(),
+            admittedCount.get(),
+            completed,
+            rejectedCount.get(),
+            avgWaitMillis,
+            TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())
+        );
+    }
+
+    /**
+     * 插件停止时关闭线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 根据配置实时调整线程数
+     * 扩容时先调大最大线程数，缩容时先调小核心线程数，保证 core <= max；
+     * 正在执行的任务不受影响，多余的线程在任务完成后退出
+     */
+    private void resize(ProcessingConfig config) {
+        int target = effectiveConcurrency(config.getImageProcessingConcurrency());
+        if (target == executor.getCorePoolSize()) {
+            return;
+        }
+        synchronized (executor) {
+            int current = executor.getCorePoolSize();
+            if (target == current) {
+                return;
+            }
+            log.info("图片处理并发数配置变更: {} -> {}", current, target);
+            if (target > current) {
+                executor.setMaximumPoolSize(target);
+                executor.setCorePoolSize(target);
+            } else {
+                executor.setCorePoolSize(target);
+                executor.setMaximumPoolSize(target);
+            }
+        }
+    }
+
+    /**
+     * 计算实际线程数：限制在 1 到 CPU 核数（且不超过设置上限）之间
+     */
+    private static int effectiveConcurrency(int configured) {
+        int concurrency = Math.max(1, Math.min(configured, MAX_CONCURRENCY));
+        return Math.min(concurrency, CPU_COUNT);
+    }
+
+    /**
+     * 空闲工作线程数，提交后可以立即执行的任务不计入排队容量
+     */
+    private int idleWorkers() {
+        return Math.max(0, executor.getCorePoolSize() - executor.getActiveCount());
+    }
+
+    private void dequeue(Future<?> future) {
+        queuedCount.decrementAndGet();
+        future.cancel(false);
+        executor.purge();
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * 上传处理名额，重复释放只归还一次
+     */
+    public final class Admission {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission() {
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                admittedCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 任务状态，排队超时、取消与开始执行之间通过 CAS 互斥
+     */
+    private enum TaskState {
+        QUEUED,
+        RUNNING,
+        CANCELLED
+    }
+
+    /**
+     * 处理线程工厂，线程名便于在线程转储中识别
+     */
+    private static class ProcessingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "storage-toolkit-image-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * 执行器运行状态
+     *
+     * @param workers       当前线程数上限
+     * @param activeWorkers 正在处理的线程数
+     * @param queueDepth    排队中的任务数
+     * @param admitted      已预留名额的上传数（缓冲、排队或处理中）
+     * @param completed     已执行任务数
+     * @param rejected      被拒绝的任务数（队列已满或排队超时）
+     * @param avgWaitMillis 平均排队等待时间（毫秒）
+     * @param maxWaitMillis 最长排队等待时间（毫秒）
+     */
+    public record ExecutorStats(
+        int workers,
+        int activeWorkers,
+        int queueDepth,
+        int admitted,
+        long completed,
+        long rejected,
+        long avgWaitMillis,
+        long maxWaitMillis
+    ) {
+    }
+}
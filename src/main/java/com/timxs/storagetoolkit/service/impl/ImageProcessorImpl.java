@@ -2,8 +2,10 @@ package com.timxs.storagetoolkit.service.impl;
 
 import com.timxs.storagetoolkit.config.ImageWatermarkConfig;
 import com.timxs.storagetoolkit.config.ProcessingConfig;
+import com.timxs.storagetoolkit.config.ResizeConfig;
 import com.timxs.storagetoolkit.config.TextWatermarkConfig;
 import com.timxs.storagetoolkit.config.WatermarkConfig;
+import com.timxs.storagetoolkit.model.ImageSource;
 import com.timxs.storagetoolkit.model.ProcessingResult;
 import com.timxs.storagetoolkit.model.WatermarkType;
 import com.timxs.storagetoolkit.service.FormatConverter;
@@ -13,20 +15,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-import run.halo.app.infra.ExternalLinkProcessor;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 图片处理器实现
- * 支持水印添加和格式转换功能
- * 处理顺序：水印 -> 格式转换
+ * 支持尺寸限制、水印添加和格式转换功能
+ * 处理顺序：尺寸限制 -> 水印 -> 格式转换
  */
 @Slf4j
 @Service
@@ -44,37 +49,46 @@ public class ImageProcessorImpl implements ImageProcessor {
     private final FormatConverter formatConverter;
     
     /**
-     * 外部链接处理器，用于将相对路径转为完整 URL
+     * 水印图片缓存，避免每次处理都重新下载和解码水印图片
      */
-    private final ExternalLinkProcessor externalLinkProcessor;
+    private final WatermarkImageCache watermarkImageCache;
+    
+    /**
+     * 图片处理执行器，限制并发并在专用线程池中执行
+     */
+    private final ImageProcessingExecutor processingExecutor;
 
     /**
      * 处理图片
-     * 在独立线程池中执行，避免阻塞主线程
+     * 在专用的图片处理线程池中执行，避免阻塞主线程；
+     * 队列已满或排队超时时返回 SKIPPED，由调用方直接上传原图
      *
-     * @param imageData        原始图片数据
+     * @param source           原始图片来源
      * @param originalFilename 原始文件名
      * @param contentType      原始 MIME 类型
      * @param config           处理配置
      * @return 处理结果（异步）
      */
     @Override
-    public Mono<ProcessingResult> process(byte[] imageData, String originalFilename,
+    public Mono<ProcessingResult> process(ImageSource source, String originalFilename,
                                           String contentType, ProcessingConfig config) {
-        return Mono.fromCallable(() -> {
+        return processingExecutor.execute(() -> {
                 try {
-                    return doProcess(imageData, originalFilename, contentType, config);
+                    return doProcess(source, originalFilename, contentType, config);
                 } catch (Throwable t) {
                     // 捕获所有异常包括 Error（如 NoClassDefFoundError），确保不会阻塞上传流程
                     log.error("图片处理发生严重错误: {}", t.getMessage(), t);
-                    return ProcessingResult.failed(imageData, originalFilename, contentType, 
+                    return ProcessingResult.failed(source.data(), originalFilename, contentType, 
                         "处理错误: " + t.getClass().getSimpleName() + " - " + t.getMessage());
                 }
+            }, config)
+            .onErrorResume(RejectedExecutionException.class, e -> {
+                log.warn("图片处理繁忙，上传原图: {} - {}", originalFilename, e.getMessage());
+                return Mono.just(ProcessingResult.skipped(source.data(), originalFilename, contentType, e.getMessage()));
             })
-            .subscribeOn(Schedulers.boundedElastic())  // 在弹性线程池中执行
             .onErrorResume(e -> {
                 log.error("图片处理失败: {}", e.getMessage(), e);
-                return Mono.just(ProcessingResult.failed(imageData, originalFilename, contentType, e.getMessage()));
+                return Mono.just(ProcessingResult.failed(source.data(), originalFilename, contentType, e.getMessage()));
             });
     }
 
@@ -182,39 +196,84 @@ public class ImageProcessorImpl implements ImageProcessor {
 
     /**
      * 执行图片处理（同步方法）
-     * 处理顺序：水印 -> 格式转换
+     * 处理顺序：尺寸限制 -> 水印 -> 格式转换
      *
-     * @param imageData        原始图片数据
+     * @param source           原始图片来源
      * @param originalFilename 原始文件名
      * @param contentType      原始 MIME 类型
      * @param config           处理配置
      * @return 处理结果
      */
-    private ProcessingResult doProcess(byte[] imageData, String originalFilename,
+    private ProcessingResult doProcess(ImageSource source, String originalFilename,
                                        String contentType, ProcessingConfig config) {
+        // 磁盘缓冲时为 null，跳过/失败时由调用方直接使用原始上传内容
+        byte[] imageData = source.data();
+        long originalSize = source.size();
         // 保存当前线程的类加载器
         ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
         try {
             // 设置插件类加载器为上下文类加载器，确保 ImageIO 能找到 WebP 等格式的 SPI
             Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
             
-            // 读取图片
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageData));
+            // 解码前从文件头读取宽高，只解析头部不读取像素
+            Dimension dimension = probeDimensions(source);
+            if (dimension == null) {
+                return ProcessingResult.failed(imageData, originalFilename, contentType, "无法读取图片数据");
+            }
+
+            // 像素数超限：未启用尺寸限制时直接跳过（上传原图），启用时降采样解码
+            long pixels = (long) dimension.width * dimension.height;
+            long maxPixels = config.getMaxPixels();
+            if (maxPixels > 0 && pixels > maxPixels && !config.getResize().isEnabled()) {
+                log.debug("像素数超过限制，跳过处理: {} ({}x{})", originalFilename, dimension.width, dimension.height);
+                return ProcessingResult.skipped(imageData, originalFilename, contentType,
+                    String.format("图片像素数 %dx%d (%.1f MP) 超过限制 %.1f MP",
+                        dimension.width, dimension.height, pixels / 1_000_000.0, maxPixels / 1_000_000.0));
+            }
+
+            // 读取图片（磁盘缓冲时通过 FileImageInputStream 按需读取，超尺寸时子采样解码）
+            int subsampling = calculateSubsampling(dimension, config);
+            BufferedImage image = readImage(source, subsampling);
             if (image == null) {
                 return ProcessingResult.failed(imageData, originalFilename, contentType, "无法读取图片数据");
             }
 
+            // 子采样解码得到的已是缩小后的图片：像素数超限时解码尺寸可能已小于尺寸限制目标，
+            // 此时后面的缩放不会再执行，但图片同样已被缩小，不能再沿用原始数据
+            boolean subsampled = subsampling > 1;
+
             String currentFilename = originalFilename;
             String currentContentType = contentType;
-            boolean processed = false;
+            boolean processed = subsampled;
             StringBuilder errorMessages = new StringBuilder();
             
             // 新增：智能跳过相关变量
             boolean formatConversionSkipped = false;
             String skipReason = null;
             boolean watermarkApplied = false;
+            boolean resized = subsampled;
 
-            // 步骤1：添加水印
+            // 步骤1：尺寸限制
+            ResizeConfig resizeConfig = config.getResize();
+            if (resizeConfig.isEnabled()) {
+                try {
+                    double scale = resizeConfig.calculateScale(image.getWidth(), image.getHeight());
+                    if (scale < 1.0) {
+                        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+                        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+                        log.debug("尺寸限制: {}x{} -> {}x{}", image.getWidth(), image.getHeight(),
+                            targetWidth, targetHeight);
+                        image = RasterUtils.resize(image, targetWidth, targetHeight);
+                        processed = true;
+                        resized = true;
+                    }
+                } catch (Exception e) {
+                    log.warn("尺寸限制失败: {}", e.getMessage());
+                    errorMessages.append("尺寸限制失败: ").append(e.getMessage()).append("; ");
+                }
+            }
+
+            // 步骤2：添加水印
             WatermarkConfig watermarkConfig = config.getWatermark();
             if (watermarkConfig.isEnabled()) {
                 try {
@@ -228,7 +287,10 @@ public class ImageProcessorImpl implements ImageProcessor {
                 }
             }
 
-            // 步骤2：格式转换
+            // 像素是否被修改（缩放或水印），修改过则不能直接沿用原始数据
+            boolean imageModified = resized || watermarkApplied;
+
+            // 步骤3：格式转换
             byte[] resultData;
             if (config.getFormatConversion().isEnabled()) {
                 try {
@@ -238,10 +300,10 @@ public class ImageProcessorImpl implements ImageProcessor {
                         ? formatConfig.getAvifEffort() 
                         : formatConfig.getWebpEffort();
                     byte[] convertedData = formatConverter.convert(image, formatConfig.getTargetFormat(), 
-                        formatConfig.getOutputQuality(), effort);
+                        formatConfig.getOutputQuality(), effort, formatConfig.isPreserveAlpha());
                     
                     // 计算体积增加比例
-                    double increaseRatio = (double)(convertedData.length - imageData.length) / imageData.length * 100;
+                    double increaseRatio = (double)(convertedData.length - originalSize) / originalSize * 100;
                     int threshold = formatConfig.getSkipThreshold();
                     
                     // 智能跳过逻辑：比较转换后体积与原始上传体积，考虑容错比例
@@ -250,12 +312,12 @@ public class ImageProcessorImpl implements ImageProcessor {
                         log.debug("智能跳过格式转换: {} 体积 ({}) > 原始体积 ({})，增加 {}% 超过阈值 {}%", 
                             formatConfig.getTargetFormat(),
                             formatFileSize(convertedData.length), 
-                            formatFileSize(imageData.length),
+                            formatFileSize(originalSize),
                             String.format("%.1f", increaseRatio),
                             threshold);
                         
-                        // 如果有水印，需要重新编码为原格式；否则直接使用原始数据避免二次压缩损失
-                        if (watermarkApplied) {
+                        // 如果缩放或添加了水印，需要重新编码为原格式；否则直接使用原始数据避免二次压缩损失
+                        if (imageModified) {
                             resultData = imageToBytes(image, contentType);
                         } else {
                             resultData = imageData;
@@ -267,7 +329,7 @@ public class ImageProcessorImpl implements ImageProcessor {
                         skipReason = String.format("格式转换跳过: %s 体积 (%s) > 原始体积 (%s)，增加 %.1f%% 超过阈值 %d%%",
                             formatConfig.getTargetFormat(),
                             formatFileSize(convertedData.length),
-                            formatFileSize(imageData.length),
+                            formatFileSize(originalSize),
                             increaseRatio,
                             threshold);
                     } else {
@@ -279,9 +341,9 @@ public class ImageProcessorImpl implements ImageProcessor {
                         processed = true;
                         
                         // 记录压缩效果
-                        if (convertedData.length <= imageData.length) {
-                            if (convertedData.length < imageData.length) {
-                                double reduction = (1.0 - (double)convertedData.length / imageData.length) * 100;
+                        if (convertedData.length <= originalSize) {
+                            if (convertedData.length < originalSize) {
+                                double reduction = (1.0 - (double)convertedData.length / originalSize) * 100;
                                 log.debug("格式转换成功: {} -> {}, 体积减少 {}%", 
                                     originalFilename, currentFilename, String.format("%.1f", reduction));
                             } else {
@@ -299,7 +361,7 @@ public class ImageProcessorImpl implements ImageProcessor {
                         // 强制转换模式下体积增加的警告
                         if (!formatConfig.isSkipIfLarger() && increaseRatio > 0) {
                             log.warn("格式转换完成，但体积增加: {} → {} (+{}%)",
-                                formatFileSize(imageData.length),
+                                formatFileSize(originalSize),
                                 formatFileSize(convertedData.length),
                                 String.format("%.1f", increaseRatio));
                         }
@@ -326,19 +388,19 @@ public class ImageProcessorImpl implements ImageProcessor {
                 return ProcessingResult.skipped(imageData, originalFilename, contentType, "没有执行任何处理");
             }
             
-            // 智能跳过 + 无水印处理 + 有错误 → FAILED（水印失败+转换跳过的情况）
-            if (formatConversionSkipped && !watermarkApplied && errorMessages.length() > 0) {
+            // 智能跳过 + 无缩放/水印处理 + 有错误 → FAILED（水印失败+转换跳过的情况）
+            if (formatConversionSkipped && !imageModified && errorMessages.length() > 0) {
                 return ProcessingResult.failed(imageData, originalFilename, contentType, 
                     errorMessages.toString());
             }
             
             // 智能跳过 + 无其他处理 → SKIPPED，直接返回原始数据（避免重新编码）
-            if (formatConversionSkipped && !watermarkApplied) {
+            if (formatConversionSkipped && !imageModified) {
                 return ProcessingResult.skipped(imageData, originalFilename, contentType, skipReason);
             }
             
-            // 智能跳过 + 有水印 → PARTIAL，返回水印后的原格式数据
-            if (formatConversionSkipped && watermarkApplied) {
+            // 智能跳过 + 有缩放/水印 → PARTIAL，返回处理后的原格式数据
+            if (formatConversionSkipped && imageModified) {
                 return ProcessingResult.partial(resultData, currentFilename, currentContentType, skipReason);
             }
 
@@ -358,6 +420,95 @@ public class ImageProcessorImpl implements ImageProcessor {
         }
     }
 
+    /**
+     * 读取图片宽高
+     * 只解析文件头，不解码像素数据
+     *
+     * @param source 图片来源
+     * @return 图片宽高，无法识别格式时返回 null
+     * @throws IOException 读取失败时抛出
+     */
+    private Dimension probeDimensions(ImageSource source) throws IOException {
+        try (ImageInputStream input = source.openImageInputStream()) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 解码图片
+     * 内存数据使用 MemoryCacheImageInputStream，磁盘缓冲使用 FileImageInputStream，
+     * 均不会额外复制一份完整的原始数据
+     *
+     * @param source      图片来源
+     * @param subsampling 子采样因子（1 表示完整解码）
+     * @return 解码后的图片，无法识别格式时返回 null
+     * @throws IOException 读取失败时抛出
+     */
+    private BufferedImage readImage(ImageSource source, int subsampling) throws IOException {
+        try (ImageInputStream input = source.openImageInputStream()) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    log.debug("子采样解码: 采样因子 {}", subsampling);
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 计算子采样因子
+     * 尺寸限制只取目标缩小倍数的一半，为后续插值保留足够像素，避免直接抽样产生锯齿；
+     * 像素数超限时增大采样因子，保证解码后的像素数不超过限制
+     *
+     * @param dimension 原始宽高
+     * @param config    处理配置
+     * @return 子采样因子（1 表示不采样）
+     */
+    private int calculateSubsampling(Dimension dimension, ProcessingConfig config) {
+        int subsampling = 1;
+        double scale = config.getResize().calculateScale(dimension.width, dimension.height);
+        if (scale > 0 && scale < 1.0) {
+            subsampling = Math.max(1, (int) Math.floor(1.0 / scale / 2));
+        }
+
+        long maxPixels = config.getMaxPixels();
+        if (maxPixels > 0) {
+            while (subsampledPixels(dimension, subsampling) > maxPixels) {
+                subsampling++;
+            }
+        }
+        return subsampling;
+    }
+
+    /**
+     * 计算子采样后的像素数
+     */
+    private long subsampledPixels(Dimension dimension, int subsampling) {
+        long width = (dimension.width + subsampling - 1) / subsampling;
+        long height = (dimension.height + subsampling - 1) / subsampling;
+        return width * height;
+    }
+
     /**
      * 应用水印
      * 根据配置类型选择文字水印或图片水印
@@ -391,63 +542,17 @@ public class ImageProcessorImpl implements ImageProcessor {
             log.debug("图片水印配置 - URL: '{}', 缩放: {}, 位置: {}, 透明度: {}",
                 imageConfig.imageUrl(), imageConfig.scale(), 
                 imageConfig.position(), imageConfig.opacity());
-            BufferedImage watermarkImage = loadWatermarkImageFromUrl(config.getImageUrl());
+            // 从缓存获取已缩放到目标宽度的水印图片
+            int targetWidth = (int) (image.getWidth() * imageConfig.scale());
+            BufferedImage watermarkImage = watermarkImageCache.getScaled(config.getImageUrl(), targetWidth);
             if (watermarkImage == null) {
                 throw new IllegalStateException("无法加载水印图片: " + config.getImageUrl());
             }
-            log.debug("水印图片加载成功，尺寸: {}x{}", watermarkImage.getWidth(), watermarkImage.getHeight());
+            log.debug("水印图片就绪，尺寸: {}x{}", watermarkImage.getWidth(), watermarkImage.getHeight());
             return watermarkService.addImageWatermark(image, imageConfig, watermarkImage);
         }
     }
 
-    /**
-     * 从URL加载水印图片
-     * 支持相对路径（Halo 附件）和完整 HTTP URL
-     * 注意：不支持 WebP 格式的水印图片，请使用 PNG 或 JPEG
-     *
-     * @param imageUrl 图片URL
-     * @return 水印图片，加载失败返回 null
-     */
-    private BufferedImage loadWatermarkImageFromUrl(String imageUrl) {
-        if (imageUrl == null || imageUrl.isBlank()) {
-            log.warn("水印图片 URL 为空");
-            return null;
-        }
-
-        // 使用 ExternalLinkProcessor 处理链接，自动将相对路径转为完整 URL
-        String fullUrl = externalLinkProcessor.processLink(imageUrl);
-        log.debug("水印图片地址: {} -> {}", imageUrl, fullUrl);
-
-        java.net.HttpURLConnection conn = null;
-        try {
-            java.net.URL url = java.net.URI.create(fullUrl).toURL();
-            conn = (java.net.HttpURLConnection) url.openConnection();
-            conn.setConnectTimeout(15000);  // 连接超时 15 秒
-            conn.setReadTimeout(20000);     // 读取超时 20 秒
-            conn.setRequestMethod("GET");
-            
-            try (java.io.InputStream is = conn.getInputStream()) {
-                BufferedImage img = ImageIO.read(is);
-                if (img != null) {
-                    log.debug("水印图片加载成功: {}x{}, 类型: {}", img.getWidth(), img.getHeight(), img.getType());
-                } else {
-                    log.error("水印图片加载失败，ImageIO 返回 null。URL: {}", fullUrl);
-                }
-                return img;
-            }
-        } catch (java.net.SocketTimeoutException e) {
-            log.error("加载水印图片超时: {} - {}", fullUrl, e.getMessage());
-            return null;
-        } catch (Exception e) {
-            log.error("从URL加载水印图片失败: {} - {}", fullUrl, e.getMessage());
-            return null;
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
-            }
-        }
-    }
-
     /**
      * 将 BufferedImage 转换为字节数组
      * 注意：JPEG 不支持 Alpha 通道，需要先转换为 RGB
@@ -461,15 +566,11 @@ public class ImageProcessorImpl implements ImageProcessor {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         String formatName = getFormatName(contentType);
         
-        // JPEG 不支持 Alpha 通道，需要转换为 RGB
+        // JPEG 不支持 Alpha 通道，需要转换为 RGB；不透明图片直接写入现有栅格
         BufferedImage imageToWrite = image;
-        if (("jpg".equals(formatName) || "jpeg".equals(formatName)) && 
-            (image.getType() == BufferedImage.TYPE_INT_ARGB || 
-             image.getType() == BufferedImage.TYPE_INT_ARGB_PRE ||
-             image.getType() == BufferedImage.TYPE_4BYTE_ABGR ||
-             image.getType() == BufferedImage.TYPE_4BYTE_ABGR_PRE)) {
+        if (("jpg".equals(formatName) || "jpeg".equals(formatName)) && image.getColorModel().hasAlpha()) {
             log.debug("JPEG 格式不支持 Alpha 通道，转换为 RGB");
-            imageToWrite = convertToRGB(image);
+            imageToWrite = RasterUtils.flattenToRgb(image);
         }
         
         boolean success = ImageIO.write(imageToWrite, formatName, outputStream);
@@ -479,24 +580,6 @@ public class ImageProcessorImpl implements ImageProcessor {
         return outputStream.toByteArray();
     }
     
-    /**
-     * 将带 Alpha 通道的图片转换为 RGB
-     * 透明区域填充为白色
-     *
-     * @param src 源图片
-     * @return RGB 格式的图片
-     */
-    private BufferedImage convertToRGB(BufferedImage src) {
-        BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
-        java.awt.Graphics2D g = rgb.createGraphics();
-        // 白色背景填充透明区域
-        g.setColor(java.awt.Color.WHITE);
-        g.fillRect(0, 0, src.getWidth(), src.getHeight());
-        g.drawImage(src, 0, 0, null);
-        g.dispose();
-        return rgb;
-    }
-
     /**
      * 从 MIME 类型获取格式名称
      * 用于 ImageIO.write() 方法
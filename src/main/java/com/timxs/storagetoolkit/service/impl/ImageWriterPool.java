@@ -0,0 +1,103 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单一格式的 ImageWriter 对象池
+ * WebP/AVIF 的 ImageWriter 创建时会初始化 native 编码上下文，复用实例可省去每次上传的查找和初始化开销
+ * 空闲实例数不会超过同时进行的转换数（受图片处理并发数限制），并以 capacity 为上限
+ */
+@Slf4j
+class ImageWriterPool {
+
+    /**
+     * 创建 writer 实例的 SPI（只在首次使用时解析一次）
+     */
+    private final ImageWriterSpi spi;
+
+    /**
+     * 空闲 writer 队列
+     */
+    private final BlockingQueue<ImageWriter> idleWriters;
+
+    /**
+     * 命中次数（复用空闲实例）
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * 未命中次数（新建实例）
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    ImageWriterPool(ImageWriterSpi spi, int capacity) {
+        this.spi = spi;
+        this.idleWriters = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * 借出一个 writer，没有空闲实例时新建
+     *
+     * @return ImageWriter 实例
+     * @throws IOException 创建失败时抛出
+     */
+    ImageWriter borrow() throws IOException {
+        ImageWriter writer = idleWriters.poll();
+        if (writer != null) {
+            hits.incrementAndGet();
+            return writer;
+        }
+        misses.incrementAndGet();
+        return spi.createWriterInstance();
+    }
+
+    /**
+     * 归还 writer
+     * 正常使用后 reset() 清理输出和监听器再放回池中；写入失败的实例状态不可信，直接销毁
+     *
+     * @param writer  借出的 writer
+     * @param healthy 本次使用是否正常完成
+     */
+    void release(ImageWriter writer, boolean healthy) {
+        if (healthy) {
+            try {
+                writer.reset();
+                if (idleWriters.offer(writer)) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.debug("ImageWriter reset 失败，直接销毁: {}", e.getMessage());
+            }
+        }
+        writer.dispose();
+    }
+
+    /**
+     * 销毁所有空闲 writer，释放 native 资源
+     */
+    void close() {
+        ImageWriter writer;
+        while ((writer = idleWriters.poll()) != null) {
+            writer.dispose();
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    int getIdleCount() {
+        return idleWriters.size();
+    }
+}
@@ -0,0 +1,134 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * MurmurHash3 x64 128 位流式实现（默认 seed = 0）
+ * 输出与 Guava Hashing.murmur3_128() 一致：h1、h2 依次以小端序写出
+ */
+final class Murmur3Hash128 implements ContentDigest {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private long length;
+
+    /**
+     * 不足 16 字节的剩余数据，跨 update 调用保留
+     */
+    private final ByteBuffer tail = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+
+    Murmur3Hash128() {
+        this(0);
+    }
+
+    /**
+     * @param seed 种子（按无符号 32 位整数处理，与参考实现一致；SMHasher 校验值需要非零种子）
+     */
+    Murmur3Hash128(int seed) {
+        h1 = Integer.toUnsignedLong(seed);
+        h2 = h1;
+    }
+
+    @Override
+    public void update(ByteBuffer input) {
+        ByteBuffer in = input.slice().order(ByteOrder.LITTLE_ENDIAN);
+        input.position(input.limit());
+        length += in.remaining();
+
+        if (tail.position() > 0) {
+            while (tail.hasRemaining() && in.hasRemaining()) {
+                tail.put(in.get());
+            }
+            if (tail.hasRemaining()) {
+                return;
+            }
+            tail.flip();
+            mixBlock(tail.getLong(), tail.getLong());
+            tail.clear();
+        }
+
+        while (in.remaining() >= 16) {
+            mixBlock(in.getLong(), in.getLong());
+        }
+        while (in.hasRemaining()) {
+            tail.put(in.get());
+        }
+    }
+
+    @Override
+    public void update(byte[] input, int offset, int length) {
+        update(ByteBuffer.wrap(input, offset, length));
+    }
+
+    @Override
+    public byte[] digest() {
+        int remaining = tail.position();
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = remaining - 1; i >= 8; i--) {
+            k2 ^= (long) (tail.get(i) & 0xFF) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+            k1 ^= (long) (tail.get(i) & 0xFF) << (i * 8);
+        }
+        if (remaining > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+            .putLong(h1)
+            .putLong(h2)
+            .array();
+    }
+
+    private void mixBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
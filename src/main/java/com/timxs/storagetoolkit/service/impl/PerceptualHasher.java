@@ -0,0 +1,157 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import run.halo.app.core.extension.attachment.Attachment;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 图片感知哈希计算（dHash）
+ * 缩小到 9x8 灰度图后比较每行相邻像素的亮度得到 64 位哈希，
+ * 对格式转换、重新压缩和等比缩放不敏感，汉明距离越小图片越相似。
+ * 解码时按短边子采样到约 64 像素，大图也只解码很少的像素
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PerceptualHasher {
+
+    /**
+     * dHash 宽度（比高度多一列用于相邻比较）
+     */
+    private static final int HASH_WIDTH = 9;
+
+    /**
+     * dHash 高度
+     */
+    private static final int HASH_HEIGHT = 8;
+
+    /**
+     * 子采样解码后短边的最小像素数，为缩放保留足够细节
+     */
+    private static final int MIN_DECODED_SIDE = 64;
+
+    /**
+     * 没有任何相邻像素变暗时的哈希（纯色、空白图片，或每行都从左到右变亮的图片）
+     * 大量内容不同的图片都会得到这个值，不能用来判断相似
+     */
+    static final long FLAT_HASH = 0L;
+
+    /**
+     * 可参与相似判断的哈希置位数范围
+     * 接近纯色的图片（白底小图标、扫描件）或整体渐变的图片只有极少数位与全 0 / 全 1 不同，
+     * 彼此之间的汉明距离都很小，同样不能用来判断相似
+     */
+    static final int MIN_DISTINCT_BITS = 8;
+    static final int MAX_DISTINCT_BITS = 56;
+
+    private final AttachmentHasher attachmentHasher;
+
+    /**
+     * 计算图片附件的 dHash
+     * 只处理能解析出本地路径的附件
+     *
+     * @param attachment 图片附件
+     * @return 64 位 dHash，无本地文件或无法解码时返回 empty
+     */
+    public Mono<Long> dHash(Attachment attachment) {
+        return Mono.fromCallable(() -> {
+            Path localFile = attachmentHasher.resolveLocalFile(attachment);
+            if (localFile == null) {
+                return null;
+            }
+            BufferedImage image = readSubsampled(localFile);
+            if (image == null) {
+                log.debug("附件 {} 无法解码为图片，跳过感知哈希", attachment.getMetadata().getName());
+                return null;
+            }
+            return dHash(image);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 计算图片的 dHash
+     *
+     * @param image 图片
+     * @return 64 位 dHash
+     */
+    static long dHash(BufferedImage image) {
+        BufferedImage small = RasterUtils.resize(RasterUtils.toOpaqueRgb(image), HASH_WIDTH, HASH_HEIGHT);
+        int[] luma = new int[HASH_WIDTH * HASH_HEIGHT];
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH; x++) {
+                int rgb = small.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                luma[y * HASH_WIDTH + x] = (299 * r + 587 * g + 114 * b) / 1000;
+            }
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                hash <<= 1;
+                if (luma[y * HASH_WIDTH + x] > luma[y * HASH_WIDTH + x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 哈希是否包含足够的亮度变化信息，可以参与相似图片聚类
+     *
+     * @param hash 64 位 dHash
+     * @return 置位数在 [{@link #MIN_DISTINCT_BITS}, {@link #MAX_DISTINCT_BITS}] 内时返回 true
+     */
+    static boolean isDistinctive(long hash) {
+        int bitCount = Long.bitCount(hash);
+        return bitCount >= MIN_DISTINCT_BITS && bitCount <= MAX_DISTINCT_BITS;
+    }
+
+    /**
+     * 子采样解码本地图片
+     * 使用插件类加载器作为上下文类加载器，确保 ImageIO 能找到 WebP 等格式的 SPI
+     */
+    private BufferedImage readSubsampled(Path file) throws IOException {
+        ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
+            try (ImageInputStream input = new FileImageInputStream(file.toFile())) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (!readers.hasNext()) {
+                    return null;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    int shortSide = Math.min(reader.getWidth(0), reader.getHeight(0));
+                    int subsampling = Math.max(1, shortSide / MIN_DECODED_SIDE);
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    if (subsampling > 1) {
+                        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    }
+                    return reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalClassLoader);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.extension.AttachmentReference;
+import com.timxs.storagetoolkit.service.ContentScanner;
+import org.springframework.util.StringUtils;
+import run.halo.app.core.extension.attachment.Attachment;
+import run.halo.app.infra.ExternalLinkProcessor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 附件链接匹配器（引用扫描的"按附件链接匹配"模式）
+ * 用全部附件 permalink 的解码和编码形式构建 Aho-Corasick 自动机，
+ * 内容只扫描一次，只记录命中的附件链接，不再提取站点中的全部 URL。
+ * 命中记录的键与 URL 提取模式一致（完整 URL / 相对路径），后续匹配和检查点逻辑不变
+ */
+final class PermalinkMatcher {
+
+    private final AhoCorasick<Target> automaton;
+
+    private PermalinkMatcher(AhoCorasick<Target> automaton) {
+        this.automaton = automaton;
+    }
+
+    /**
+     * 根据附件 permalink 构建匹配器
+     * 完整 URL 形式的 permalink 同时匹配其路径部分；相对路径形式的 permalink 同时匹配拼接后的完整 URL
+     *
+     * @param attachments           附件
+     * @param contentScanner        内容扫描器（URL 类型判断和路径提取）
+     * @param externalLinkProcessor 外部链接处理器（相对路径拼接站点地址）
+     * @param decoder               URL 解码
+     * @return 匹配器
+     */
+    static PermalinkMatcher build(List<Attachment> attachments, ContentScanner contentScanner,
+                                  ExternalLinkProcessor externalLinkProcessor, UnaryOperator<String> decoder) {
+        AhoCorasick.Builder<Target> builder = AhoCorasick.builder();
+        for (Attachment attachment : attachments) {
+            String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
+            if (!StringUtils.hasText(permalink)) {
+                continue;
+            }
+            String decoded = decoder.apply(permalink);
+            if (contentScanner.isFullUrl(decoded)) {
+                Target fullUrl = new Target(decoded, true);
+                builder.add(decoded, fullUrl).add(permalink, fullUrl);
+                String path = contentScanner.extractPath(decoded);
+                if (path != null && path.startsWith("/")) {
+                    Target relative = new Target(path, false);
+                    builder.add(path, relative).add(rawPath(permalink), relative);
+                }
+            } else {
+                Target relative = new Target(decoded, false);
+                builder.add(decoded, relative).add(permalink, relative);
+                String fullPermalink = externalLinkProcessor.processLink(decoded);
+                if (contentScanner.isFullUrl(fullPermalink)) {
+                    builder.add(fullPermalink, new Target(fullPermalink, true));
+                }
+            }
+        }
+        return new PermalinkMatcher(builder.build());
+    }
+
+    /**
+     * 扫描内容，将命中的附件链接和引用源记录到对应的映射
+     *
+     * @param content              内容
+     * @param source               引用源
+     * @param fullUrlToSources     完整 URL -> 引用源
+     * @param relativePathToSources 相对路径 -> 引用源
+     */
+    void collect(String content, AttachmentReference.ReferenceSource source,
+                 Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                 Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        if (!StringUtils.hasText(content)) {
+            return;
+        }
+        automaton.scan(content, (start, end, target) -> {
+            // 链接后面不能紧跟路径字符（避免 a.png 命中 a.png.bak）
+            if (end < content.length() && isPathChar(content.charAt(end))) {
+                return;
+            }
+            // 相对路径前面不能是域名字符（排除其他站点完整 URL 中的同名路径）
+            if (!target.fullUrl() && start > 0 && isHostChar(content.charAt(start - 1))) {
+                return;
+            }
+            Map<String, Set<AttachmentReference.ReferenceSource>> urlToSources =
+                target.fullUrl() ? fullUrlToSources : relativePathToSources;
+            urlToSources.computeIfAbsent(target.key(), k -> ConcurrentHashMap.newKeySet()).add(source);
+        });
+    }
+
+    int stateCount() {
+        return automaton.size();
+    }
+
+    /**
+     * 完整 URL 中未解码的路径部分
+     */
+    private static String rawPath(String fullUrl) {
+        int schemeEnd = fullUrl.indexOf("://");
+        int pathStart = schemeEnd >= 0 ? fullUrl.indexOf('/', schemeEnd + 3) : -1;
+        if (pathStart < 0) {
+            return null;
+        }
+        int pathEnd = fullUrl.length();
+        for (int i = pathStart; i < fullUrl.length(); i++) {
+            char c = fullUrl.charAt(i);
+            if (c == '?' || c == '#') {
+                pathEnd = i;
+                break;
+            }
+        }
+        return fullUrl.substring(pathStart, pathEnd);
+    }
+
+    /**
+     * URL 路径中的字符（未编码的非 ASCII 字符不属于路径，如 /upload/a.png说明 中的说明）
+     */
+    private static boolean isPathChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '.' || c == '-' || c == '_' || c == '~' || c == '%' || c == '/' || c == '+';
+    }
+
+    private static boolean isHostChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
+    }
+
+    /**
+     * 命中目标
+     *
+     * @param key     记录到映射中的键（解码后的完整 URL 或相对路径）
+     * @param fullUrl 是否为完整 URL
+     */
+    private record Target(String key, boolean fullUrl) {
+    }
+}
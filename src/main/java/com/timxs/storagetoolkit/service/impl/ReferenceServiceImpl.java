@@ -4,17 +4,24 @@ import com.fasterxml.jackson.databind.JsonNode;
 import run.halo.app.infra.utils.JsonUtils;
 import run.halo.app.infra.ExternalLinkProcessor;
 import com.timxs.storagetoolkit.extension.AttachmentReference;
+import com.timxs.storagetoolkit.extension.ReferenceScanCheckpoint;
+import com.timxs.storagetoolkit.extension.ReferenceScanCheckpointBatch;
 import com.timxs.storagetoolkit.extension.ReferenceScanStatus;
+import com.timxs.storagetoolkit.model.ScanProgress;
 import com.timxs.storagetoolkit.service.ContentScanner;
 import com.timxs.storagetoolkit.service.ReferenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
 import run.halo.app.content.ContentWrapper;
-import run.halo.app.content.PostContentService;
 import run.halo.app.core.extension.content.Snapshot;
 import run.halo.app.core.extension.content.Comment;
 import run.halo.app.core.extension.content.Post;
@@ -26,6 +33,7 @@ import run.halo.app.core.extension.Plugin;
 import run.halo.app.core.extension.Theme;
 import run.halo.app.core.extension.Setting;
 import run.halo.app.extension.ConfigMap;
+import run.halo.app.extension.Extension;
 import run.halo.app.extension.GroupVersionKind;
 import run.halo.app.extension.ListOptions;
 import run.halo.app.extension.ListResult;
@@ -44,6 +52,8 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -57,9 +67,10 @@ public class ReferenceServiceImpl implements ReferenceService {
     private final ReactiveExtensionClient client;
     private final ContentScanner contentScanner;
     private final ReactiveSettingFetcher settingFetcher;
-    private final PostContentService postContentService;
     private final SchemeManager schemeManager;
     private final ExternalLinkProcessor externalLinkProcessor;
+    private final ExtensionWriteBatcher writeBatcher;
+    private final ExtractedUrlCache urlCache;
 
     private static final com.fasterxml.jackson.databind.ObjectMapper objectMapper = JsonUtils.mapper();
 
@@ -81,6 +92,57 @@ public class ReferenceServiceImpl implements ReferenceService {
      */
     private static final int DEFAULT_SCAN_TIMEOUT_MINUTES = 5;
 
+    /**
+     * 默认内容获取并发数
+     */
+    private static final int DEFAULT_REFERENCE_SCAN_CONCURRENCY = 4;
+
+    /**
+     * 单条内容获取快照的超时时间
+     * 超时的内容记录日志后跳过，不阻塞同类内容和后续内容类型的扫描
+     */
+    private static final Duration SNAPSHOT_FETCH_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * 检查点有效期，超过后内容可能已大量变化，重新完整扫描
+     */
+    private static final Duration CHECKPOINT_MAX_AGE = Duration.ofHours(24);
+
+    /**
+     * 大类内容每扫描多少条保存一次检查点
+     */
+    private static final int CHECKPOINT_BATCH_SIZE = 200;
+
+    /**
+     * 按名称升序，分批扫描的游标依赖这个顺序
+     */
+    private static final Sort BY_NAME = Sort.by(Sort.Order.asc("metadata.name"));
+
+    /**
+     * 使用 URL 提取缓存的扫描任务 -> 内容类型
+     */
+    private static final Map<String, String> URL_CACHED_TASK_TYPES =
+        Map.of("posts", "Post", "pages", "SinglePage", "docs", "Doc");
+
+    // 内存中的扫描进度（不持久化），通过 SSE 推送
+    private final ScanProgressTracker progress = new ScanProgressTracker();
+
+    /**
+     * 按附件链接匹配模式下本次扫描使用的匹配器，URL 提取模式下为 null
+     * 同一时间只有一个扫描在执行
+     */
+    private volatile PermalinkMatcher permalinkMatcher;
+
+    /**
+     * 增量更新使用的附件链接查找表，首次使用时构建，附件变更或全量扫描结束后重建
+     */
+    private volatile CachedPermalinkIndex permalinkIndex;
+
+    /**
+     * 查找表失效次数，构建期间附件发生变更时不缓存构建结果
+     */
+    private final AtomicLong permalinkIndexVersion = new AtomicLong();
+
     @Override
     public Mono<ReferenceScanStatus> startScan() {
         return getScanStatus()
@@ -91,38 +153,59 @@ public class ReferenceServiceImpl implements ReferenceService {
                     // 检查是否超时
                     return getScanTimeoutMinutes()
                         .flatMap(timeout -> {
-                            if (!isStuck(status.getStatus().getStartTime(), timeout)) {
+                            if (!isStuck(status.getStatus().lastActiveTime(), timeout)) {
                                 return Mono.error(new IllegalStateException("扫描正在进行中"));
                             }
                             // 超时，允许重新扫描
                             log.warn("上次扫描超时，允许重新触发");
-                            return doStartScan(status);
+                            return doStartScan(status, false);
                         });
                 }
-                return doStartScan(status);
+                return doStartScan(status, false);
+            });
+    }
+
+    @Override
+    public Mono<ReferenceScanStatus> resumeScan() {
+        return getScanStatus()
+            .filter(status -> status.getStatus() != null
+                && ReferenceScanStatus.Phase.SCANNING.equals(status.getStatus().getPhase()))
+            .flatMap(status -> {
+                log.info("继续被中断的引用扫描（第 {} 次）", status.getStatus().getResumeCount() + 1);
+                return doStartScan(status, true);
             });
     }
 
     /**
      * 执行扫描
+     *
+     * @param resume 是否为服务重启后继续被中断的扫描
      */
-    private Mono<ReferenceScanStatus> doStartScan(ReferenceScanStatus status) {
+    private Mono<ReferenceScanStatus> doStartScan(ReferenceScanStatus status, boolean resume) {
         // 更新状态为扫描中
         if (status.getStatus() == null) {
             status.setStatus(new ReferenceScanStatus.ReferenceScanStatusStatus());
         }
         status.getStatus().setPhase(ReferenceScanStatus.Phase.SCANNING);
         status.getStatus().setStartTime(Instant.now());
+        status.getStatus().setCheckpointTime(null);
+        status.getStatus().setResumeCount(resume ? status.getStatus().getResumeCount() + 1 : 0);
         status.getStatus().setErrorMessage(null);
 
         return client.update(status)
             .flatMap(updated -> {
+                progress.start(ReferenceScanStatus.Phase.SCANNING, "extracting");
                 // 异步执行扫描
                 performScan(updated)
                     .subscribe(
-                        result -> log.info("扫描完成: {}", result),
+                        result -> {
+                            log.info("扫描完成: {}", result);
+                            // 扫描过程的错误已写入状态，按最终状态结束进度
+                            progress.finish(result.getStatus().getPhase(), result.getStatus().getErrorMessage());
+                        },
                         error -> {
                             log.error("扫描失败", error);
+                            progress.finish(ReferenceScanStatus.Phase.ERROR, error.getMessage());
                             // 更新状态为错误，避免状态停留在 SCANNING
                             updateScanError(updated, error.getMessage()).subscribe();
                         }
@@ -133,6 +216,7 @@ public class ReferenceServiceImpl implements ReferenceService {
 
     /**
      * 执行实际的扫描逻辑
+     * 每完成一批或一类内容保存一次检查点，存在有效检查点时跳过已完成的内容类型和批次
      */
     private Mono<ReferenceScanStatus> performScan(ReferenceScanStatus status) {
         log.info("开始扫描附件引用...");
@@ -140,307 +224,801 @@ public class ReferenceServiceImpl implements ReferenceService {
         // 分开存储完整 URL 和相对路径的引用
         Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources = new ConcurrentHashMap<>();
         Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources = new ConcurrentHashMap<>();
-        
-        // 本次扫描的时间戳，用于生成唯一的记录名称
-        long scanTimestamp = System.currentTimeMillis();
-
-        // 先标记所有现有记录为待删除，然后提交删除
-        return markAllAsPendingDeleteAndDelete()
-            .then(getAnalysisSettings())
-            .flatMap(settings -> {
-                // 根据配置决定扫描哪些内容
-                List<Mono<Void>> scanTasks = new ArrayList<>();
-                
-                if (settings.scanPosts()) {
-                    scanTasks.add(scanPosts(fullUrlToSources, relativePathToSources));
-                }
-                if (settings.scanPages()) {
-                    scanTasks.add(scanSinglePages(fullUrlToSources, relativePathToSources));
-                }
-                if (settings.scanComments()) {
-                    scanTasks.add(scanComments(fullUrlToSources, relativePathToSources));
-                    scanTasks.add(scanReplies(fullUrlToSources, relativePathToSources));
-                }
-                if (settings.scanMoments()) {
-                    scanTasks.add(scanMoments(fullUrlToSources, relativePathToSources));
-                }
-                if (settings.scanPhotos()) {
-                    scanTasks.add(scanPhotos(fullUrlToSources, relativePathToSources));
-                }
-                if (settings.scanDocs()) {
-                    scanTasks.add(scanDocs(fullUrlToSources, relativePathToSources));
-                }
-                // 系统设置始终扫描
-                scanTasks.add(scanConfigMaps(fullUrlToSources, relativePathToSources));
-                // 用户头像始终扫描
-                scanTasks.add(scanUserAvatars(fullUrlToSources, relativePathToSources));
 
-                return Flux.merge(scanTasks).then();
-            })
-            .then(Mono.defer(() -> {
-                log.info("内容扫描完成，完整URL: {} 个, 相对路径: {} 个", 
+        Long activeGeneration = status.getStatus().getGeneration();
+
+        // 旧结果在扫描期间保持可见，只清理中断扫描遗留的记录
+        return deleteAbandonedReferences(activeGeneration)
+            .then(loadOrCreateCheckpoint(activeGeneration, status, fullUrlToSources, relativePathToSources))
+            .flatMap(checkpoint -> Mono.zip(getAnalysisSettings(), getReferenceScanConcurrency())
+                .flatMap(tuple -> preparePermalinkMatcher(tuple.getT1())
+                    // 按附件链接匹配时不提取全部 URL，不使用提取缓存
+                    .then(tuple.getT1().matchPermalinks() ? Mono.<Void>empty() : urlCache.open())
+                    .thenReturn(tuple))
+                .flatMap(tuple -> {
+                    AnalysisSettings settings = tuple.getT1();
+                    int concurrency = tuple.getT2();
+                    log.info("内容获取并发数: {}", concurrency);
+
+                    // 根据配置决定扫描哪些内容，任务名称用于检查点记录
+                    Map<String, Mono<Void>> scanTasks = new LinkedHashMap<>();
+
+                    // 文章、页面、评论等数量大的内容分批扫描，其余内容整类扫描
+                    if (settings.scanPosts()) {
+                        scanTasks.put("posts", scanPosts(concurrency, checkpoint));
+                    }
+                    if (settings.scanPages()) {
+                        scanTasks.put("pages", scanSinglePages(concurrency, checkpoint));
+                    }
+                    if (settings.scanComments()) {
+                        scanTasks.put("comments", scanComments(checkpoint));
+                        scanTasks.put("replies", scanReplies(checkpoint));
+                    }
+                    if (settings.scanMoments()) {
+                        scanTasks.put("moments", scanWhole(checkpoint, "moments", this::scanMoments));
+                    }
+                    if (settings.scanPhotos()) {
+                        scanTasks.put("photos", scanWhole(checkpoint, "photos", this::scanPhotos));
+                    }
+                    if (settings.scanDocs()) {
+                        scanTasks.put("docs", scanDocs(concurrency, checkpoint));
+                        scanTasks.put("docProjects", scanWhole(checkpoint, "docProjects", this::scanDocProjects));
+                    }
+                    // 系统设置始终扫描
+                    scanTasks.put("configmaps", scanWhole(checkpoint, "configmaps",
+                        (full, relative) -> scanConfigMaps(concurrency, full, relative)));
+                    // 用户头像始终扫描
+                    scanTasks.put("avatars", scanWhole(checkpoint, "avatars", this::scanUserAvatars));
+
+                    Set<String> completedTasks = checkpoint.completedTasks();
+                    if (!completedTasks.isEmpty()) {
+                        log.info("从检查点继续扫描，跳过已完成的内容: {}", completedTasks);
+                    }
+
+                    List<Map.Entry<String, Mono<Void>>> pendingTasks = scanTasks.entrySet().stream()
+                        .filter(task -> !completedTasks.contains(task.getKey()))
+                        .toList();
+                    // 从游标继续的任务没有扫描游标之前的内容，不清理这些类型的提取缓存
+                    Set<String> urlCachedTypes = pendingTasks.stream()
+                        .filter(task -> checkpoint.cursor(task.getKey()) == null)
+                        .map(task -> URL_CACHED_TASK_TYPES.get(task.getKey()))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+                    progress.stage("extracting", pendingTasks.size());
+                    Map<String, Long> sourceDurations = new LinkedHashMap<>();
+                    status.getStatus().setSourceDurations(sourceDurations);
+
+                    // 内容类型依次扫描，每类内容内部按并发数获取，内容存储同时承受的请求不超过并发数；
+                    // 任务和批次依次提交检查点，同一记录不会并发更新
+                    return Flux.fromIterable(pendingTasks)
+                        .concatMap(task -> timed(task.getKey(), task.getValue(), sourceDurations))
+                        .then(Mono.defer(() -> urlCache.flush(urlCachedTypes)))
+                        .then(Mono.fromSupplier(checkpoint::generation));
+                }))
+            .flatMap(scanTimestamp -> {
+                log.info("内容扫描完成，完整URL: {} 个, 相对路径: {} 个",
                     fullUrlToSources.size(), relativePathToSources.size());
-                // 匹配附件并创建新的引用关系（使用时间戳避免名称冲突）
+                // 匹配附件并创建新的引用关系（使用检查点的扫描代数避免名称冲突）
                 return matchAndCreateReferences(fullUrlToSources, relativePathToSources, status, scanTimestamp);
-            }))
+            })
+            .flatMap(completed -> deleteCheckpoint().thenReturn(completed))
+            .doFinally(signal -> {
+                permalinkMatcher = null;
+                invalidatePermalinkIndex();
+                urlCache.close();
+            })
             .onErrorResume(error -> {
+                // 保留检查点，下次扫描从中断处继续
                 log.error("扫描过程出错", error);
                 return updateScanError(status, error.getMessage());
             });
     }
 
     /**
-     * 标记所有现有记录为待删除，然后提交删除
+     * 执行扫描任务并记录耗时
      */
-    private Mono<Void> markAllAsPendingDeleteAndDelete() {
-        return client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
-            .flatMap(ref -> {
-                if (ref.getStatus() == null) {
-                    ref.setStatus(new AttachmentReference.AttachmentReferenceStatus());
-                }
-                ref.getStatus().setPendingDelete(true);
-                return client.update(ref)
-                    .flatMap(updated -> client.delete(updated));
-            })
-            .then()
-            .doOnSuccess(v -> log.info("已标记并删除所有旧引用记录"));
+    private Mono<Void> timed(String taskName, Mono<Void> task, Map<String, Long> durations) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return task.doOnSuccess(v -> {
+                long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+                durations.put(taskName, elapsedMillis);
+                progress.advance(1);
+                log.info("扫描 {} 完成，耗时 {} ms", taskName, elapsedMillis);
+            });
+        });
     }
 
     /**
-     * 扫描文章
+     * 整类扫描：提取到本任务的映射，完成后作为一个批次提交检查点
      */
-    private Mono<Void> scanPosts(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
-                                  Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
-        return client.listAll(Post.class, ListOptions.builder().build(), Sort.unsorted())
-            .flatMap(post -> {
-                String postName = post.getMetadata().getName();
-                String postTitle = post.getSpec().getTitle();
-                String postUrl = "/archives/" + post.getSpec().getSlug();
-                // 检查是否在回收站
-                boolean isDeleted = post.getSpec().getDeleted() != null && post.getSpec().getDeleted();
+    private Mono<Void> scanWhole(ScanCheckpoint checkpoint, String taskName, SourceScan scan) {
+        return Mono.defer(() -> {
+            Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources = new ConcurrentHashMap<>();
+            Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources = new ConcurrentHashMap<>();
+            return scan.scan(fullUrlToSources, relativePathToSources)
+                .then(Mono.defer(() -> checkpoint.commit(taskName, null, fullUrlToSources, relativePathToSources)));
+        });
+    }
 
-                // 扫描封面图
-                String cover = post.getSpec().getCover();
-                if (StringUtils.hasText(cover)) {
-                    AttachmentReference.ReferenceSource coverSource = createSource(
-                        "Post", postName, postTitle, postUrl, isDeleted, "cover");
-                    addUrlSourceWithType(fullUrlToSources, relativePathToSources, cover, coverSource);
-                }
+    /**
+     * 分批扫描：按名称顺序每 {@link #CHECKPOINT_BATCH_SIZE} 条提交一次检查点（名称游标和本批提取结果），
+     * 继续扫描时跳过名称不大于游标的内容；每批内部按并发数获取，URL 提取在并行调度器上进行
+     *
+     * @param items 按 metadata.name 升序排列的内容
+     */
+    private <E extends Extension> Mono<Void> scanInBatches(ScanCheckpoint checkpoint, String taskName,
+                                                           Flux<E> items,
+                                                           Function<E, Publisher<ContentItem>> contents,
+                                                           int concurrency) {
+        return Mono.defer(() -> {
+            String cursor = checkpoint.cursor(taskName);
+            if (cursor != null) {
+                log.info("从检查点继续扫描 {}，跳过名称不大于 {} 的内容", taskName, cursor);
+            }
+            return items
+                .filter(item -> cursor == null || item.getMetadata().getName().compareTo(cursor) > 0)
+                .buffer(CHECKPOINT_BATCH_SIZE)
+                .concatMap(batch -> {
+                    Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources = new ConcurrentHashMap<>();
+                    Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources =
+                        new ConcurrentHashMap<>();
+                    String batchCursor = batch.get(batch.size() - 1).getMetadata().getName();
+                    return extractInParallel(Flux.fromIterable(batch).flatMap(contents, concurrency),
+                            fullUrlToSources, relativePathToSources)
+                        .then(Mono.defer(() -> checkpoint.commit(taskName, batchCursor,
+                            fullUrlToSources, relativePathToSources)));
+                })
+                .then(Mono.defer(() -> checkpoint.commit(taskName, null, Map.of(), Map.of())));
+        });
+    }
 
-                // 使用 PostContentService 获取完整内容
-                return postContentService.getHeadContent(postName)
-                    .doOnNext(contentWrapper -> {
-                        AttachmentReference.ReferenceSource contentSource = createSource(
-                            "Post", postName, postTitle, postUrl, isDeleted, "content");
-                        
-                        // 扫描原始内容
-                        String rawContent = contentWrapper.getRaw();
-                        if (StringUtils.hasText(rawContent)) {
-                            addExtractedUrls(fullUrlToSources, relativePathToSources, rawContent, contentSource);
-                        }
-                        
-                        // 扫描渲染内容
-                        String htmlContent = contentWrapper.getContent();
-                        if (StringUtils.hasText(htmlContent)) {
-                            addExtractedUrls(fullUrlToSources, relativePathToSources, htmlContent, contentSource);
-                        }
-                    })
-                    .onErrorResume(e -> {
-                        log.warn("获取文章 {} 内容失败: {}", postTitle, e.getMessage());
-                        return Mono.empty();
-                    })
-                    .then();
+    /**
+     * 按附件链接匹配模式下，用全部附件的 permalink 构建匹配器
+     */
+    private Mono<Void> preparePermalinkMatcher(AnalysisSettings settings) {
+        if (!settings.matchPermalinks()) {
+            permalinkMatcher = null;
+            return Mono.empty();
+        }
+        return client.listAll(Attachment.class, ListOptions.builder().build(), Sort.unsorted())
+            .collectList()
+            .doOnNext(attachments -> {
+                long startNanos = System.nanoTime();
+                permalinkMatcher = PermalinkMatcher.build(attachments, contentScanner, externalLinkProcessor,
+                    this::decodeUrl);
+                log.info("附件链接匹配器构建完成 - 附件: {}, 状态数: {}, 耗时: {} ms", attachments.size(),
+                    permalinkMatcher.stateCount(), Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
             })
             .then();
     }
 
     /**
-     * 扫描独立页面
+     * 读取可继续的检查点并恢复已提取的引用，不存在或已失效时创建新的检查点
+     * 检查点的代数即本次扫描的代数（时间戳），用于生成唯一的记录名称，并与上次扫描的结果区分
      */
-    private Mono<Void> scanSinglePages(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
-                                        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
-        return client.listAll(SinglePage.class, ListOptions.builder().build(), Sort.unsorted())
-            .flatMap(page -> {
-                String pageName = page.getMetadata().getName();
-                String pageTitle = page.getSpec().getTitle();
-                String pageUrl = "/" + page.getSpec().getSlug();
-                // 检查是否在回收站
-                boolean isDeleted = page.getSpec().getDeleted() != null && page.getSpec().getDeleted();
-
-                // 扫描封面图
-                String cover = page.getSpec().getCover();
-                if (StringUtils.hasText(cover)) {
-                    AttachmentReference.ReferenceSource coverSource = createSource(
-                        "SinglePage", pageName, pageTitle, pageUrl, isDeleted, "cover");
-                    addUrlSourceWithType(fullUrlToSources, relativePathToSources, cover, coverSource);
+    private Mono<ScanCheckpoint> loadOrCreateCheckpoint(
+            Long activeGeneration, ReferenceScanStatus status,
+            Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+            Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        return client.fetch(ReferenceScanCheckpoint.class, ReferenceScanCheckpoint.SINGLETON_NAME)
+            .flatMap(checkpoint -> {
+                if (isResumable(checkpoint, activeGeneration)) {
+                    return restoreBatches(checkpoint.getSpec().getGeneration(), fullUrlToSources,
+                            relativePathToSources)
+                        .map(nextSequence -> new ScanCheckpoint(checkpoint, status, nextSequence,
+                            fullUrlToSources, relativePathToSources));
                 }
+                log.info("丢弃失效的引用扫描检查点");
+                return client.delete(checkpoint).then(Mono.<ScanCheckpoint>empty());
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+                ReferenceScanCheckpoint checkpoint = new ReferenceScanCheckpoint();
+                checkpoint.setMetadata(new Metadata());
+                checkpoint.getMetadata().setName(ReferenceScanCheckpoint.SINGLETON_NAME);
+                ReferenceScanCheckpoint.ReferenceScanCheckpointSpec spec =
+                    new ReferenceScanCheckpoint.ReferenceScanCheckpointSpec();
+                spec.setGeneration(System.currentTimeMillis());
+                spec.setCompletedTasks(new ArrayList<>());
+                spec.setTaskCursors(new HashMap<>());
+                spec.setCheckpointTime(Instant.now());
+                checkpoint.setSpec(spec);
+                // 清理失效检查点或中断保存遗留的批次
+                return deleteCheckpointBatches()
+                    .then(client.create(checkpoint))
+                    .map(created -> new ScanCheckpoint(created, status, 0, fullUrlToSources, relativePathToSources));
+            }));
+    }
 
-                // 获取页面内容（使用 Snapshot 合并逻辑）
-                String headSnapshotName = page.getSpec().getHeadSnapshot();
-                String baseSnapshotName = page.getSpec().getBaseSnapshot();
-                
-                return getSinglePageContent(headSnapshotName, baseSnapshotName)
-                    .doOnNext(contentWrapper -> {
-                        AttachmentReference.ReferenceSource contentSource = createSource(
-                            "SinglePage", pageName, pageTitle, pageUrl, isDeleted, "content");
-                        
-                        // 扫描原始内容
-                        String rawContent = contentWrapper.getRaw();
-                        if (StringUtils.hasText(rawContent)) {
-                            addExtractedUrls(fullUrlToSources, relativePathToSources, rawContent, contentSource);
-                        }
-                        
-                        // 扫描渲染内容
-                        String htmlContent = contentWrapper.getContent();
-                        if (StringUtils.hasText(htmlContent)) {
-                            addExtractedUrls(fullUrlToSources, relativePathToSources, htmlContent, contentSource);
-                        }
-                    })
-                    .onErrorResume(e -> {
-                        log.warn("获取页面 {} 内容失败: {}", pageTitle, e.getMessage());
-                        return Mono.empty();
-                    })
-                    .then();
+    /**
+     * 检查点是否可继续：未过期，且代数比当前生效代数新（尚未生效过）
+     * 引用源保存在检查点本身的旧格式检查点没有游标，不再继续
+     */
+    private boolean isResumable(ReferenceScanCheckpoint checkpoint, Long activeGeneration) {
+        ReferenceScanCheckpoint.ReferenceScanCheckpointSpec spec = checkpoint.getSpec();
+        if (spec == null || spec.getGeneration() == null || spec.getCheckpointTime() == null
+            || spec.getCompletedTasks() == null || spec.getTaskCursors() == null) {
+            return false;
+        }
+        if (activeGeneration != null && spec.getGeneration() <= activeGeneration) {
+            return false;
+        }
+        return spec.getCheckpointTime().plus(CHECKPOINT_MAX_AGE).isAfter(Instant.now());
+    }
+
+    /**
+     * 将检查点各批次的引用源合并到扫描使用的并发集合
+     *
+     * @return 下一个批次序号
+     */
+    private Mono<Integer> restoreBatches(long generation,
+                                         Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                         Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        AtomicInteger nextSequence = new AtomicInteger();
+        return client.listAll(ReferenceScanCheckpointBatch.class, ListOptions.builder().build(), Sort.unsorted())
+            .filter(batch -> batch.getSpec() != null && Long.valueOf(generation).equals(batch.getSpec().getGeneration()))
+            .doOnNext(batch -> {
+                ReferenceScanCheckpointBatch.ReferenceScanCheckpointBatchSpec spec = batch.getSpec();
+                restoreSources(spec.getFullUrlSources(), fullUrlToSources);
+                restoreSources(spec.getRelativePathSources(), relativePathToSources);
+                if (spec.getSequence() != null) {
+                    nextSequence.accumulateAndGet(spec.getSequence() + 1, Math::max);
+                }
             })
+            .count()
+            .doOnNext(count -> log.info("已恢复引用扫描检查点批次 {} 个", count))
+            .then(Mono.fromSupplier(nextSequence::get));
+    }
+
+    /**
+     * 将保存的引用源合并到扫描使用的并发集合
+     */
+    private void restoreSources(Map<String, List<AttachmentReference.ReferenceSource>> saved,
+                                Map<String, Set<AttachmentReference.ReferenceSource>> target) {
+        if (saved == null) {
+            return;
+        }
+        saved.forEach((url, sources) ->
+            target.computeIfAbsent(url, k -> ConcurrentHashMap.newKeySet()).addAll(sources));
+    }
+
+    private Map<String, List<AttachmentReference.ReferenceSource>> snapshotSources(
+            Map<String, Set<AttachmentReference.ReferenceSource>> sources) {
+        Map<String, List<AttachmentReference.ReferenceSource>> snapshot = new HashMap<>(sources.size());
+        sources.forEach((url, set) -> snapshot.put(url, new ArrayList<>(set)));
+        return snapshot;
+    }
+
+    /**
+     * 删除引用扫描检查点及其批次（扫描完成或清空记录时）
+     */
+    private Mono<Void> deleteCheckpoint() {
+        return client.fetch(ReferenceScanCheckpoint.class, ReferenceScanCheckpoint.SINGLETON_NAME)
+            .flatMap(client::delete)
+            .then(deleteCheckpointBatches());
+    }
+
+    private Mono<Void> deleteCheckpointBatches() {
+        return writeBatcher.deleteAll("删除引用扫描检查点批次",
+                client.listAll(ReferenceScanCheckpointBatch.class, ListOptions.builder().build(), Sort.unsorted()))
+            .then();
+    }
+
+    /**
+     * 扫描一类内容，将提取结果写入给定的映射
+     */
+    @FunctionalInterface
+    private interface SourceScan {
+        Mono<Void> scan(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources);
+    }
+
+    /**
+     * 本次扫描的检查点
+     * 每批提取结果先保存为独立的批次记录，再推进检查点中的游标或完成的任务，
+     * 单条记录大小受批次大小限制，不随站点内容增长；
+     * 游标保存失败时重新扫描这一批，引用源按值去重。
+     * 提交依次进行（任务串行，批次 concatMap），不存在并发更新
+     */
+    private final class ScanCheckpoint {
+
+        private final AtomicReference<ReferenceScanCheckpoint> holder;
+        private final ReferenceScanStatus status;
+        private final AtomicInteger nextSequence;
+        private final Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources;
+        private final Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources;
+
+        /**
+         * 保存失败后不再推进检查点，继续扫描时从最后一次成功保存的位置开始
+         */
+        private volatile boolean stopped;
+
+        ScanCheckpoint(ReferenceScanCheckpoint checkpoint, ReferenceScanStatus status, int nextSequence,
+                       Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                       Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+            this.holder = new AtomicReference<>(checkpoint);
+            this.status = status;
+            this.nextSequence = new AtomicInteger(nextSequence);
+            this.fullUrlToSources = fullUrlToSources;
+            this.relativePathToSources = relativePathToSources;
+        }
+
+        long generation() {
+            return holder.get().getSpec().getGeneration();
+        }
+
+        Set<String> completedTasks() {
+            return new HashSet<>(holder.get().getSpec().getCompletedTasks());
+        }
+
+        String cursor(String taskName) {
+            return holder.get().getSpec().getTaskCursors().get(taskName);
+        }
+
+        /**
+         * 合并一批提取结果并保存检查点
+         *
+         * @param taskName 任务名称
+         * @param cursor   本批最后一条内容的名称，为 null 表示任务已完成
+         */
+        Mono<Void> commit(String taskName, String cursor,
+                          Map<String, Set<AttachmentReference.ReferenceSource>> batchFullUrls,
+                          Map<String, Set<AttachmentReference.ReferenceSource>> batchRelativePaths) {
+            batchFullUrls.forEach((url, sources) ->
+                fullUrlToSources.computeIfAbsent(url, k -> ConcurrentHashMap.newKeySet()).addAll(sources));
+            batchRelativePaths.forEach((path, sources) ->
+                relativePathToSources.computeIfAbsent(path, k -> ConcurrentHashMap.newKeySet()).addAll(sources));
+            if (stopped) {
+                return Mono.empty();
+            }
+
+            return saveBatch(taskName, batchFullUrls, batchRelativePaths)
+                .then(Mono.defer(() -> {
+                    ReferenceScanCheckpoint checkpoint = holder.get();
+                    ReferenceScanCheckpoint.ReferenceScanCheckpointSpec spec = checkpoint.getSpec();
+                    if (cursor != null) {
+                        spec.getTaskCursors().put(taskName, cursor);
+                    } else {
+                        spec.getTaskCursors().remove(taskName);
+                        spec.getCompletedTasks().add(taskName);
+                    }
+                    spec.setCheckpointTime(Instant.now());
+                    return client.update(checkpoint);
+                }))
+                .doOnNext(holder::set)
+                .then(Mono.defer(() -> {
+                    status.getStatus().setCheckpointTime(holder.get().getSpec().getCheckpointTime());
+                    return client.update(status);
+                }))
+                // 沿用最新版本号，扫描结束时更新状态不会冲突
+                .doOnNext(updated -> status.getMetadata().setVersion(updated.getMetadata().getVersion()))
+                .doOnSuccess(updated -> log.debug("引用扫描检查点已保存: {} {}", taskName,
+                    cursor != null ? "-> " + cursor : "完成"))
+                .onErrorResume(e -> {
+                    stopped = true;
+                    log.warn("保存引用扫描检查点失败，本次扫描不再保存检查点: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+        }
+
+        private Mono<Void> saveBatch(String taskName,
+                                     Map<String, Set<AttachmentReference.ReferenceSource>> batchFullUrls,
+                                     Map<String, Set<AttachmentReference.ReferenceSource>> batchRelativePaths) {
+            if (batchFullUrls.isEmpty() && batchRelativePaths.isEmpty()) {
+                return Mono.empty();
+            }
+            int sequence = nextSequence.getAndIncrement();
+            ReferenceScanCheckpointBatch batch = new ReferenceScanCheckpointBatch();
+            batch.setMetadata(new Metadata());
+            batch.getMetadata().setName(ReferenceScanCheckpointBatch.nameOf(generation(), sequence));
+            ReferenceScanCheckpointBatch.ReferenceScanCheckpointBatchSpec spec =
+                new ReferenceScanCheckpointBatch.ReferenceScanCheckpointBatchSpec();
+            spec.setGeneration(generation());
+            spec.setSequence(sequence);
+            spec.setTask(taskName);
+            spec.setFullUrlSources(snapshotSources(batchFullUrls));
+            spec.setRelativePathSources(snapshotSources(batchRelativePaths));
+            batch.setSpec(spec);
+            return client.create(batch).then();
+        }
+    }
+
+    /**
+     * 删除所有引用记录（清空时使用）
+     */
+    private Mono<Void> deleteAllReferences() {
+        return writeBatcher.deleteAll("删除引用记录",
+                client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted()))
             .then();
     }
 
     /**
-     * 获取独立页面内容（合并 Snapshot）
+     * 删除中断或失败的扫描遗留的记录（代数比当前生效代数新，但从未生效）
+     * 扫描开始前调用，此时不存在正在写入的代
      */
-    private Mono<ContentWrapper> getSinglePageContent(String headSnapshotName, String baseSnapshotName) {
+    private Mono<Void> deleteAbandonedReferences(Long activeGeneration) {
+        return writeBatcher.deleteAll("删除中断扫描遗留的引用记录",
+                client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
+                    .filter(ref -> ref.getSpec() != null && ref.getSpec().getGeneration() != null)
+                    .filter(ref -> activeGeneration == null || ref.getSpec().getGeneration() > activeGeneration))
+            .then();
+    }
+
+    /**
+     * 后台回收被新一代取代的引用记录（代数更旧或旧版本写入的记录）
+     * 新一代已经生效，回收期间查询不受影响；回收失败的记录在下次完成扫描后再次回收
+     */
+    private void collectSupersededReferences(long activeGeneration) {
+        writeBatcher.deleteAll("回收旧代引用记录",
+                client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
+                    .filter(ref -> ref.getSpec() == null
+                        || ref.getSpec().getGeneration() == null
+                        || ref.getSpec().getGeneration() < activeGeneration))
+            .subscribe(
+                result -> log.info("旧代引用记录回收完成: {} 条", result.succeeded()),
+                error -> log.warn("旧代引用记录回收失败: {}", error.getMessage())
+            );
+    }
+
+    /**
+     * 获取当前生效的扫描代数
+     */
+    private Mono<Optional<Long>> getActiveGeneration() {
+        return client.fetch(ReferenceScanStatus.class, ReferenceScanStatus.SINGLETON_NAME)
+            .map(status -> Optional.ofNullable(status.getStatus() != null ? status.getStatus().getGeneration() : null))
+            .defaultIfEmpty(Optional.empty());
+    }
+
+    /**
+     * 扫描文章（分批）
+     */
+    private Mono<Void> scanPosts(int concurrency, ScanCheckpoint checkpoint) {
+        return scanInBatches(checkpoint, "posts",
+            client.listAll(Post.class, ListOptions.builder().build(), BY_NAME),
+            this::postContents, concurrency);
+    }
+
+    /**
+     * 扫描单篇文章（封面和内容）
+     */
+    private Mono<Void> scanPost(Post post, PermalinkMatcher matcher,
+                                Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        return postContents(post)
+            .doOnNext(item -> extract(item, matcher, fullUrlToSources, relativePathToSources))
+            .then();
+    }
+
+    /**
+     * 获取文章的封面和内容
+     */
+    private Flux<ContentItem> postContents(Post post) {
+        String postName = post.getMetadata().getName();
+        String postTitle = post.getSpec().getTitle();
+        String postUrl = "/archives/" + post.getSpec().getSlug();
+        // 检查是否在回收站
+        boolean isDeleted = post.getSpec().getDeleted() != null && post.getSpec().getDeleted();
+
+        // 扫描封面图
+        String cover = post.getSpec().getCover();
+        Flux<ContentItem> coverItem = Flux.empty();
+        if (StringUtils.hasText(cover)) {
+            AttachmentReference.ReferenceSource coverSource = createSource(
+                "Post", postName, postTitle, postUrl, isDeleted, "cover");
+            coverItem = Flux.just(ContentItem.ofLink(cover, coverSource));
+        }
+
+        // 获取 head 快照内容（合并 base 快照）
+        AttachmentReference.ReferenceSource contentSource = createSource(
+            "Post", postName, postTitle, postUrl, isDeleted, "content");
+        Flux<ContentItem> contentItems = snapshotContents("Post", postName,
+                post.getSpec().getHeadSnapshot(), post.getSpec().getBaseSnapshot(), contentSource)
+            .onErrorResume(e -> {
+                log.warn("获取文章 {} 内容失败: {}", postTitle, e.getMessage());
+                return Flux.empty();
+            });
+        return Flux.concat(coverItem, contentItems);
+    }
+
+    /**
+     * 扫描独立页面（分批）
+     */
+    private Mono<Void> scanSinglePages(int concurrency, ScanCheckpoint checkpoint) {
+        return scanInBatches(checkpoint, "pages",
+            client.listAll(SinglePage.class, ListOptions.builder().build(), BY_NAME),
+            this::singlePageContents, concurrency);
+    }
+
+    /**
+     * 扫描单个独立页面（封面和内容）
+     */
+    private Mono<Void> scanSinglePage(SinglePage page, PermalinkMatcher matcher,
+                                      Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                      Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        return singlePageContents(page)
+            .doOnNext(item -> extract(item, matcher, fullUrlToSources, relativePathToSources))
+            .then();
+    }
+
+    /**
+     * 获取独立页面的封面和内容
+     */
+    private Flux<ContentItem> singlePageContents(SinglePage page) {
+        String pageName = page.getMetadata().getName();
+        String pageTitle = page.getSpec().getTitle();
+        String pageUrl = "/" + page.getSpec().getSlug();
+        // 检查是否在回收站
+        boolean isDeleted = page.getSpec().getDeleted() != null && page.getSpec().getDeleted();
+
+        // 扫描封面图
+        String cover = page.getSpec().getCover();
+        Flux<ContentItem> coverItem = Flux.empty();
+        if (StringUtils.hasText(cover)) {
+            AttachmentReference.ReferenceSource coverSource = createSource(
+                "SinglePage", pageName, pageTitle, pageUrl, isDeleted, "cover");
+            coverItem = Flux.just(ContentItem.ofLink(cover, coverSource));
+        }
+
+        // 获取页面内容（使用 Snapshot 合并逻辑）
+        String headSnapshotName = page.getSpec().getHeadSnapshot();
+        String baseSnapshotName = page.getSpec().getBaseSnapshot();
+        AttachmentReference.ReferenceSource contentSource = createSource(
+            "SinglePage", pageName, pageTitle, pageUrl, isDeleted, "content");
+        Flux<ContentItem> contentItems = snapshotContents("SinglePage", pageName,
+                headSnapshotName, baseSnapshotName, contentSource)
+            .onErrorResume(e -> {
+                log.warn("获取页面 {} 内容失败: {}", pageTitle, e.getMessage());
+                return Flux.empty();
+            });
+        return Flux.concat(coverItem, contentItems);
+    }
+
+    /**
+     * 获取快照合并后的内容（文章、独立页面、文档）
+     * 快照未变化时直接使用缓存中已提取的 URL，跳过合并和提取；
+     * 按附件链接匹配时命中结果与当前附件有关，不使用缓存
+     */
+    private Flux<ContentItem> snapshotContents(String sourceType, String sourceName,
+                                               String headSnapshotName, String baseSnapshotName,
+                                               AttachmentReference.ReferenceSource source) {
+        return fetchSnapshots(headSnapshotName, baseSnapshotName)
+            .map(snapshots -> {
+                Snapshot headSnapshot = snapshots.getT1();
+                Snapshot baseSnapshot = snapshots.getT2();
+                ExtractedUrlCache.Key cacheKey = null;
+                if (permalinkMatcher == null) {
+                    cacheKey = ExtractedUrlCache.Key.of(sourceType, sourceName, headSnapshot, baseSnapshot);
+                    ContentScanner.ExtractResult cached = urlCache.get(cacheKey);
+                    if (cached != null) {
+                        return ContentItem.ofExtracted(cached, source);
+                    }
+                }
+                ContentWrapper contentWrapper = ContentWrapper.patchSnapshot(headSnapshot, baseSnapshot);
+                // 扫描原始内容和渲染内容
+                return ContentItem.ofTexts(source, cacheKey, contentWrapper.getRaw(), contentWrapper.getContent());
+            })
+            .flux();
+    }
+
+    /**
+     * 获取 head 和 base 快照，超过 {@link #SNAPSHOT_FETCH_TIMEOUT} 时返回 error，由调用方跳过该内容
+     */
+    private Mono<Tuple2<Snapshot, Snapshot>> fetchSnapshots(String headSnapshotName, String baseSnapshotName) {
         if (!StringUtils.hasText(headSnapshotName) || !StringUtils.hasText(baseSnapshotName)) {
             return Mono.empty();
         }
         return client.fetch(Snapshot.class, baseSnapshotName)
             .flatMap(baseSnapshot -> {
                 if (headSnapshotName.equals(baseSnapshotName)) {
-                    return Mono.just(ContentWrapper.patchSnapshot(baseSnapshot, baseSnapshot));
+                    return Mono.just(Tuples.of(baseSnapshot, baseSnapshot));
                 }
                 return client.fetch(Snapshot.class, headSnapshotName)
-                    .map(headSnapshot -> ContentWrapper.patchSnapshot(headSnapshot, baseSnapshot));
-            });
+                    .map(headSnapshot -> Tuples.of(headSnapshot, baseSnapshot));
+            })
+            .timeout(SNAPSHOT_FETCH_TIMEOUT);
     }
 
     /**
-     * 扫描评论
+     * 扫描评论（分批）
      */
-    private Mono<Void> scanComments(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
-                                     Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
-        return client.listAll(Comment.class, ListOptions.builder().build(), Sort.unsorted())
-            .doOnNext(comment -> {
-                String commentName = comment.getMetadata().getName();
-                String content = comment.getSpec().getRaw();
+    private Mono<Void> scanComments(ScanCheckpoint checkpoint) {
+        return scanInBatches(checkpoint, "comments",
+            client.listAll(Comment.class, ListOptions.builder().build(), BY_NAME),
+            comment -> Mono.justOrEmpty(commentContent(comment)), Integer.MAX_VALUE);
+    }
 
-                if (!StringUtils.hasText(content)) {
-                    return;
-                }
+    /**
+     * 扫描单条评论
+     */
+    private void scanComment(Comment comment, PermalinkMatcher matcher,
+                             Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                             Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        ContentItem item = commentContent(comment);
+        if (item != null) {
+            extract(item, matcher, fullUrlToSources, relativePathToSources);
+        }
+    }
 
-                // 获取评论关联的文章/页面信息，存储 kind:name 格式，详情弹窗再查询标题
-                var subjectRef = comment.getSpec().getSubjectRef();
-                String sourceTitle = "评论";
-                if (subjectRef != null) {
-                    sourceTitle = subjectRef.getKind() + ":" + subjectRef.getName();
-                }
-                
-                AttachmentReference.ReferenceSource source = createSource(
-                    "Comment", commentName, sourceTitle, null, false, "comment");
-                addExtractedUrls(fullUrlToSources, relativePathToSources, content, source);
-            })
-            .then();
+    /**
+     * 获取评论内容，内容为空时返回 null
+     */
+    private ContentItem commentContent(Comment comment) {
+        String commentName = comment.getMetadata().getName();
+        String content = comment.getSpec().getRaw();
+
+        if (!StringUtils.hasText(content)) {
+            return null;
+        }
+
+        // 获取评论关联的文章/页面信息，存储 kind:name 格式，详情弹窗再查询标题
+        var subjectRef = comment.getSpec().getSubjectRef();
+        String sourceTitle = "评论";
+        if (subjectRef != null) {
+            sourceTitle = subjectRef.getKind() + ":" + subjectRef.getName();
+        }
+        
+        AttachmentReference.ReferenceSource source = createSource(
+            "Comment", commentName, sourceTitle, null, false, "comment");
+        return ContentItem.ofTexts(source, null, content);
     }
 
     /**
-     * 扫描回复
+     * 扫描回复（分批）
      */
-    private Mono<Void> scanReplies(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
-                                    Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
-        return client.listAll(Reply.class, ListOptions.builder().build(), Sort.unsorted())
-            .doOnNext(reply -> {
-                String replyName = reply.getMetadata().getName();
-                String content = reply.getSpec().getRaw();
+    private Mono<Void> scanReplies(ScanCheckpoint checkpoint) {
+        return scanInBatches(checkpoint, "replies",
+            client.listAll(Reply.class, ListOptions.builder().build(), BY_NAME),
+            reply -> Mono.justOrEmpty(replyContent(reply)), Integer.MAX_VALUE);
+    }
 
-                if (!StringUtils.hasText(content)) {
-                    return;
-                }
+    /**
+     * 扫描单条回复
+     */
+    private void scanReply(Reply reply, PermalinkMatcher matcher,
+                           Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                           Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        ContentItem item = replyContent(reply);
+        if (item != null) {
+            extract(item, matcher, fullUrlToSources, relativePathToSources);
+        }
+    }
 
-                // 存储 Comment:comment-name 格式，详情弹窗再追溯查询
-                String commentName = reply.getSpec().getCommentName();
-                String sourceTitle = StringUtils.hasText(commentName) 
-                    ? "Comment:" + commentName 
-                    : "回复";
-                
-                AttachmentReference.ReferenceSource source = createSource(
-                    "Reply", replyName, sourceTitle, null, false, "reply");
-                addExtractedUrls(fullUrlToSources, relativePathToSources, content, source);
-            })
-            .then();
+    /**
+     * 获取回复内容，内容为空时返回 null
+     */
+    private ContentItem replyContent(Reply reply) {
+        String replyName = reply.getMetadata().getName();
+        String content = reply.getSpec().getRaw();
+
+        if (!StringUtils.hasText(content)) {
+            return null;
+        }
+
+        // 存储 Comment:comment-name 格式，详情弹窗再追溯查询
+        String commentName = reply.getSpec().getCommentName();
+        String sourceTitle = StringUtils.hasText(commentName) 
+            ? "Comment:" + commentName 
+            : "回复";
+        
+        AttachmentReference.ReferenceSource source = createSource(
+            "Reply", replyName, sourceTitle, null, false, "reply");
+        return ContentItem.ofTexts(source, null, content);
     }
 
     /**
      * 扫描系统配置、插件配置和主题配置
      * 分别扫描系统设置、所有插件设置、所有主题设置的 ConfigMap
      */
-    private Mono<Void> scanConfigMaps(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+    private Mono<Void> scanConfigMaps(int concurrency,
+                                       Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
                                        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
         // 1. 扫描系统设置
-        Mono<Void> scanSystem = client.fetch(ConfigMap.class, "system")
-            .doOnNext(configMap -> {
-                scanConfigMapData(configMap, "SystemSetting", "系统设置", "system", 
-                    groupKey -> "/console/settings?tab=" + groupKey,
-                    fullUrlToSources, relativePathToSources);
-            })
-            .then();
+        PermalinkMatcher matcher = permalinkMatcher;
+        Mono<Void> scanSystem = scanSystemConfigMap(matcher, fullUrlToSources, relativePathToSources);
 
         // 2. 扫描所有插件设置
         Mono<Void> scanPlugins = client.listAll(Plugin.class, ListOptions.builder().build(), Sort.unsorted())
             .filter(plugin -> StringUtils.hasText(plugin.getSpec().getConfigMapName()))
-            .flatMap(plugin -> {
-                String pluginName = plugin.getMetadata().getName();
-                String displayName = plugin.getSpec().getDisplayName();
-                String configMapName = plugin.getSpec().getConfigMapName();
-                String settingName = plugin.getSpec().getSettingName();
-                String sourceTitle = (StringUtils.hasText(displayName) ? displayName : pluginName) + " 插件设置";
-                
-                return client.fetch(ConfigMap.class, configMapName)
-                    .doOnNext(configMap -> {
-                        scanConfigMapData(configMap, "PluginSetting", sourceTitle, settingName,
-                            groupKey -> "/console/plugins/" + pluginName + "?tab=" + groupKey,
-                            fullUrlToSources, relativePathToSources);
-                    })
-                    .onErrorResume(e -> {
-                        log.warn("获取插件 {} 的 ConfigMap {} 失败: {}", pluginName, configMapName, e.getMessage());
-                        return Mono.empty();
-                    });
-            })
+            .flatMap(plugin -> scanPluginConfigMap(plugin, matcher, fullUrlToSources, relativePathToSources),
+                concurrency)
             .then();
 
         // 3. 扫描所有主题设置
         Mono<Void> scanThemes = client.listAll(Theme.class, ListOptions.builder().build(), Sort.unsorted())
             .filter(theme -> StringUtils.hasText(theme.getSpec().getConfigMapName()))
-            .flatMap(theme -> {
-                String themeName = theme.getMetadata().getName();
-                String displayName = theme.getSpec().getDisplayName();
-                String configMapName = theme.getSpec().getConfigMapName();
-                String settingName = theme.getSpec().getSettingName();
-                String sourceTitle = (StringUtils.hasText(displayName) ? displayName : themeName) + " 主题设置";
-                
-                return client.fetch(ConfigMap.class, configMapName)
-                    .doOnNext(configMap -> {
-                        scanConfigMapData(configMap, "ThemeSetting", sourceTitle, settingName,
-                            groupKey -> "/console/theme/settings/" + groupKey,
-                            fullUrlToSources, relativePathToSources);
-                    })
-                    .onErrorResume(e -> {
-                        log.warn("获取主题 {} 的 ConfigMap {} 失败: {}", themeName, configMapName, e.getMessage());
-                        return Mono.empty();
-                    });
-            })
+            .flatMap(theme -> scanThemeConfigMap(theme, matcher, fullUrlToSources, relativePathToSources),
+                concurrency)
             .then();
 
         return Flux.merge(scanSystem, scanPlugins, scanThemes).then();
     }
 
+    /**
+     * 扫描单个 ConfigMap，按名称查找它所属的系统设置、插件或主题
+     */
+    private Mono<Void> scanConfigMap(String configMapName, PermalinkMatcher matcher,
+                                     Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                     Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        if ("system".equals(configMapName)) {
+            return scanSystemConfigMap(matcher, fullUrlToSources, relativePathToSources);
+        }
+        Mono<Void> scanPlugins = client.listAll(Plugin.class, ListOptions.builder().build(), Sort.unsorted())
+            .filter(plugin -> configMapName.equals(plugin.getSpec().getConfigMapName()))
+            .flatMap(plugin -> scanPluginConfigMap(plugin, matcher, fullUrlToSources, relativePathToSources))
+            .then();
+        Mono<Void> scanThemes = client.listAll(Theme.class, ListOptions.builder().build(), Sort.unsorted())
+            .filter(theme -> configMapName.equals(theme.getSpec().getConfigMapName()))
+            .flatMap(theme -> scanThemeConfigMap(theme, matcher, fullUrlToSources, relativePathToSources))
+            .then();
+        return Flux.merge(scanPlugins, scanThemes).then();
+    }
+
+    /**
+     * 扫描系统设置
+     */
+    private Mono<Void> scanSystemConfigMap(PermalinkMatcher matcher,
+                                           Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                           Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        return client.fetch(ConfigMap.class, "system")
+            .doOnNext(configMap -> {
+                scanConfigMapData(configMap, "SystemSetting", "系统设置", "system", 
+                    groupKey -> "/console/settings?tab=" + groupKey,
+                    matcher, fullUrlToSources, relativePathToSources);
+            })
+            .then();
+    }
+
+    /**
+     * 扫描插件设置
+     */
+    private Mono<Void> scanPluginConfigMap(Plugin plugin, PermalinkMatcher matcher,
+                                           Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                           Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        String pluginName = plugin.getMetadata().getName();
+        String displayName = plugin.getSpec().getDisplayName();
+        String configMapName = plugin.getSpec().getConfigMapName();
+        String settingName = plugin.getSpec().getSettingName();
+        String sourceTitle = (StringUtils.hasText(displayName) ? displayName : pluginName) + " 插件设置";
+        
+        return client.fetch(ConfigMap.class, configMapName)
+            .doOnNext(configMap -> {
+                scanConfigMapData(configMap, "PluginSetting", sourceTitle, settingName,
+                    groupKey -> "/console/plugins/" + pluginName + "?tab=" + groupKey,
+                    matcher, fullUrlToSources, relativePathToSources);
+            })
+            .onErrorResume(e -> {
+                log.warn("获取插件 {} 的 ConfigMap {} 失败: {}", pluginName, configMapName, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * 扫描主题设置
+     */
+    private Mono<Void> scanThemeConfigMap(Theme theme, PermalinkMatcher matcher,
+                                          Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                          Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        String themeName = theme.getMetadata().getName();
+        String displayName = theme.getSpec().getDisplayName();
+        String configMapName = theme.getSpec().getConfigMapName();
+        String settingName = theme.getSpec().getSettingName();
+        String sourceTitle = (StringUtils.hasText(displayName) ? displayName : themeName) + " 主题设置";
+        
+        return client.fetch(ConfigMap.class, configMapName)
+            .doOnNext(configMap -> {
+                scanConfigMapData(configMap, "ThemeSetting", sourceTitle, settingName,
+                    groupKey -> "/console/theme/settings/" + groupKey,
+                    matcher, fullUrlToSources, relativePathToSources);
+            })
+            .onErrorResume(e -> {
+                log.warn("获取主题 {} 的 ConfigMap {} 失败: {}", themeName, configMapName, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
     /**
      * 扫描 ConfigMap 数据
      * @param configMap ConfigMap 对象
@@ -451,6 +1029,7 @@ public class ReferenceServiceImpl implements ReferenceService {
      */
     private void scanConfigMapData(ConfigMap configMap, String sourceType, String sourceTitle, String settingName,
                                     java.util.function.Function<String, String> urlBuilder,
+                                    PermalinkMatcher matcher,
                                     Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
                                     Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
         String configMapName = configMap.getMetadata().getName();
@@ -474,7 +1053,7 @@ public class ReferenceServiceImpl implements ReferenceService {
                             AttachmentReference.ReferenceSource source = createSource(
                                 sourceType, configMapName, sourceTitle, 
                                 sourceUrl, false, groupKey, settingName);
-                            addExtractedUrls(fullUrlToSources, relativePathToSources, fieldValue, source);
+                            addExtractedUrls(matcher, fullUrlToSources, relativePathToSources, fieldValue, source);
                         }
                     });
                 } else {
@@ -482,14 +1061,14 @@ public class ReferenceServiceImpl implements ReferenceService {
                     AttachmentReference.ReferenceSource source = createSource(
                         sourceType, configMapName, sourceTitle, 
                         sourceUrl, false, groupKey, settingName);
-                    addExtractedUrls(fullUrlToSources, relativePathToSources, jsonValue, source);
+                    addExtractedUrls(matcher, fullUrlToSources, relativePathToSources, jsonValue, source);
                 }
             } catch (Exception e) {
                 // JSON 解析失败，直接扫描原始值
                 AttachmentReference.ReferenceSource source = createSource(
                     sourceType, configMapName, sourceTitle, 
                     sourceUrl, false, groupKey, settingName);
-                addExtractedUrls(fullUrlToSources, relativePathToSources, jsonValue, source);
+                addExtractedUrls(matcher, fullUrlToSources, relativePathToSources, jsonValue, source);
             }
         });
     }
@@ -590,139 +1169,204 @@ public class ReferenceServiceImpl implements ReferenceService {
                         }
                     }
                 } catch (Exception e) {
-                    log.warn("扫描图库失败: {}", e.getMessage());
+                    log.warn("扫描图库失败: {}", e.getMessage());
+                }
+            })
+            .count()
+            .doOnNext(count -> log.info("图库扫描完成，共扫描 {} 条记录", count))
+            .then()
+            .onErrorResume(e -> {
+                log.warn("图库扫描出错: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * 扫描文档内容（Docsme 插件，分批）
+     */
+    private Mono<Void> scanDocs(int concurrency, ScanCheckpoint checkpoint) {
+        var docSchemeOpt = schemeManager.fetch(DOC_GVK);
+        if (docSchemeOpt.isEmpty()) {
+            log.info("Docsme 文档插件未安装，跳过扫描");
+            return checkpoint.commit("docs", null, Map.of(), Map.of());
+        }
+
+        log.info("开始扫描文档内容，GVK: {}", DOC_GVK);
+        AtomicInteger docCount = new AtomicInteger();
+        return scanInBatches(checkpoint, "docs",
+                client.listAll(docSchemeOpt.get().type(), ListOptions.builder().build(), BY_NAME)
+                    .doOnNext(ext -> docCount.incrementAndGet()),
+                this::docContents, concurrency)
+            .doOnSuccess(v -> log.info("文档内容扫描完成，共扫描 {} 条记录", docCount.get()))
+            .onErrorResume(e -> {
+                log.warn("文档扫描出错: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * 扫描文档项目图标（Docsme 插件）
+     */
+    private Mono<Void> scanDocProjects(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        var projectSchemeOpt = schemeManager.fetch(PROJECT_GVK);
+        if (projectSchemeOpt.isEmpty()) {
+            return Mono.empty();
+        }
+
+        log.info("开始扫描文档项目图标，GVK: {}", PROJECT_GVK);
+        return client.listAll(projectSchemeOpt.get().type(), ListOptions.builder().build(), Sort.unsorted())
+            .doOnNext(ext -> {
+                try {
+                    String json = objectMapper.writeValueAsString(ext);
+                    JsonNode projectNode = objectMapper.readTree(json);
+                    JsonNode specNode = projectNode.get("spec");
+                    JsonNode statusNode = projectNode.get("status");
+                    
+                    String projectName = ext.getMetadata().getName();
+                    String displayName = specNode != null && specNode.has("displayName") 
+                        ? specNode.get("displayName").asText() : projectName;
+                    String icon = specNode != null && specNode.has("icon") 
+                        ? specNode.get("icon").asText() : null;
+                    String permalink = statusNode != null && statusNode.has("permalink")
+                        ? statusNode.get("permalink").asText() : null;
+                    
+                    if (StringUtils.hasText(icon)) {
+                        // sourceType 使用 Doc，referenceType 使用 icon 区分
+                        AttachmentReference.ReferenceSource source = createSource(
+                            "Doc", projectName, displayName, permalink, false, "icon");
+                        addUrlSourceWithType(fullUrlToSources, relativePathToSources, icon, source);
+                    }
+                } catch (Exception e) {
+                    log.warn("扫描文档项目失败: {}", e.getMessage());
                 }
             })
             .count()
-            .doOnNext(count -> log.info("图库扫描完成，共扫描 {} 条记录", count))
+            .doOnNext(count -> log.info("文档项目图标扫描完成，共扫描 {} 条记录", count))
             .then()
             .onErrorResume(e -> {
-                log.warn("图库扫描出错: {}", e.getMessage());
+                log.warn("文档项目扫描出错: {}", e.getMessage());
                 return Mono.empty();
             });
     }
 
     /**
-     * 扫描文档（Docsme 插件）
-     * 包括 Doc 内容和 Project 图标
+     * 获取文档内容（合并 Snapshot）
      */
-    private Mono<Void> scanDocs(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
-                                 Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
-        var docSchemeOpt = schemeManager.fetch(DOC_GVK);
-        var projectSchemeOpt = schemeManager.fetch(PROJECT_GVK);
-        
-        if (docSchemeOpt.isEmpty() && projectSchemeOpt.isEmpty()) {
-            log.info("Docsme 文档插件未安装，跳过扫描");
-            return Mono.empty();
+    private Flux<ContentItem> docContents(Extension ext) {
+        String docName = ext.getMetadata().getName();
+        try {
+            // 从 Doc 的 spec 中获取 headSnapshot
+            String json = objectMapper.writeValueAsString(ext);
+            JsonNode docNode = objectMapper.readTree(json);
+            JsonNode specNode = docNode.get("spec");
+            
+            String headSnapshotName = specNode != null && specNode.has("headSnapshot") 
+                ? specNode.get("headSnapshot").asText() : null;
+            String baseSnapshotName = specNode != null && specNode.has("releaseSnapshot")
+                ? specNode.get("releaseSnapshot").asText() : null;
+            
+            // 如果没有 baseSnapshot，使用 headSnapshot
+            if (!StringUtils.hasText(baseSnapshotName)) {
+                baseSnapshotName = headSnapshotName;
+            }
+            
+            // 存储 Doc:docName 格式，详情弹窗再查询 DocTree 获取标题
+            AttachmentReference.ReferenceSource source = createSource(
+                "Doc", docName, "Doc:" + docName, null, false, "content");
+            
+            // 获取 Snapshot 内容
+            return snapshotContents("Doc", docName, headSnapshotName, baseSnapshotName, source)
+                .onErrorResume(e -> {
+                    log.warn("获取文档 {} 内容失败: {}", docName, e.getMessage());
+                    return Flux.empty();
+                });
+        } catch (Exception e) {
+            log.warn("扫描文档 {} 失败: {}", docName, e.getMessage());
+            return Flux.empty();
         }
-        
-        // 1. 扫描 Doc 内容
-        Mono<Void> scanDocContent = Mono.empty();
-        if (docSchemeOpt.isPresent()) {
-            log.info("开始扫描文档内容，GVK: {}", DOC_GVK);
-            scanDocContent = client.listAll(docSchemeOpt.get().type(), ListOptions.builder().build(), Sort.unsorted())
-                .flatMap(ext -> {
-                    String docName = ext.getMetadata().getName();
-                    try {
-                        // 从 Doc 的 spec 中获取 headSnapshot
-                        String json = objectMapper.writeValueAsString(ext);
-                        JsonNode docNode = objectMapper.readTree(json);
-                        JsonNode specNode = docNode.get("spec");
-                        
-                        String headSnapshotName = specNode != null && specNode.has("headSnapshot") 
-                            ? specNode.get("headSnapshot").asText() : null;
-                        String baseSnapshotName = specNode != null && specNode.has("releaseSnapshot")
-                            ? specNode.get("releaseSnapshot").asText() : null;
-                        
-                        // 如果没有 baseSnapshot，使用 headSnapshot
-                        if (!StringUtils.hasText(baseSnapshotName)) {
-                            baseSnapshotName = headSnapshotName;
-                        }
-                        
-                        // 存储 Doc:docName 格式，详情弹窗再查询 DocTree 获取标题
-                        AttachmentReference.ReferenceSource source = createSource(
-                            "Doc", docName, "Doc:" + docName, null, false, "content");
-                        
-                        // 获取 Snapshot 内容
-                        if (StringUtils.hasText(headSnapshotName) && StringUtils.hasText(baseSnapshotName)) {
-                            final String finalBaseSnapshotName = baseSnapshotName;
-                            return client.fetch(Snapshot.class, baseSnapshotName)
-                                .flatMap(baseSnapshot -> {
-                                    if (headSnapshotName.equals(finalBaseSnapshotName)) {
-                                        return Mono.just(ContentWrapper.patchSnapshot(baseSnapshot, baseSnapshot));
-                                    }
-                                    return client.fetch(Snapshot.class, headSnapshotName)
-                                        .map(headSnapshot -> ContentWrapper.patchSnapshot(headSnapshot, baseSnapshot));
-                                })
-                                .doOnNext(contentWrapper -> {
-                                    // 扫描原始内容
-                                    String rawContent = contentWrapper.getRaw();
-                                    if (StringUtils.hasText(rawContent)) {
-                                        addExtractedUrls(fullUrlToSources, relativePathToSources, rawContent, source);
-                                    }
-                                    // 扫描渲染内容
-                                    String htmlContent = contentWrapper.getContent();
-                                    if (StringUtils.hasText(htmlContent)) {
-                                        addExtractedUrls(fullUrlToSources, relativePathToSources, htmlContent, source);
-                                    }
-                                })
-                                .onErrorResume(e -> {
-                                    log.warn("获取文档 {} 内容失败: {}", docName, e.getMessage());
-                                    return Mono.empty();
-                                })
-                                .then(Mono.just(1));
-                        }
-                    } catch (Exception e) {
-                        log.warn("扫描文档 {} 失败: {}", docName, e.getMessage());
-                    }
-                    return Mono.just(0);
-                })
-                .count()
-                .doOnNext(count -> log.info("文档内容扫描完成，共扫描 {} 条记录", count))
-                .then();
+    }
+
+    /**
+     * 待提取的内容（获取阶段产出，提取阶段消费）
+     *
+     * @param source    引用源
+     * @param link      单个链接（如封面），不为 null 时只记录这个链接
+     * @param texts     需要提取 URL 的内容（如原始内容和渲染内容）
+     * @param extracted 缓存中已提取的 URL，不为 null 时直接记录
+     * @param cacheKey  内容对应的快照，提取后写入缓存；不缓存时为 null
+     */
+    private record ContentItem(AttachmentReference.ReferenceSource source, String link, List<String> texts,
+                               ContentScanner.ExtractResult extracted, ExtractedUrlCache.Key cacheKey) {
+
+        static ContentItem ofLink(String link, AttachmentReference.ReferenceSource source) {
+            return new ContentItem(source, link, List.of(), null, null);
         }
-        
-        // 2. 扫描 Project 图标
-        Mono<Void> scanProjectIcon = Mono.empty();
-        if (projectSchemeOpt.isPresent()) {
-            log.info("开始扫描文档项目图标，GVK: {}", PROJECT_GVK);
-            scanProjectIcon = client.listAll(projectSchemeOpt.get().type(), ListOptions.builder().build(), Sort.unsorted())
-                .doOnNext(ext -> {
-                    try {
-                        String json = objectMapper.writeValueAsString(ext);
-                        JsonNode projectNode = objectMapper.readTree(json);
-                        JsonNode specNode = projectNode.get("spec");
-                        JsonNode statusNode = projectNode.get("status");
-                        
-                        String projectName = ext.getMetadata().getName();
-                        String displayName = specNode != null && specNode.has("displayName") 
-                            ? specNode.get("displayName").asText() : projectName;
-                        String icon = specNode != null && specNode.has("icon") 
-                            ? specNode.get("icon").asText() : null;
-                        String permalink = statusNode != null && statusNode.has("permalink")
-                            ? statusNode.get("permalink").asText() : null;
-                        
-                        if (StringUtils.hasText(icon)) {
-                            // sourceType 使用 Doc，referenceType 使用 icon 区分
-                            AttachmentReference.ReferenceSource source = createSource(
-                                "Doc", projectName, displayName, permalink, false, "icon");
-                            addUrlSourceWithType(fullUrlToSources, relativePathToSources, icon, source);
-                        }
-                    } catch (Exception e) {
-                        log.warn("扫描文档项目失败: {}", e.getMessage());
-                    }
-                })
-                .count()
-                .doOnNext(count -> log.info("文档项目图标扫描完成，共扫描 {} 条记录", count))
-                .then();
+
+        static ContentItem ofTexts(AttachmentReference.ReferenceSource source, ExtractedUrlCache.Key cacheKey,
+                                   String... texts) {
+            List<String> nonEmpty = Arrays.stream(texts).filter(StringUtils::hasText).toList();
+            return new ContentItem(source, null, nonEmpty, null, cacheKey);
         }
-        
-        return Flux.merge(scanDocContent, scanProjectIcon)
-            .then()
-            .onErrorResume(e -> {
-                log.warn("文档扫描出错: {}", e.getMessage());
-                return Mono.empty();
-            });
+
+        static ContentItem ofExtracted(ContentScanner.ExtractResult extracted,
+                                       AttachmentReference.ReferenceSource source) {
+            return new ContentItem(source, null, List.of(), extracted, null);
+        }
+    }
+
+    /**
+     * 提取阶段：在并行调度器上提取 URL
+     * 提取是 CPU 密集操作，与内容获取分开，获取并发槽位不会被提取占用；
+     * 引用源映射是并发集合，可以多线程同时写入
+     */
+    private Mono<Void> extractInParallel(Flux<ContentItem> items,
+                                         Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                         Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        return items
+            .parallel()
+            .runOn(Schedulers.parallel())
+            .doOnNext(item -> extract(item, fullUrlToSources, relativePathToSources))
+            .sequential()
+            .then();
+    }
+
+    private void extract(ContentItem item,
+                         Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                         Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        extract(item, permalinkMatcher, fullUrlToSources, relativePathToSources);
+    }
+
+    /**
+     * 提取内容中的 URL
+     *
+     * @param matcher 按附件链接匹配时使用的匹配器，URL 提取模式下为 null
+     */
+    private void extract(ContentItem item, PermalinkMatcher matcher,
+                         Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                         Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        if (item.link() != null) {
+            addUrlSourceWithType(matcher, fullUrlToSources, relativePathToSources, item.link(), item.source());
+            return;
+        }
+        if (item.extracted() != null) {
+            addExtractResult(fullUrlToSources, relativePathToSources, item.extracted(), item.source());
+            return;
+        }
+        if (item.cacheKey() == null || matcher != null) {
+            item.texts().forEach(text ->
+                addExtractedUrls(matcher, fullUrlToSources, relativePathToSources, text, item.source()));
+            return;
+        }
+        // 合并各部分内容的提取结果，扫描结束时写入缓存
+        ContentScanner.ExtractResult result = new ContentScanner.ExtractResult();
+        for (String text : item.texts()) {
+            ContentScanner.ExtractResult extracted = contentScanner.extractUrlsWithType(text);
+            result.fullUrls().addAll(extracted.fullUrls());
+            result.relativePaths().addAll(extracted.relativePaths());
+        }
+        urlCache.put(item.cacheKey(), result);
+        addExtractResult(fullUrlToSources, relativePathToSources, result, item.source());
     }
 
     /**
@@ -752,25 +1396,63 @@ public class ReferenceServiceImpl implements ReferenceService {
     }
 
     /**
-     * 从内容中提取 URL 并分类添加到对应的 Map
+     * 从内容中提取 URL 并分类添加到对应的 Map（全量扫描，使用本次扫描的匹配器）
      */
     private void addExtractedUrls(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
                                    Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources,
                                    String content, AttachmentReference.ReferenceSource source) {
-        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(content);
+        addExtractedUrls(permalinkMatcher, fullUrlToSources, relativePathToSources, content, source);
+    }
+
+    /**
+     * 从内容中提取 URL 并分类添加到对应的 Map
+     * 按附件链接匹配模式下（matcher 不为 null）只记录命中的附件链接
+     */
+    private void addExtractedUrls(PermalinkMatcher matcher,
+                                   Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                   Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources,
+                                   String content, AttachmentReference.ReferenceSource source) {
+        if (matcher != null) {
+            matcher.collect(content, source, fullUrlToSources, relativePathToSources);
+            return;
+        }
+        addExtractResult(fullUrlToSources, relativePathToSources, contentScanner.extractUrlsWithType(content), source);
+    }
+
+    /**
+     * 将提取结果分类添加到对应的 Map
+     */
+    private void addExtractResult(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                  Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources,
+                                  ContentScanner.ExtractResult result, AttachmentReference.ReferenceSource source) {
         result.fullUrls().forEach(url -> addUrlSource(fullUrlToSources, url, source));
         result.relativePaths().forEach(path -> addUrlSource(relativePathToSources, path, source));
     }
 
     /**
-     * 添加单个 URL 到引用源映射（根据类型分类）
+     * 添加单个 URL 到引用源映射（全量扫描，使用本次扫描的匹配器）
      */
     private void addUrlSourceWithType(Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
                                        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources,
                                        String url, AttachmentReference.ReferenceSource source) {
+        addUrlSourceWithType(permalinkMatcher, fullUrlToSources, relativePathToSources, url, source);
+    }
+
+    /**
+     * 添加单个 URL 到引用源映射（根据类型分类）
+     * 按附件链接匹配模式下（matcher 不为 null）只记录命中的附件链接
+     */
+    private void addUrlSourceWithType(PermalinkMatcher matcher,
+                                       Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                       Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources,
+                                       String url, AttachmentReference.ReferenceSource source) {
         if (!StringUtils.hasText(url) || url.startsWith("data:")) {
             return;
         }
+        if (matcher != null) {
+            matcher.collect(url, source, fullUrlToSources, relativePathToSources);
+            return;
+        }
         if (contentScanner.isFullUrl(url)) {
             fullUrlToSources.computeIfAbsent(url, k -> ConcurrentHashMap.newKeySet()).add(source);
         } else if (url.startsWith("/")) {
@@ -807,58 +1489,22 @@ public class ReferenceServiceImpl implements ReferenceService {
         final AtomicInteger totalCount = new AtomicInteger(0);
         final AtomicInteger referencedCount = new AtomicInteger(0);
         final AtomicLong unreferencedSize = new AtomicLong(0);
+        progress.stage("matching", 0);
 
         return getExcludeSettings()
             .flatMapMany(excludeSettings -> 
                 client.listAll(Attachment.class, ListOptions.builder().build(), Sort.unsorted())
-                    .filter(attachment -> {
-                        // 过滤排除的分组
-                        String groupName = attachment.getSpec().getGroupName();
-                        if (groupName != null && excludeSettings.excludeGroups().contains(groupName)) {
-                            return false;
-                        }
-                        // 过滤排除的存储策略
-                        String policyName = attachment.getSpec().getPolicyName();
-                        if (policyName != null && excludeSettings.excludePolicies().contains(policyName)) {
-                            return false;
-                        }
-                        return true;
-                    })
+                    .filter(attachment -> !isExcluded(attachment, excludeSettings))
             )
-            .flatMap(attachment -> {
+            .map(attachment -> {
                 String attachmentName = attachment.getMetadata().getName();
-                String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
                 long fileSize = attachment.getSpec().getSize() != null ? attachment.getSpec().getSize() : 0;
 
                 totalCount.incrementAndGet();
+                progress.advance(1);
 
-                Set<AttachmentReference.ReferenceSource> sources = new HashSet<>();
-                if (StringUtils.hasText(permalink)) {
-                    // 对 permalink 进行 URL 解码后匹配
-                    String decodedPermalink = decodeUrl(permalink);
-                    
-                    // 1. 完整 URL 精确匹配（permalink 本身是完整 URL）
-                    if (fullUrlToSources.containsKey(decodedPermalink)) {
-                        sources.addAll(fullUrlToSources.get(decodedPermalink));
-                        log.debug("附件 {} 完整URL匹配成功: {}", attachmentName, decodedPermalink);
-                    }
-                    
-                    // 2. 如果 permalink 是相对路径，拼成完整 URL 再匹配
-                    if (!contentScanner.isFullUrl(decodedPermalink)) {
-                        String fullPermalink = externalLinkProcessor.processLink(decodedPermalink);
-                        if (fullUrlToSources.containsKey(fullPermalink)) {
-                            sources.addAll(fullUrlToSources.get(fullPermalink));
-                            log.debug("附件 {} 拼接完整URL匹配成功: {} -> {}", attachmentName, decodedPermalink, fullPermalink);
-                        }
-                    }
-                    
-                    // 3. 相对路径匹配（提取 permalink 的路径部分）
-                    String permalinkPath = contentScanner.extractPath(decodedPermalink);
-                    if (relativePathToSources.containsKey(permalinkPath)) {
-                        sources.addAll(relativePathToSources.get(permalinkPath));
-                        log.debug("附件 {} 相对路径匹配成功: {}", attachmentName, permalinkPath);
-                    }
-                }
+                Set<AttachmentReference.ReferenceSource> sources =
+                    resolveSources(attachment, fullUrlToSources, relativePathToSources);
 
                 if (!sources.isEmpty()) {
                     referencedCount.incrementAndGet();
@@ -866,15 +1512,26 @@ public class ReferenceServiceImpl implements ReferenceService {
                     unreferencedSize.addAndGet(fileSize);
                 }
 
-                return createAttachmentReference(attachmentName, sources, scanTimestamp);
+                return buildAttachmentReference(attachmentName, sources, scanTimestamp);
+            })
+            .as(refs -> writeBatcher.createAll("创建引用记录", refs))
+            .flatMap(result -> {
+                // 缺少记录的附件会显示为未引用，不能让不完整的结果生效；
+                // 保留上一代结果和检查点，下次扫描重新匹配
+                if (result.failed() > 0) {
+                    return Mono.error(new IllegalStateException(
+                        "创建引用记录失败 " + result.failed() + " 条，本次扫描结果未生效"));
+                }
+                return Mono.empty();
             })
             .then(Mono.defer(() -> {
                 int total = totalCount.get();
                 int referenced = referencedCount.get();
                 long unrefSize = unreferencedSize.get();
                 
-                // 更新扫描状态
+                // 更新扫描状态，新一代结果同时生效
                 status.getStatus().setPhase(ReferenceScanStatus.Phase.COMPLETED);
+                status.getStatus().setGeneration(scanTimestamp);
                 status.getStatus().setLastScanTime(Instant.now());
                 status.getStatus().setTotalAttachments(total);
                 status.getStatus().setReferencedCount(referenced);
@@ -885,17 +1542,72 @@ public class ReferenceServiceImpl implements ReferenceService {
                 log.info("扫描完成 - 总附件: {}, 已引用: {}, 未引用: {}, 未引用占用: {} bytes",
                     total, referenced, total - referenced, unrefSize);
 
-                return client.update(status);
+                return client.update(status)
+                    .doOnNext(updated -> collectSupersededReferences(scanTimestamp));
             }));
     }
 
     /**
-     * 创建附件引用记录（使用时间戳生成唯一名称，避免与旧记录冲突）
+     * 附件是否在排除的分组或存储策略中
+     */
+    private boolean isExcluded(Attachment attachment, ExcludeSettings excludeSettings) {
+        // 过滤排除的分组
+        String groupName = attachment.getSpec().getGroupName();
+        if (groupName != null && excludeSettings.excludeGroups().contains(groupName)) {
+            return true;
+        }
+        // 过滤排除的存储策略
+        String policyName = attachment.getSpec().getPolicyName();
+        return policyName != null && excludeSettings.excludePolicies().contains(policyName);
+    }
+
+    /**
+     * 查找引用了附件的引用源
+     */
+    private Set<AttachmentReference.ReferenceSource> resolveSources(
+            Attachment attachment,
+            Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+            Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        String attachmentName = attachment.getMetadata().getName();
+        String permalink = attachment.getStatus() != null ? attachment.getStatus().getPermalink() : null;
+
+        Set<AttachmentReference.ReferenceSource> sources = new HashSet<>();
+        if (StringUtils.hasText(permalink)) {
+            // 对 permalink 进行 URL 解码后匹配
+            String decodedPermalink = decodeUrl(permalink);
+            
+            // 1. 完整 URL 精确匹配（permalink 本身是完整 URL）
+            if (fullUrlToSources.containsKey(decodedPermalink)) {
+                sources.addAll(fullUrlToSources.get(decodedPermalink));
+                log.debug("附件 {} 完整URL匹配成功: {}", attachmentName, decodedPermalink);
+            }
+            
+            // 2. 如果 permalink 是相对路径，拼成完整 URL 再匹配
+            if (!contentScanner.isFullUrl(decodedPermalink)) {
+                String fullPermalink = externalLinkProcessor.processLink(decodedPermalink);
+                if (fullUrlToSources.containsKey(fullPermalink)) {
+                    sources.addAll(fullUrlToSources.get(fullPermalink));
+                    log.debug("附件 {} 拼接完整URL匹配成功: {} -> {}", attachmentName, decodedPermalink, fullPermalink);
+                }
+            }
+            
+            // 3. 相对路径匹配（提取 permalink 的路径部分）
+            String permalinkPath = contentScanner.extractPath(decodedPermalink);
+            if (relativePathToSources.containsKey(permalinkPath)) {
+                sources.addAll(relativePathToSources.get(permalinkPath));
+                log.debug("附件 {} 相对路径匹配成功: {}", attachmentName, permalinkPath);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 构建附件引用记录（使用时间戳生成唯一名称，避免与旧记录冲突）
      */
-    private Mono<AttachmentReference> createAttachmentReference(
+    private AttachmentReference buildAttachmentReference(
             String attachmentName, Set<AttachmentReference.ReferenceSource> sources, long scanTimestamp) {
         
-        // 使用时间戳生成唯一名称，避免与待删除的旧记录冲突
+        // 使用扫描代数生成唯一名称，新旧两代记录可以共存
         String refName = "ref-" + attachmentName + "-" + scanTimestamp;
         
         AttachmentReference ref = new AttachmentReference();
@@ -904,6 +1616,7 @@ public class ReferenceServiceImpl implements ReferenceService {
         
         AttachmentReference.AttachmentReferenceSpec spec = new AttachmentReference.AttachmentReferenceSpec();
         spec.setAttachmentName(attachmentName);
+        spec.setGeneration(scanTimestamp);
         ref.setSpec(spec);
         
         AttachmentReference.AttachmentReferenceStatus refStatus = new AttachmentReference.AttachmentReferenceStatus();
@@ -913,7 +1626,7 @@ public class ReferenceServiceImpl implements ReferenceService {
         refStatus.setPendingDelete(false);
         ref.setStatus(refStatus);
         
-        return client.create(ref);
+        return ref;
     }
 
     /**
@@ -938,14 +1651,18 @@ public class ReferenceServiceImpl implements ReferenceService {
             }));
     }
 
+    @Override
+    public Flux<ScanProgress> streamProgress() {
+        return progress.flux();
+    }
+
     @Override
     public Mono<ListResult<AttachmentReferenceVo>> listReferences(ReferenceQuery query) {
         // 优化：先批量获取所有 AttachmentReference，避免 N+1 查询
-        // 过滤掉 pendingDelete 的记录
-        Mono<Map<String, AttachmentReference>> refMapMono = client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
-            .filter(ref -> ref.getStatus() == null || 
-                           ref.getStatus().getPendingDelete() == null || 
-                           !ref.getStatus().getPendingDelete())
+        // 只读取当前生效代的记录
+        Mono<Map<String, AttachmentReference>> refMapMono = getActiveGeneration()
+            .flatMapMany(generation -> client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
+                .filter(ref -> ref.belongsTo(generation.orElse(null))))
             .collectMap(
                 ref -> ref.getSpec().getAttachmentName(),
                 ref -> ref
@@ -1018,19 +1735,25 @@ public class ReferenceServiceImpl implements ReferenceService {
     }
 
     /**
-     * 通过附件名称查找引用记录（排除待删除的）
+     * 通过附件名称查找当前生效代的引用记录
      * 利用 spec.attachmentName 索引进行查询
      */
     private Mono<AttachmentReference> findReferenceByAttachmentName(String attachmentName) {
+        return getActiveGeneration()
+            .flatMap(generation -> findReference(attachmentName, generation.orElse(null)));
+    }
+
+    /**
+     * 查找附件在指定扫描代数的引用记录
+     */
+    private Mono<AttachmentReference> findReference(String attachmentName, Long generation) {
         return client.listBy(AttachmentReference.class,
                 ListOptions.builder()
                     .fieldQuery(equal("spec.attachmentName", attachmentName))
                     .build(),
-                PageRequestImpl.ofSize(10))  // 理论上只有一条，但留点余量
+                PageRequestImpl.ofSize(10))  // 扫描和回收期间新旧两代共存，留点余量
             .flatMap(result -> Mono.justOrEmpty(result.getItems().stream()
-                .filter(ref -> ref.getStatus() == null || 
-                               ref.getStatus().getPendingDelete() == null || 
-                               !ref.getStatus().getPendingDelete())
+                .filter(ref -> ref.belongsTo(generation))
                 .filter(ref -> ref.getMetadata().getDeletionTimestamp() == null)
                 .findFirst()));
     }
@@ -1172,13 +1895,305 @@ public class ReferenceServiceImpl implements ReferenceService {
             });
     }
 
+    @Override
+    public Mono<Boolean> reindexSource(String sourceType, String sourceName) {
+        return withActiveGeneration(generation -> getAnalysisSettings()
+            .filter(settings -> settings.incrementalIndex() && isSourceEnabled(sourceType, settings))
+            .flatMap(settings -> doReindexSource(sourceType, sourceName, generation, settings)));
+    }
+
+    @Override
+    public Mono<Boolean> reindexAttachment(String attachmentName) {
+        // 附件的链接、分组或存储策略变化后查找表失效（未开启增量更新时也清除，避免开启后使用旧的查找表）
+        invalidatePermalinkIndex();
+        return withActiveGeneration(generation -> getAnalysisSettings()
+            .filter(AnalysisSettings::incrementalIndex)
+            .flatMap(settings -> doReindexAttachment(attachmentName, generation)));
+    }
+
+    /**
+     * 在当前生效的扫描代数上执行增量更新
+     * 全量扫描进行中返回 false（扫描会重新提取全部内容，由调用方在扫描结束后重试）；
+     * 从未完成过扫描时没有可更新的记录，直接返回 true
+     */
+    private Mono<Boolean> withActiveGeneration(java.util.function.Function<Long, Mono<Void>> update) {
+        return client.fetch(ReferenceScanStatus.class, ReferenceScanStatus.SINGLETON_NAME)
+            .mapNotNull(ReferenceScanStatus::getStatus)
+            .flatMap(status -> {
+                if (ReferenceScanStatus.Phase.SCANNING.equals(status.getPhase())) {
+                    return Mono.just(false);
+                }
+                if (status.getGeneration() == null) {
+                    return Mono.just(true);
+                }
+                return update.apply(status.getGeneration()).thenReturn(true);
+            })
+            .defaultIfEmpty(true);
+    }
+
+    /**
+     * 引用源类型是否在扫描范围内
+     */
+    private boolean isSourceEnabled(String sourceType, AnalysisSettings settings) {
+        return switch (sourceType) {
+            case "Post" -> settings.scanPosts();
+            case "SinglePage" -> settings.scanPages();
+            case "Comment", "Reply" -> settings.scanComments();
+            // 系统设置始终扫描
+            case "ConfigMap" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 重新提取单个内容的引用，替换它在各引用记录中的旧引用源
+     * 提取方式与全量扫描一致（按附件链接匹配模式下使用查找表中的匹配器），提取结果通过查找表匹配附件；
+     * 只有本次命中的附件和之前引用过该内容的附件（通过引用源索引查找）会被更新
+     */
+    private Mono<Void> doReindexSource(String sourceType, String sourceName, long generation,
+                                       AnalysisSettings settings) {
+        Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources = new ConcurrentHashMap<>();
+        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources = new ConcurrentHashMap<>();
+        // ConfigMap 的引用源按所属对象记录为系统、插件或主题设置
+        Set<String> storedTypes = "ConfigMap".equals(sourceType)
+            ? Set.of("SystemSetting", "PluginSetting", "ThemeSetting")
+            : Set.of(sourceType);
+        java.util.function.Predicate<AttachmentReference.ReferenceSource> fromSubject = source ->
+            sourceName.equals(source.getSourceName()) && storedTypes.contains(source.getSourceType());
+
+        return getPermalinkIndex(settings)
+            .flatMap(index -> extractSource(sourceType, sourceName, index.matcher(),
+                    fullUrlToSources, relativePathToSources)
+                .then(Mono.zip(
+                    Mono.fromSupplier(() -> index.match(fullUrlToSources, relativePathToSources)),
+                    findReferencingAttachments(sourceName, generation))))
+            .flatMap(tuple -> {
+                Map<String, Set<AttachmentReference.ReferenceSource>> matched = tuple.getT1();
+                Set<String> affected = new HashSet<>(tuple.getT2());
+                affected.addAll(matched.keySet());
+                if (affected.isEmpty()) {
+                    return Mono.empty();
+                }
+                IndexDelta delta = new IndexDelta();
+                return writeBatcher.writeAll("增量更新引用记录", Flux.fromIterable(affected),
+                        attachmentName -> replaceSubjectSources(attachmentName, generation, fromSubject,
+                            matched.getOrDefault(attachmentName, Set.of()), delta))
+                    .doOnNext(result -> log.debug("{} {} 引用已更新，涉及附件 {} 个",
+                        sourceType, sourceName, affected.size()))
+                    .then(Mono.defer(() -> applyStatusDelta(generation, delta)));
+            });
+    }
+
+    /**
+     * 提取单个内容中的 URL（内容不存在或正在删除时不提取，旧引用源随之移除）
+     */
+    private Mono<Void> extractSource(String sourceType, String sourceName, PermalinkMatcher matcher,
+                                     Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources,
+                                     Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources) {
+        return switch (sourceType) {
+            case "Post" -> client.fetch(Post.class, sourceName)
+                .filter(post -> post.getMetadata().getDeletionTimestamp() == null)
+                .flatMap(post -> scanPost(post, matcher, fullUrlToSources, relativePathToSources));
+            case "SinglePage" -> client.fetch(SinglePage.class, sourceName)
+                .filter(page -> page.getMetadata().getDeletionTimestamp() == null)
+                .flatMap(page -> scanSinglePage(page, matcher, fullUrlToSources, relativePathToSources));
+            case "Comment" -> client.fetch(Comment.class, sourceName)
+                .filter(comment -> comment.getMetadata().getDeletionTimestamp() == null)
+                .doOnNext(comment -> scanComment(comment, matcher, fullUrlToSources, relativePathToSources))
+                .then();
+            case "Reply" -> client.fetch(Reply.class, sourceName)
+                .filter(reply -> reply.getMetadata().getDeletionTimestamp() == null)
+                .doOnNext(reply -> scanReply(reply, matcher, fullUrlToSources, relativePathToSources))
+                .then();
+            case "ConfigMap" -> scanConfigMap(sourceName, matcher, fullUrlToSources, relativePathToSources);
+            default -> Mono.empty();
+        };
+    }
+
+    /**
+     * 获取增量更新使用的附件链接查找表（不含已排除分组和存储策略的附件）
+     * 排除设置或匹配模式与缓存的查找表不一致时重新构建
+     */
+    private Mono<AttachmentPermalinkIndex> getPermalinkIndex(AnalysisSettings settings) {
+        return getExcludeSettings().flatMap(excludeSettings -> {
+            CachedPermalinkIndex cached = permalinkIndex;
+            if (cached != null && cached.matches(excludeSettings, settings.matchPermalinks())) {
+                return Mono.just(cached.index());
+            }
+            long version = permalinkIndexVersion.get();
+            return client.listAll(Attachment.class, ListOptions.builder().build(), Sort.unsorted())
+                .filter(attachment -> !isExcluded(attachment, excludeSettings))
+                .collectList()
+                .map(attachments -> {
+                    long startNanos = System.nanoTime();
+                    AttachmentPermalinkIndex index = AttachmentPermalinkIndex.build(attachments,
+                        settings.matchPermalinks(), contentScanner, externalLinkProcessor, this::decodeUrl);
+                    log.debug("附件链接查找表构建完成 - 附件: {}, 链接: {}, 耗时: {} ms", attachments.size(),
+                        index.size(), Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+                    if (permalinkIndexVersion.get() == version) {
+                        permalinkIndex = new CachedPermalinkIndex(excludeSettings, settings.matchPermalinks(), index);
+                    }
+                    return index;
+                });
+        });
+    }
+
+    private void invalidatePermalinkIndex() {
+        permalinkIndexVersion.incrementAndGet();
+        permalinkIndex = null;
+    }
+
+    /**
+     * 通过引用源索引查找当前引用了指定内容的附件
+     */
+    private Mono<Set<String>> findReferencingAttachments(String sourceName, long generation) {
+        return client.listAll(AttachmentReference.class,
+                ListOptions.builder()
+                    .fieldQuery(equal("status.references.sourceName", sourceName))
+                    .build(),
+                Sort.unsorted())
+            .filter(ref -> ref.belongsTo(generation))
+            .map(ref -> ref.getSpec().getAttachmentName())
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * 替换引用记录中来自指定内容的引用源
+     * 每次重试都读取最新版本，成功写入后记录引用状态的变化
+     */
+    private Mono<Void> replaceSubjectSources(String attachmentName, long generation,
+                                             java.util.function.Predicate<AttachmentReference.ReferenceSource> fromSubject,
+                                             Set<AttachmentReference.ReferenceSource> added, IndexDelta delta) {
+        return findReference(attachmentName, generation)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(existing -> {
+                if (existing.isEmpty()) {
+                    // 上次扫描后上传、尚未建立记录的附件
+                    if (added.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    return client.create(buildAttachmentReference(attachmentName, added, generation))
+                        .doOnNext(created -> delta.add(1, 1, 0))
+                        .then();
+                }
+
+                AttachmentReference ref = existing.get();
+                if (ref.getStatus() == null) {
+                    ref.setStatus(new AttachmentReference.AttachmentReferenceStatus());
+                }
+                List<AttachmentReference.ReferenceSource> previous = ref.getStatus().getReferences() != null
+                    ? ref.getStatus().getReferences() : List.of();
+                Set<AttachmentReference.ReferenceSource> updated = new LinkedHashSet<>();
+                previous.stream().filter(fromSubject.negate()).forEach(updated::add);
+                updated.addAll(added);
+                if (updated.equals(new HashSet<>(previous))) {
+                    return Mono.empty();
+                }
+
+                boolean wasReferenced = !previous.isEmpty();
+                ref.getStatus().setReferences(new ArrayList<>(updated));
+                ref.getStatus().setReferenceCount(updated.size());
+                ref.getStatus().setLastScannedAt(Instant.now());
+                return client.update(ref)
+                    .flatMap(saved -> wasReferenced == !updated.isEmpty()
+                        ? Mono.<Void>empty()
+                        : recordReferencedChange(attachmentName, !updated.isEmpty(), delta));
+            });
+    }
+
+    /**
+     * 记录附件在已引用和未引用之间的变化
+     */
+    private Mono<Void> recordReferencedChange(String attachmentName, boolean referenced, IndexDelta delta) {
+        return fetchAttachmentSize(attachmentName)
+            .doOnNext(size -> delta.add(0, referenced ? 1 : -1, referenced ? -size : size))
+            .then();
+    }
+
+    private Mono<Long> fetchAttachmentSize(String attachmentName) {
+        return client.fetch(Attachment.class, attachmentName)
+            .map(attachment -> attachment.getSpec().getSize() != null ? attachment.getSpec().getSize() : 0L)
+            .defaultIfEmpty(0L);
+    }
+
+    /**
+     * 附件新增或删除时创建或删除它在当前代的引用记录
+     * 新附件先记为未引用，之后引用它的内容变更时补上引用源
+     */
+    private Mono<Void> doReindexAttachment(String attachmentName, long generation) {
+        Mono<Optional<Attachment>> attachmentMono = client.fetch(Attachment.class, attachmentName)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty());
+        Mono<Optional<AttachmentReference>> refMono = findReference(attachmentName, generation)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(attachmentMono, getExcludeSettings(), refMono)
+            .flatMap(tuple -> {
+                Optional<Attachment> attachment = tuple.getT1();
+                Optional<AttachmentReference> ref = tuple.getT3();
+                boolean indexed = attachment
+                    .filter(a -> a.getMetadata().getDeletionTimestamp() == null)
+                    .filter(a -> !isExcluded(a, tuple.getT2()))
+                    .isPresent();
+                // 附件已被彻底删除时无法得知大小，未引用占用在下次全量扫描时校正
+                long size = attachment
+                    .map(a -> a.getSpec().getSize() != null ? a.getSpec().getSize() : 0L)
+                    .orElse(0L);
+
+                IndexDelta delta = new IndexDelta();
+                Mono<Void> write = Mono.empty();
+                if (indexed && ref.isEmpty()) {
+                    write = client.create(buildAttachmentReference(attachmentName, Set.of(), generation))
+                        .doOnNext(created -> delta.add(1, 0, size))
+                        .then();
+                } else if (!indexed && ref.isPresent()) {
+                    boolean referenced = ref.get().getStatus() != null
+                        && ref.get().getStatus().getReferenceCount() > 0;
+                    write = client.delete(ref.get())
+                        .doOnNext(deleted -> delta.add(-1, referenced ? -1 : 0, referenced ? 0 : -size))
+                        .then();
+                }
+                return write.then(Mono.defer(() -> applyStatusDelta(generation, delta)));
+            });
+    }
+
+    /**
+     * 将增量更新的计数变化写入扫描状态
+     * 状态已切换到其他代或正在全量扫描时跳过（扫描完成时会重新统计）
+     */
+    private Mono<Void> applyStatusDelta(long generation, IndexDelta delta) {
+        if (delta.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> client.fetch(ReferenceScanStatus.class, ReferenceScanStatus.SINGLETON_NAME))
+            .filter(status -> status.getStatus() != null
+                && Objects.equals(status.getStatus().getGeneration(), generation)
+                && !ReferenceScanStatus.Phase.SCANNING.equals(status.getStatus().getPhase()))
+            .flatMap(status -> {
+                ReferenceScanStatus.ReferenceScanStatusStatus s = status.getStatus();
+                int total = Math.max(0, s.getTotalAttachments() + delta.total.get());
+                int referenced = Math.max(0, Math.min(total, s.getReferencedCount() + delta.referenced.get()));
+                s.setTotalAttachments(total);
+                s.setReferencedCount(referenced);
+                s.setUnreferencedCount(total - referenced);
+                s.setUnreferencedSize(Math.max(0, s.getUnreferencedSize() + delta.unreferencedSize.get()));
+                return client.update(status);
+            })
+            .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
+                .filter(ExtensionWriteBatcher::isOptimisticLockConflict))
+            .then();
+    }
+
     @Override
     public Mono<Void> clearAll() {
         log.info("开始清空引用扫描记录...");
         
-        // 删除所有 AttachmentReference 记录
-        return client.listAll(AttachmentReference.class, ListOptions.builder().build(), Sort.unsorted())
-            .flatMap(ref -> client.delete(ref))
+        // 删除所有 AttachmentReference 记录、未完成扫描的检查点和 URL 提取缓存
+        return deleteAllReferences()
+            .then(deleteCheckpoint())
+            .then(urlCache.deleteAll())
             .then(Mono.defer(() -> {
                 // 重置扫描状态
                 return getScanStatus()
@@ -1187,6 +2202,10 @@ public class ReferenceServiceImpl implements ReferenceService {
                             status.getStatus().setPhase(null);
                             status.getStatus().setLastScanTime(null);
                             status.getStatus().setStartTime(null);
+                            status.getStatus().setGeneration(null);
+                            status.getStatus().setCheckpointTime(null);
+                            status.getStatus().setResumeCount(0);
+                            status.getStatus().setSourceDurations(null);
                             status.getStatus().setTotalAttachments(0);
                             status.getStatus().setReferencedCount(0);
                             status.getStatus().setUnreferencedCount(0);
@@ -1337,6 +2356,33 @@ public class ReferenceServiceImpl implements ReferenceService {
             .defaultIfEmpty(DEFAULT_SCAN_TIMEOUT_MINUTES);
     }
 
+    /**
+     * 获取引用扫描内容获取并发数（从 global.analysis.referenceScanConcurrency 读取）
+     */
+    private Mono<Integer> getReferenceScanConcurrency() {
+        return settingFetcher.get("global")
+            .map(setting -> {
+                JsonNode analysis = setting.get("analysis");
+                if (analysis != null) {
+                    JsonNode concurrency = analysis.get("referenceScanConcurrency");
+                    if (concurrency != null) {
+                        if (concurrency.isNumber()) {
+                            return Math.max(1, Math.min(10, concurrency.asInt()));
+                        } else if (concurrency.isTextual()) {
+                            try {
+                                int value = Integer.parseInt(concurrency.asText());
+                                return Math.max(1, Math.min(10, value));
+                            } catch (NumberFormatException e) {
+                                // ignore
+                            }
+                        }
+                    }
+                }
+                return DEFAULT_REFERENCE_SCAN_CONCURRENCY;
+            })
+            .defaultIfEmpty(DEFAULT_REFERENCE_SCAN_CONCURRENCY);
+    }
+
     /**
      * 获取分析设置
      */
@@ -1351,11 +2397,15 @@ public class ReferenceServiceImpl implements ReferenceService {
                     boolean scanMoments = getBooleanValue(refScanning, "scanMoments", false);
                     boolean scanPhotos = getBooleanValue(refScanning, "scanPhotos", false);
                     boolean scanDocs = getBooleanValue(refScanning, "scanDocs", false);
-                    return new AnalysisSettings(scanPosts, scanPages, scanComments, scanMoments, scanPhotos, scanDocs);
+                    JsonNode matchMode = refScanning.get("matchMode");
+                    boolean matchPermalinks = matchMode != null && "permalink".equals(matchMode.asText());
+                    boolean incrementalIndex = getBooleanValue(refScanning, "incrementalIndex", true);
+                    return new AnalysisSettings(scanPosts, scanPages, scanComments, scanMoments, scanPhotos, scanDocs,
+                        matchPermalinks, incrementalIndex);
                 }
-                return new AnalysisSettings(true, true, false, false, false, false);
+                return new AnalysisSettings(true, true, false, false, false, false, false, true);
             })
-            .defaultIfEmpty(new AnalysisSettings(true, true, false, false, false, false));
+            .defaultIfEmpty(new AnalysisSettings(true, true, false, false, false, false, false, true));
     }
 
     private boolean getBooleanValue(JsonNode node, String key, boolean defaultValue) {
@@ -1379,10 +2429,41 @@ public class ReferenceServiceImpl implements ReferenceService {
     }
 
     private record AnalysisSettings(boolean scanPosts, boolean scanPages, boolean scanComments, 
-                                     boolean scanMoments, boolean scanPhotos, boolean scanDocs) {}
+                                     boolean scanMoments, boolean scanPhotos, boolean scanDocs,
+                                     boolean matchPermalinks, boolean incrementalIndex) {}
 
     private record ExcludeSettings(Set<String> excludeGroups, Set<String> excludePolicies) {}
 
+    /**
+     * 缓存的附件链接查找表及构建时使用的设置
+     */
+    private record CachedPermalinkIndex(ExcludeSettings excludeSettings, boolean matchPermalinks,
+                                        AttachmentPermalinkIndex index) {
+
+        boolean matches(ExcludeSettings excludeSettings, boolean matchPermalinks) {
+            return this.excludeSettings.equals(excludeSettings) && this.matchPermalinks == matchPermalinks;
+        }
+    }
+
+    /**
+     * 增量更新产生的扫描状态计数变化
+     */
+    private static final class IndexDelta {
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger referenced = new AtomicInteger();
+        private final AtomicLong unreferencedSize = new AtomicLong();
+
+        void add(int totalDelta, int referencedDelta, long unreferencedSizeDelta) {
+            total.addAndGet(totalDelta);
+            referenced.addAndGet(referencedDelta);
+            unreferencedSize.addAndGet(unreferencedSizeDelta);
+        }
+
+        boolean isEmpty() {
+            return total.get() == 0 && referenced.get() == 0 && unreferencedSize.get() == 0;
+        }
+    }
+
     /**
      * 获取排除设置
      */
@@ -0,0 +1,155 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.model.ScanProgress;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫描进度跟踪器
+ * 扫描线程只更新内存计数，按固定间隔向 Sink 发布一次进度快照，
+ * 阶段和步骤变化时立即发布。Sink 重放最新的一条，新订阅者立即得到当前进度。
+ * 每种扫描持有一个实例，所有 SSE 订阅共享同一个 Sink
+ */
+final class ScanProgressTracker {
+
+    /**
+     * 两次进度事件的最小间隔（毫秒）
+     */
+    private static final long EMIT_INTERVAL_MILLIS = 500;
+
+    private final Sinks.Many<ScanProgress> sink = Sinks.many().replay().latest();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong bytesProcessed = new AtomicLong();
+    private final AtomicLong lastEmitNanos = new AtomicLong();
+
+    private volatile String phase;
+    private volatile String stage;
+    private volatile String message;
+    private volatile Instant startTime;
+    private volatile long startNanos;
+
+    ScanProgressTracker() {
+        sink.tryEmitNext(ScanProgress.idle());
+    }
+
+    /**
+     * 开始新的扫描，清零计数
+     *
+     * @param phase 扫描中阶段
+     * @param stage 第一个步骤
+     */
+    void start(String phase, String stage) {
+        processed.set(0);
+        total.set(0);
+        bytesProcessed.set(0);
+        this.startTime = Instant.now();
+        this.startNanos = System.nanoTime();
+        this.phase = phase;
+        this.stage = stage;
+        this.message = null;
+        emit();
+    }
+
+    /**
+     * 进入新的步骤，计数继续累计
+     */
+    void stage(String stage) {
+        this.stage = stage;
+        emit();
+    }
+
+    /**
+     * 进入新的步骤并重新计数（步骤的处理对象与之前不同时使用）
+     */
+    void stage(String stage, long total) {
+        this.processed.set(0);
+        this.total.set(total);
+        this.stage = stage;
+        emit();
+    }
+
+    void setTotal(long total) {
+        this.total.set(total);
+        emitThrottled();
+    }
+
+    void advance(long delta) {
+        processed.addAndGet(delta);
+        emitThrottled();
+    }
+
+    void addBytes(long bytes) {
+        bytesProcessed.addAndGet(bytes);
+        emitThrottled();
+    }
+
+    /**
+     * 扫描结束（完成或失败）
+     *
+     * @param phase   结束阶段
+     * @param message 附加信息
+     */
+    void finish(String phase, String message) {
+        this.phase = phase;
+        this.stage = null;
+        this.message = message;
+        emit();
+    }
+
+    long processed() {
+        return processed.get();
+    }
+
+    long total() {
+        return total.get();
+    }
+
+    /**
+     * 进度事件流（重放最新一条，不会结束）
+     */
+    Flux<ScanProgress> flux() {
+        return sink.asFlux();
+    }
+
+    /**
+     * 当前进度快照
+     */
+    ScanProgress snapshot() {
+        long done = processed.get();
+        long all = total.get();
+        long bytes = bytesProcessed.get();
+        double elapsedSeconds = startTime == null ? 0
+            : (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        double throughput = elapsedSeconds > 0 ? done / elapsedSeconds : 0;
+        double bytesPerSecond = elapsedSeconds > 0 ? bytes / elapsedSeconds : 0;
+        Long etaSeconds = null;
+        if (stage != null && throughput > 0 && all > done) {
+            etaSeconds = Math.round((all - done) / throughput);
+        }
+        return new ScanProgress(phase, stage, done, all, bytes, throughput, bytesPerSecond,
+            etaSeconds, startTime, message);
+    }
+
+    private void emitThrottled() {
+        long now = System.nanoTime();
+        long last = lastEmitNanos.get();
+        if (now - last >= TimeUnit.MILLISECONDS.toNanos(EMIT_INTERVAL_MILLIS)
+            && lastEmitNanos.compareAndSet(last, now)) {
+            emit();
+        }
+    }
+
+    /**
+     * 发布进度快照，多个扫描线程可能同时调用，串行化后写入 Sink
+     */
+    private synchronized void emit() {
+        lastEmitNanos.set(System.nanoTime());
+        sink.tryEmitNext(snapshot());
+    }
+}
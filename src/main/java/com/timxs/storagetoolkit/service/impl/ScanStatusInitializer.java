@@ -2,6 +2,8 @@ package com.timxs.storagetoolkit.service.impl;
 
 import com.timxs.storagetoolkit.extension.DuplicateScanStatus;
 import com.timxs.storagetoolkit.extension.ReferenceScanStatus;
+import com.timxs.storagetoolkit.service.DuplicateService;
+import com.timxs.storagetoolkit.service.ReferenceService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,27 +16,35 @@ import java.time.Duration;
 
 /**
  * 扫描状态初始化器
- * 在插件启动时检查并重置卡住的扫描状态
+ * 在插件启动时继续被中断的扫描，多次中断的扫描重置为错误状态
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ScanStatusInitializer {
 
+    /**
+     * 同一次扫描最多自动继续的次数，超过后视为无法完成（如每次都导致服务崩溃）
+     */
+    private static final int MAX_RESUME_COUNT = 3;
+
     private final ReactiveExtensionClient client;
+    private final DuplicateService duplicateService;
+    private final ReferenceService referenceService;
 
     /**
      * 插件启动后执行
-     * 延迟 3 秒后检查扫描状态，如果是 SCANNING 则重置为 ERROR（表示上次扫描被中断）
+     * 延迟 3 秒后检查扫描状态，如果是 SCANNING 表示上次扫描被中断：
+     * 继续次数未达上限时从检查点继续，否则重置为 ERROR
      */
     @PostConstruct
     public void init() {
         // 延迟执行，确保 Extension 已注册完成
         Mono.delay(Duration.ofSeconds(3))
             .then(Mono.defer(() -> {
-                log.info("开始检查并重置卡住的扫描状态...");
-                return resetStuckDuplicateScanStatus()
-                    .then(resetStuckReferenceScanStatus());
+                log.info("开始检查被中断的扫描...");
+                return resumeOrResetDuplicateScan()
+                    .then(resumeOrResetReferenceScan());
             }))
             .subscribe(
                 v -> log.info("扫描状态检查完成"),
@@ -42,6 +52,42 @@ public class ScanStatusInitializer {
             );
     }
 
+    /**
+     * 继续被中断的重复检测扫描，无法继续时重置状态
+     */
+    private Mono<Void> resumeOrResetDuplicateScan() {
+        return client.fetch(DuplicateScanStatus.class, DuplicateScanStatus.SINGLETON_NAME)
+            .filter(status -> status.getStatus() != null
+                && DuplicateScanStatus.Phase.SCANNING.equals(status.getStatus().getPhase())
+                && status.getStatus().getResumeCount() < MAX_RESUME_COUNT)
+            .flatMap(status -> duplicateService.resumeScan())
+            .map(status -> true)
+            .onErrorResume(error -> {
+                log.warn("继续重复检测扫描失败: {}", error.getMessage());
+                return Mono.just(false);
+            })
+            .switchIfEmpty(Mono.just(false))
+            .flatMap(resumed -> resumed ? Mono.empty() : resetStuckDuplicateScanStatus());
+    }
+
+    /**
+     * 继续被中断的引用扫描，无法继续时重置状态
+     */
+    private Mono<Void> resumeOrResetReferenceScan() {
+        return client.fetch(ReferenceScanStatus.class, ReferenceScanStatus.SINGLETON_NAME)
+            .filter(status -> status.getStatus() != null
+                && ReferenceScanStatus.Phase.SCANNING.equals(status.getStatus().getPhase())
+                && status.getStatus().getResumeCount() < MAX_RESUME_COUNT)
+            .flatMap(status -> referenceService.resumeScan())
+            .map(status -> true)
+            .onErrorResume(error -> {
+                log.warn("继续引用扫描失败: {}", error.getMessage());
+                return Mono.just(false);
+            })
+            .switchIfEmpty(Mono.just(false))
+            .flatMap(resumed -> resumed ? Mono.empty() : resetStuckReferenceScanStatus());
+    }
+
     /**
      * 重置卡住的重复检测扫描状态
      */
@@ -56,7 +102,7 @@ public class ScanStatusInitializer {
                 return client.update(status);
             })
             .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
-                .filter(e -> e.getMessage() != null && e.getMessage().contains("optimistic")))
+                .filter(ExtensionWriteBatcher::isOptimisticLockConflict))
             .doOnSuccess(v -> {
                 if (v != null) {
                     log.info("重复检测扫描状态已重置");
@@ -83,7 +129,7 @@ public class ScanStatusInitializer {
                 return client.update(status);
             })
             .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
-                .filter(e -> e.getMessage() != null && e.getMessage().contains("optimistic")))
+                .filter(ExtensionWriteBatcher::isOptimisticLockConflict))
             .doOnSuccess(v -> {
                 if (v != null) {
                     log.info("引用扫描状态已重置");
@@ -106,6 +106,12 @@ public class SettingsManagerImpl implements SettingsManager {
                     // 图片处理并发数
                     int concurrency = getInt(basic, "imageProcessingConcurrency", 3);
                     config.setImageProcessingConcurrency(Math.max(1, Math.min(10, concurrency)));
+                    // 处理队列容量和排队超时（秒）
+                    config.setProcessingQueueCapacity(Math.max(0, getInt(basic, "processingQueueCapacity", 20)));
+                    config.setProcessingQueueTimeout(Math.max(0, getInt(basic, "processingQueueTimeout", 30)));
+                    // 磁盘缓冲阈值，单位是 KB，需要转换为字节
+                    long diskBufferThreshold = getLong(basic, "diskBufferThreshold", 2048) * 1024;
+                    config.setDiskBufferThreshold(Math.max(0, diskBufferThreshold));
                 }
             })
             .thenReturn(true)
@@ -114,7 +120,7 @@ public class SettingsManagerImpl implements SettingsManager {
 
     /**
      * 从 imageProcessing 组读取图片处理设置
-     * 包含文件过滤、格式转换、水印三个子组
+     * 包含文件过滤、尺寸限制、格式转换、水印四个子组
      *
      * @param config 配置对象（会被修改）
      * @return 完成信号
@@ -134,6 +140,18 @@ public class SettingsManagerImpl implements SettingsManager {
                     config.setMinFileSize(minSize);
                     config.setMaxFileSize(maxSize);
                     log.debug("文件大小过滤配置 - minFileSize: {} KB, maxFileSize: {} KB", minSize / 1024, maxSize / 1024);
+                    // 像素数单位是百万像素
+                    long maxMegapixels = Math.max(0, getLong(fileFilter, "maxMegapixels", 50));
+                    config.setMaxPixels(maxMegapixels * 1_000_000L);
+                }
+                
+                // 尺寸限制（嵌套在 resize 下）
+                JsonNode resizeNode = setting.get("resize");
+                ResizeConfig resize = config.getResize();
+                if (resizeNode != null) {
+                    resize.setEnabled(getBoolean(resizeNode, "enabled", false));
+                    resize.setMaxWidth(Math.max(0, getInt(resizeNode, "maxWidth", 1920)));
+                    resize.setMaxHeight(Math.max(0, getInt(resizeNode, "maxHeight", 0)));
                 }
                 
                 // 格式转换（嵌套在 formatConversion 下）
@@ -160,6 +178,9 @@ public class SettingsManagerImpl implements SettingsManager {
                     format.setWebpEffort(Math.max(0, Math.min(6, webpEffort)));
                     int avifEffort = getInt(formatNode, "avifEffort", 4);
                     format.setAvifEffort(Math.max(0, Math.min(10, avifEffort)));
+                    
+                    // 透明通道
+                    format.setPreserveAlpha(getBoolean(formatNode, "preserveAlpha", false));
                 }
                 
                 // 水印设置（嵌套在 watermark 下）
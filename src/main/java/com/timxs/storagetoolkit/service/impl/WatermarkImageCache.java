@@ -0,0 +1,279 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+import run.halo.app.infra.ExternalLinkProcessor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 水印图片缓存
+ * 缓存解码后的水印图片及按目标宽度预缩放的版本，避免每次上传都重新下载和解码水印图片
+ * 缓存以 URL + ETag/Last-Modified 标识，定期在后台通过条件请求校验（校验期间继续使用旧缓存），
+ * 水印图片地址变更时自动失效。
+ * 首次加载只发起一次请求，并发的上传等待同一个结果而不是排队重试；加载失败的结果也缓存一段时间，
+ * 期间上传直接跳过水印，水印图片地址不可用时不会拖慢整个处理队列
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WatermarkImageCache {
+
+    /**
+     * 外部链接处理器，用于将相对路径转为完整 URL
+     */
+    private final ExternalLinkProcessor externalLinkProcessor;
+
+    /**
+     * 重新校验间隔，间隔内直接使用缓存，不发起网络请求
+     */
+    private static final Duration REVALIDATE_INTERVAL = Duration.ofMinutes(5);
+
+    /**
+     * 加载失败后的重试间隔，间隔内的上传直接跳过水印
+     */
+    private static final Duration FAILURE_BACKOFF = Duration.ofSeconds(60);
+
+    /**
+     * 每个水印图片最多缓存的缩放版本数量
+     */
+    private static final int MAX_SCALED_VARIANTS = 32;
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private static final int CONNECT_TIMEOUT = 15000;
+
+    /**
+     * 读取超时（毫秒）
+     */
+    private static final int READ_TIMEOUT = 20000;
+
+    /**
+     * 当前水印图片地址的加载结果
+     * 同一时间只会配置一个水印图片，因此只保留一项
+     */
+    private final AtomicReference<LoadEntry> current = new AtomicReference<>();
+
+    /**
+     * 是否有后台校验正在进行，同一时间只发起一个校验请求
+     */
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    /**
+     * 获取缩放到目标宽度的水印图片
+     * 高度按水印原始宽高比计算，与 WatermarkService 的缩放规则一致
+     *
+     * @param imageUrl    水印图片地址（支持相对路径）
+     * @param targetWidth 目标宽度（像素）
+     * @return 缩放后的水印图片，加载失败返回 null
+     */
+    public BufferedImage getScaled(String imageUrl, int targetWidth) {
+        CachedWatermark watermark = get(imageUrl);
+        if (watermark == null) {
+            return null;
+        }
+        if (targetWidth <= 0 || targetWidth == watermark.image().getWidth()) {
+            return watermark.image();
+        }
+        return watermark.variants().get(targetWidth, width -> scale(watermark.image(), width));
+    }
+
+    /**
+     * 获取水印图片缓存项
+     * 地址变更或没有缓存时由第一个调用方加载，其他调用方等待同一次加载的结果；
+     * 加载失败时在重试间隔内直接返回 null。超过校验间隔时返回旧缓存，并在后台发起条件请求，
+     * 水印图片地址响应慢不会阻塞上传处理
+     */
+    private CachedWatermark get(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            log.warn("水印图片 URL 为空");
+            return null;
+        }
+
+        LoadEntry entry = current.get();
+        while (entry == null || !entry.url().equals(imageUrl) || entry.failureExpired()) {
+            LoadEntry fresh = new LoadEntry(imageUrl, new CompletableFuture<>(), System.nanoTime());
+            if (current.compareAndSet(entry, fresh)) {
+                if (entry != null && !entry.url().equals(imageUrl)) {
+                    log.debug("水印图片地址变更，清除缓存: {} -> {}", entry.url(), imageUrl);
+                }
+                CachedWatermark loaded = null;
+                try {
+                    loaded = load(imageUrl, null);
+                } finally {
+                    fresh.result().complete(loaded);
+                }
+                if (loaded == null) {
+                    // 重试间隔从加载结束时开始计算
+                    current.compareAndSet(fresh,
+                        new LoadEntry(imageUrl, CompletableFuture.completedFuture(null), System.nanoTime()));
+                    log.warn("水印图片加载失败，{} 秒内的上传跳过水印: {}", FAILURE_BACKOFF.toSeconds(), imageUrl);
+                }
+                return loaded;
+            }
+            entry = current.get();
+        }
+
+        CachedWatermark cached = entry.result().join();
+        if (cached != null && cached.needsRevalidation()) {
+            revalidateInBackground(entry, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * 在后台校验缓存项，完成后替换仍是当前缓存的旧缓存项（地址已变更时丢弃结果）
+     */
+    private void revalidateInBackground(LoadEntry entry, CachedWatermark stale) {
+        if (!revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Schedulers.boundedElastic().schedule(() -> {
+                try {
+                    CachedWatermark refreshed = load(stale.url(), stale);
+                    current.compareAndSet(entry,
+                        new LoadEntry(stale.url(), CompletableFuture.completedFuture(refreshed), System.nanoTime()));
+                } finally {
+                    revalidating.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            revalidating.set(false);
+            log.warn("提交水印图片校验任务失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 下载并解码水印图片
+     * 存在旧缓存时携带 If-None-Match/If-Modified-Since，返回 304 时沿用旧缓存
+     *
+     * @param imageUrl 水印图片地址
+     * @param previous 旧缓存（可为 null）
+     * @return 新的缓存项，加载失败且无旧缓存时返回 null
+     */
+    private CachedWatermark load(String imageUrl, CachedWatermark previous) {
+        // 使用 ExternalLinkProcessor 处理链接，自动将相对路径转为完整 URL
+        String fullUrl = externalLinkProcessor.processLink(imageUrl);
+        log.debug("水印图片地址: {} -> {}", imageUrl, fullUrl);
+
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) URI.create(fullUrl).toURL().openConnection();
+            conn.setConnectTimeout(CONNECT_TIMEOUT);
+            conn.setReadTimeout(READ_TIMEOUT);
+            conn.setRequestMethod("GET");
+            if (previous != null) {
+                if (previous.etag() != null) {
+                    conn.setRequestProperty("If-None-Match", previous.etag());
+                }
+                if (previous.lastModified() != null) {
+                    conn.setRequestProperty("If-Modified-Since", previous.lastModified());
+                }
+            }
+
+            if (previous != null && conn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                log.debug("水印图片未修改，继续使用缓存: {}", fullUrl);
+                return previous.revalidated();
+            }
+
+            try (InputStream is = conn.getInputStream()) {
+                BufferedImage img = ImageIO.read(is);
+                if (img == null) {
+                    log.error("水印图片加载失败，ImageIO 返回 null。URL: {}", fullUrl);
+                    return previous != null ? previous.revalidated() : null;
+                }
+                log.debug("水印图片加载成功: {}x{}, 类型: {}", img.getWidth(), img.getHeight(), img.getType());
+                return new CachedWatermark(imageUrl, conn.getHeaderField("ETag"),
+                    conn.getHeaderField("Last-Modified"), img, newVariantCache(), System.nanoTime());
+            }
+        } catch (SocketTimeoutException e) {
+            log.error("加载水印图片超时: {} - {}", fullUrl, e.getMessage());
+        } catch (Exception e) {
+            log.error("从URL加载水印图片失败: {} - {}", fullUrl, e.getMessage());
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+        // 校验失败时沿用旧缓存，避免水印图片地址短暂不可用时整条处理链路失败
+        return previous != null ? previous.revalidated() : null;
+    }
+
+    /**
+     * 水印图片地址的加载结果
+     *
+     * @param url       配置中的水印图片地址
+     * @param result    加载结果，加载中时未完成，加载失败时为 null
+     * @param createdAt 创建时间（System.nanoTime），加载失败的结果从此时开始计算重试间隔
+     */
+    private record LoadEntry(String url, CompletableFuture<CachedWatermark> result, long createdAt) {
+        /**
+         * 加载失败且已超过重试间隔
+         */
+        boolean failureExpired() {
+            return result.isDone() && result.getNow(null) == null
+                && System.nanoTime() - createdAt > FAILURE_BACKOFF.toNanos();
+        }
+    }
+
+    private static Cache<Integer, BufferedImage> newVariantCache() {
+        return Caffeine.newBuilder()
+            .maximumSize(MAX_SCALED_VARIANTS)
+            .build();
+    }
+
+    /**
+     * 高质量缩放水印图片，高度按水印原始宽高比计算
+     *
+     * @param source      原始水印图片
+     * @param targetWidth 目标宽度
+     * @return 缩放后的图片
+     */
+    private static BufferedImage scale(BufferedImage source, int targetWidth) {
+        double aspectRatio = (double) source.getHeight() / source.getWidth();
+        int targetHeight = Math.max(1, (int) (targetWidth * aspectRatio));
+        return RasterUtils.resize(source, targetWidth, targetHeight);
+    }
+
+    /**
+     * 水印图片缓存项
+     *
+     * @param url          配置中的水印图片地址
+     * @param etag         响应 ETag
+     * @param lastModified 响应 Last-Modified
+     * @param image        解码后的原始水印图片
+     * @param variants     按目标宽度缓存的缩放版本
+     * @param validatedAt  上次校验时间（System.nanoTime）
+     */
+    private record CachedWatermark(
+        String url,
+        String etag,
+        String lastModified,
+        BufferedImage image,
+        Cache<Integer, BufferedImage> variants,
+        long validatedAt
+    ) {
+        boolean needsRevalidation() {
+            return System.nanoTime() - validatedAt > REVALIDATE_INTERVAL.toNanos();
+        }
+
+        CachedWatermark revalidated() {
+            return new CachedWatermark(url, etag, lastModified, image, variants, System.nanoTime());
+        }
+    }
+}
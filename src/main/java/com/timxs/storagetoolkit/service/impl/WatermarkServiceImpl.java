@@ -4,6 +4,8 @@ import com.timxs.storagetoolkit.config.ImageWatermarkConfig;
 import com.timxs.storagetoolkit.config.TextWatermarkConfig;
 import com.timxs.storagetoolkit.model.WatermarkPosition;
 import com.timxs.storagetoolkit.service.WatermarkService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -19,13 +21,39 @@ import java.awt.image.BufferedImage;
 @Service
 public class WatermarkServiceImpl implements WatermarkService {
 
+    /**
+     * 自动缩小字体时的最小字号
+     */
+    private static final int MIN_FONT_SIZE = 12;
+
+    /**
+     * 水印图层四周的留白（像素），容纳粗体/斜体字形超出字宽的部分
+     */
+    private static final int STAMP_PADDING = 4;
+
+    /**
+     * 文字尺寸缓存，键为（文字, 字体, 字号）
+     */
+    private static final Cache<MetricsKey, TextMetrics> TEXT_METRICS_CACHE = Caffeine.newBuilder()
+        .maximumSize(256)
+        .build();
+
+    /**
+     * 预渲染文字水印图层缓存，键为（文字, 字体, 字号, 颜色, 透明度）
+     * 自适应字号模式下不同尺寸的图片会产生不同字号，因此保留多个图层
+     */
+    private static final Cache<StampKey, BufferedImage> TEXT_STAMP_CACHE = Caffeine.newBuilder()
+        .maximumSize(64)
+        .build();
+
     /**
      * 添加文字水印
      * 支持自适应字体大小，当图片太小时会自动缩小字体
+     * 水印文字预渲染为透明图层并缓存，每张图片只需一次 drawImage 合成
      *
      * @param image  原始图片
      * @param config 文字水印配置
-     * @return 添加水印后的图片
+     * @return 添加水印后的图片（可原地合成时即为传入的原图）
      * @throws IllegalArgumentException 图片为空时抛出
      */
     @Override
@@ -41,73 +69,45 @@ public class WatermarkServiceImpl implements WatermarkService {
         log.debug("开始添加文字水印，原图尺寸: {}x{}, 类型: {}", 
             image.getWidth(), image.getHeight(), image.getType());
 
-        // 创建带 alpha 通道的新图片，用于支持透明度
-        BufferedImage result = new BufferedImage(
-            image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        // 使用百分比计算实际边距
+        int marginX = config.calculateMarginX(image.getWidth());
+        int marginY = config.calculateMarginY(image.getHeight());
+        
+        // 计算可用空间（水印最多占用的宽度/高度），防止边距过大导致负数
+        int maxTextWidth = Math.max(1, (int) (image.getWidth() * 0.8) - marginX * 2);
+        int maxTextHeight = Math.max(1, (int) (image.getHeight() * 0.8) - marginY * 2);
+        
+        // 使用 calculateFontSize 计算字体大小（支持 FIXED 和 ADAPTIVE 模式），放不下时按比例缩小
+        int fontSize = config.calculateFontSize(image.getWidth(), image.getHeight());
+        fontSize = fitFontSize(config.text(), config.fontName(), fontSize, maxTextWidth, maxTextHeight);
+        TextMetrics metrics = measureText(config.text(), config.fontName(), fontSize);
+        
+        // 如果字体已经最小但水印仍然太大，抛出异常让调用方知道
+        if (metrics.width() > maxTextWidth || metrics.height() > maxTextHeight) {
+            throw new IllegalStateException(String.format(
+                "图片太小，无法添加水印: 图片尺寸 %dx%d, 水印尺寸 %dx%d",
+                image.getWidth(), image.getHeight(), metrics.width(), metrics.height()));
+        }
+        
+        log.debug("最终字体大小: {}, 模式: {}", fontSize, config.fontSizeMode());
+        log.debug("水印文字尺寸: {}x{}, 字体大小: {}", metrics.width(), metrics.height(), fontSize);
+
+        // 获取预渲染的水印图层（相同文字/字体/字号/颜色/透明度只渲染一次）
+        BufferedImage stamp = getTextStamp(config, fontSize, metrics);
+        
+        // 计算位置（使用枚举方法 + 边界检查）
+        int x = Math.max(0, config.position().calculateX(image.getWidth(), metrics.width(), marginX));
+        int y = Math.max(0, config.position().calculateY(image.getHeight(), metrics.height(), marginY));
+        
+        log.debug("水印位置: ({}, {}), 边距: ({}, {})", x, y, marginX, marginY);
+
+        // 直接在解码后的图片上合成，只混合水印所在区域
+        BufferedImage result = prepareCanvas(image);
         
         Graphics2D g2d = result.createGraphics();
         try {
-            // 绘制原图
-            g2d.drawImage(image, 0, 0, null);
-            
-            // 设置抗锯齿，提高文字渲染质量
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-            
-            // 使用百分比计算实际边距
-            int marginX = config.calculateMarginX(image.getWidth());
-            int marginY = config.calculateMarginY(image.getHeight());
-            
-            // 计算可用空间（水印最多占用的宽度/高度），防止边距过大导致负数
-            int maxTextWidth = Math.max(1, (int) (image.getWidth() * 0.8) - marginX * 2);
-            int maxTextHeight = Math.max(1, (int) (image.getHeight() * 0.8) - marginY * 2);
-            
-            // 使用 calculateFontSize 计算字体大小（支持 FIXED 和 ADAPTIVE 模式）
-            int fontSize = config.calculateFontSize(image.getWidth(), image.getHeight());
-            Font font = new Font(config.fontName(), Font.BOLD, fontSize);
-            g2d.setFont(font);
-            FontMetrics metrics = g2d.getFontMetrics();
-            int textWidth = metrics.stringWidth(config.text());
-            int textHeight = metrics.getHeight();
-            
-            // 如果水印太大，自动缩小字体（最小 12px）
-            int minFontSize = 12;
-            while ((textWidth > maxTextWidth || textHeight > maxTextHeight) && fontSize > minFontSize) {
-                fontSize -= 2;
-                font = new Font(config.fontName(), Font.BOLD, fontSize);
-                g2d.setFont(font);
-                metrics = g2d.getFontMetrics();
-                textWidth = metrics.stringWidth(config.text());
-                textHeight = metrics.getHeight();
-            }
-            
-            // 如果字体已经最小但水印仍然太大，抛出异常让调用方知道
-            if ((textWidth > maxTextWidth || textHeight > maxTextHeight) && fontSize <= minFontSize) {
-                throw new IllegalStateException(String.format(
-                    "图片太小，无法添加水印: 图片尺寸 %dx%d, 水印尺寸 %dx%d",
-                    image.getWidth(), image.getHeight(), textWidth, textHeight));
-            }
-            
-            log.debug("最终字体大小: {}, 模式: {}", fontSize, config.fontSizeMode());
-            
-            // 设置颜色和透明度
-            Color color = parseColor(config.color(), config.opacity());
-            g2d.setColor(color);
-            
-            log.debug("水印颜色: R={}, G={}, B={}, A={}", 
-                color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha());
-            log.debug("水印文字尺寸: {}x{}, 字体大小: {}", textWidth, textHeight, fontSize);
-            
-            // 计算位置（使用枚举方法 + 边界检查）
-            int x = Math.max(0, config.position().calculateX(image.getWidth(), textWidth, marginX));
-            int y = Math.max(0, config.position().calculateY(image.getHeight(), textHeight, marginY));
-            // 文字 Y 坐标需要加上 ascent（基线到顶部的距离）
-            y += metrics.getAscent();
-            
-            log.debug("水印位置: ({}, {}), 边距: ({}, {})", x, y, marginX, marginY);
-            
-            // 绘制文字
-            g2d.drawString(config.text(), x, y);
+            // 合成水印图层，图层四周留有边距以容纳字形外扩部分
+            g2d.drawImage(stamp, x - STAMP_PADDING, y - STAMP_PADDING, null);
             
             log.debug("文字水印绘制完成，结果图片类型: {}", result.getType());
         } finally {
@@ -117,6 +117,94 @@ public class WatermarkServiceImpl implements WatermarkService {
         return result;
     }
 
+    /**
+     * 计算能放入可用空间的字体大小
+     * 文字宽高与字号近似成正比，按一次测量结果直接算出目标字号，
+     * 仅在字形取整导致仍略微超出时逐级微调
+     *
+     * @param text          水印文字
+     * @param fontName      字体名称
+     * @param fontSize      期望字号
+     * @param maxTextWidth  最大宽度
+     * @param maxTextHeight 最大高度
+     * @return 最终字号（最小 12px，放不下时由调用方处理）
+     */
+    private int fitFontSize(String text, String fontName, int fontSize, int maxTextWidth, int maxTextHeight) {
+        TextMetrics metrics = measureText(text, fontName, fontSize);
+        if ((metrics.width() <= maxTextWidth && metrics.height() <= maxTextHeight) || fontSize <= MIN_FONT_SIZE) {
+            return fontSize;
+        }
+
+        double ratio = Math.min((double) maxTextWidth / Math.max(1, metrics.width()),
+            (double) maxTextHeight / Math.max(1, metrics.height()));
+        int fitted = Math.max(MIN_FONT_SIZE, (int) Math.floor(fontSize * ratio));
+        metrics = measureText(text, fontName, fitted);
+        while ((metrics.width() > maxTextWidth || metrics.height() > maxTextHeight) && fitted > MIN_FONT_SIZE) {
+            fitted--;
+            metrics = measureText(text, fontName, fitted);
+        }
+        return fitted;
+    }
+
+    /**
+     * 测量文字尺寸（带缓存）
+     * 使用与绘制相同的抗锯齿设置，保证测量结果与实际渲染一致
+     */
+    private TextMetrics measureText(String text, String fontName, int fontSize) {
+        return TEXT_METRICS_CACHE.get(new MetricsKey(text, fontName, fontSize), key -> {
+            BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = scratch.createGraphics();
+            try {
+                applyTextHints(g2d);
+                g2d.setFont(new Font(fontName, Font.BOLD, fontSize));
+                FontMetrics fm = g2d.getFontMetrics();
+                return new TextMetrics(fm.stringWidth(text), fm.getHeight(), fm.getAscent());
+            } finally {
+                g2d.dispose();
+            }
+        });
+    }
+
+    /**
+     * 获取预渲染的文字水印图层（带缓存）
+     * 图层为透明背景的 ARGB 图片，文字颜色已包含透明度，合成时直接 SRC_OVER 绘制即可
+     */
+    private BufferedImage getTextStamp(TextWatermarkConfig config, int fontSize, TextMetrics metrics) {
+        StampKey key = new StampKey(config.text(), config.fontName(), fontSize, config.color(), config.opacity());
+        return TEXT_STAMP_CACHE.get(key, k -> {
+            BufferedImage stamp = new BufferedImage(
+                Math.max(1, metrics.width()) + STAMP_PADDING * 2,
+                Math.max(1, metrics.height()) + STAMP_PADDING * 2,
+                BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = stamp.createGraphics();
+            try {
+                applyTextHints(g2d);
+                g2d.setFont(new Font(k.fontName(), Font.BOLD, k.fontSize()));
+                
+                // 设置颜色和透明度
+                Color color = parseColor(k.color(), k.opacity());
+                g2d.setColor(color);
+                log.debug("水印颜色: R={}, G={}, B={}, A={}", 
+                    color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha());
+                
+                // 文字 Y 坐标需要加上 ascent（基线到顶部的距离）
+                g2d.drawString(k.text(), STAMP_PADDING, STAMP_PADDING + metrics.ascent());
+            } finally {
+                g2d.dispose();
+            }
+            log.debug("文字水印图层已渲染: {}x{}", stamp.getWidth(), stamp.getHeight());
+            return stamp;
+        });
+    }
+
+    /**
+     * 设置抗锯齿，提高文字渲染质量
+     */
+    private void applyTextHints(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
     /**
      * 添加图片水印
      * 支持缩放和透明度设置
@@ -124,7 +212,7 @@ public class WatermarkServiceImpl implements WatermarkService {
      * @param image          原始图片
      * @param config         图片水印配置
      * @param watermarkImage 水印图片
-     * @return 添加水印后的图片
+     * @return 添加水印后的图片（可原地合成时即为传入的原图）
      * @throws IllegalArgumentException 原始图片为空时抛出
      */
     @Override
@@ -143,7 +231,10 @@ public class WatermarkServiceImpl implements WatermarkService {
         int targetWidth = (int) (image.getWidth() * config.scale());
         double aspectRatio = (double) watermarkImage.getHeight() / watermarkImage.getWidth();
         int scaledWidth = targetWidth;
-        int scaledHeight = (int) (targetWidth * aspectRatio);
+        // 水印图片已预缩放到目标宽度时直接使用其高度，避免浮点误差导致再次缩放
+        int scaledHeight = watermarkImage.getWidth() == targetWidth
+            ? watermarkImage.getHeight()
+            : (int) (targetWidth * aspectRatio);
         
         // 缩放后尺寸无效时，直接返回原图
         if (scaledWidth <= 0 || scaledHeight <= 0) {
@@ -151,15 +242,11 @@ public class WatermarkServiceImpl implements WatermarkService {
             return image;
         }
 
-        // 创建带 alpha 通道的新图片
-        BufferedImage result = new BufferedImage(
-            image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        // 直接在解码后的图片上合成，只混合水印所在区域
+        BufferedImage result = prepareCanvas(image);
         
         Graphics2D g2d = result.createGraphics();
         try {
-            // 绘制原图
-            g2d.drawImage(image, 0, 0, null);
-            
             // 设置抗锯齿和插值算法，提高缩放质量
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
@@ -188,6 +275,41 @@ public class WatermarkServiceImpl implements WatermarkService {
         return result;
     }
 
+    /**
+     * 准备水印绘制画布
+     * 常见的 RGB/ARGB 栅格（JPEG、PNG 解码结果）直接原地绘制，SRC_OVER 只会改写水印覆盖的矩形区域，
+     * 无需再分配一张与原图等大的 ARGB 副本；
+     * 索引色、灰度和自定义类型的栅格无法正确表示彩色半透明水印，仍复制为 ARGB
+     *
+     * @param image 解码后的原图
+     * @return 可绘制水印的图片（可能就是原图本身）
+     */
+    private BufferedImage prepareCanvas(BufferedImage image) {
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB,
+                 BufferedImage.TYPE_INT_BGR,
+                 BufferedImage.TYPE_INT_ARGB,
+                 BufferedImage.TYPE_INT_ARGB_PRE,
+                 BufferedImage.TYPE_3BYTE_BGR,
+                 BufferedImage.TYPE_4BYTE_ABGR,
+                 BufferedImage.TYPE_4BYTE_ABGR_PRE -> {
+                return image;
+            }
+            default -> {
+                log.debug("图片类型 {} 不支持原地合成，复制为 ARGB", image.getType());
+                BufferedImage copy = new BufferedImage(
+                    image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g2d = copy.createGraphics();
+                try {
+                    g2d.drawImage(image, 0, 0, null);
+                } finally {
+                    g2d.dispose();
+                }
+                return copy;
+            }
+        }
+    }
+
     /**
      * 解析颜色字符串
      * 支持十六进制格式（如 #FFFFFF 或 FFFFFF）
@@ -218,4 +340,26 @@ public class WatermarkServiceImpl implements WatermarkService {
             return new Color(255, 255, 255, (int) (opacity * 2.55));
         }
     }
+
+    /**
+     * 文字尺寸缓存键
+     */
+    private record MetricsKey(String text, String fontName, int fontSize) {
+    }
+
+    /**
+     * 文字尺寸
+     *
+     * @param width  文字宽度
+     * @param height 行高
+     * @param ascent 基线到顶部的距离
+     */
+    private record TextMetrics(int width, int height, int ascent) {
+    }
+
+    /**
+     * 文字水印图层缓存键
+     */
+    private record StampKey(String text, String fontName, int fontSize, String color, int opacity) {
+    }
 }
@@ -0,0 +1,135 @@
+package com.timxs.storagetoolkit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentScannerTest {
+
+    private final ContentScanner contentScanner = new ContentScanner();
+
+    @Test
+    void extractsHtmlSrcAndHref() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType("""
+            <p><img class="wide" src="/images/a.png" alt="a"></p>
+            <a target="_blank" href='https://blog.example.com/files/b.zip'>下载</a>
+            <video controls src="/media/c.mp4"></video>
+            <audio src="/media/d.mp3"></audio>
+            <source type="video/webm" src="/media/e.webm">
+            <IMG SRC="/images/F.png">
+            """);
+
+        assertEquals(Set.of("https://blog.example.com/files/b.zip"), result.fullUrls());
+        assertEquals(Set.of("/images/a.png", "/media/c.mp4", "/media/d.mp3", "/media/e.webm", "/images/F.png"),
+            result.relativePaths());
+    }
+
+    @Test
+    void collectsEverySrcAttributeInTag() {
+        // 有意的行为变化：原正则的贪婪 [^>]+ 只保留标签中最后一个 src=，懒加载的 data-src 地址会被漏掉
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "<img data-src=\"/images/lazy.png\" src=\"/images/placeholder.png\">");
+
+        assertEquals(Set.of("/images/lazy.png", "/images/placeholder.png"), result.relativePaths());
+    }
+
+    @Test
+    void ignoresAttributesOutsideTag() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "<img alt=\"a\"> src=\"/images/a.png\" <span href=\"/images/b.png\">");
+
+        assertEquals(Set.of(), result.relativePaths());
+    }
+
+    @Test
+    void extractsMarkdownImagesAndLinks() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType("""
+            ![封面](/images/cover.png)
+            [附件](/files/a.zip "说明")
+            [附件](/files/b.zip 'title')
+            [链接](https://example.org/page)
+            """);
+
+        assertEquals(Set.of("https://example.org/page"), result.fullUrls());
+        assertEquals(Set.of("/images/cover.png", "/files/a.zip", "/files/b.zip"), result.relativePaths());
+    }
+
+    @Test
+    void matchesInnermostBracketsOnly() {
+        // 链接文字不能包含方括号（与原正则 \[[^\]]*\] 一致），括号内嵌套的链接照常提取
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "[外层 [附件](/files/a.zip) 说明] [a [b] c](/files/b.zip) ![[图]](/images/c.png)");
+
+        assertEquals(Set.of("/files/a.zip"), result.relativePaths());
+    }
+
+    @Test
+    void ignoresMarkdownTargetWithUnquotedTitle() {
+        assertEquals(Set.of(), contentScanner.extractUrlsWithType("[a](/files/a.zip title)").relativePaths());
+    }
+
+    @Test
+    void extractsHttpUrlRuns() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "{\"url\":\"https://a.example.com/x.png\"} 见 http://b.example.com/y.png, (https://c.example.com/z)"
+                + " [https://d.example.com/w] <https://e.example.com/v>");
+
+        assertEquals(Set.of("https://a.example.com/x.png", "http://b.example.com/y.png,",
+                "https://c.example.com/z", "https://d.example.com/w", "https://e.example.com/v"),
+            result.fullUrls());
+    }
+
+    @Test
+    void extractsUploadPathsOutsideFullUrls() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "{\"cover\":\"/upload/a.png\"} /upload/b.png\n(/upload/c.png)");
+
+        assertEquals(Set.of("/upload/a.png", "/upload/b.png", "/upload/c.png"), result.relativePaths());
+    }
+
+    @Test
+    void skipsUploadPathPrecededByHostCharacter() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "https://cdn.example.com/upload/a.png example.com/upload/b.png x/upload/c.png /upload/");
+
+        assertEquals(Set.of("https://cdn.example.com/upload/a.png"), result.fullUrls());
+        assertEquals(Set.of(), result.relativePaths());
+    }
+
+    @Test
+    void decodesPercentAndPlus() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "/upload/%E5%9B%BE%E7%89%87.png /upload/a+b.png /upload/100%25.png /upload/bad%zz.png");
+
+        assertEquals(Set.of("/upload/图片.png", "/upload/a b.png", "/upload/100%.png", "/upload/bad%zz.png"),
+            result.relativePaths());
+    }
+
+    @Test
+    void skipsInvalidUrls() {
+        ContentScanner.ExtractResult result = contentScanner.extractUrlsWithType(
+            "<img src=\"data:image/png;base64,AAAA\"><a href=\"javascript:void(0)\"><a href=\"mailto:a@b.c\">"
+                + "<a href=\"#top\"><a href=\"relative/path\">");
+
+        assertEquals(Set.of(), result.fullUrls());
+        assertEquals(Set.of(), result.relativePaths());
+    }
+
+    @Test
+    void returnsEmptyResultForBlankContent() {
+        assertEquals(new ContentScanner.ExtractResult(), contentScanner.extractUrlsWithType(null));
+        assertEquals(new ContentScanner.ExtractResult(), contentScanner.extractUrlsWithType("  "));
+    }
+
+    @Test
+    void extractsPathFromFullUrl() {
+        assertTrue(contentScanner.isFullUrl("https://a.example.com/x"));
+        assertFalse(contentScanner.isFullUrl("/upload/x"));
+        assertEquals("/upload/a.png", contentScanner.extractPath("https://a.example.com/upload/a.png?w=1"));
+        assertEquals("/upload/a.png", contentScanner.extractPath("/upload/a.png"));
+    }
+}
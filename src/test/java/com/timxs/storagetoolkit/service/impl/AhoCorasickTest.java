@@ -0,0 +1,108 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsOverlappingAndSuffixPatterns() {
+        List<String> patterns = List.of("he", "she", "his", "hers", "e", "s");
+        String text = "ushers and his shelves";
+
+        assertEquals(indexOfMatches(patterns, text), scan(patterns, text));
+    }
+
+    @Test
+    void findsPatternsThatArePrefixesOfEachOther() {
+        List<String> patterns = List.of("a", "aa", "aaa", "ab", "aab");
+        String text = "aaaabaaab";
+
+        assertEquals(indexOfMatches(patterns, text), scan(patterns, text));
+    }
+
+    @Test
+    void findsPermalinkPathsInsideFullUrls() {
+        List<String> patterns = List.of("/upload/a.png", "https://blog.example.com/upload/a.png",
+            "/upload/a.png.bak", "/upload/");
+        String text = "<img src=\"https://blog.example.com/upload/a.png\"> /upload/a.png.bak";
+
+        assertEquals(indexOfMatches(patterns, text), scan(patterns, text));
+    }
+
+    @Test
+    void matchesIndexOfOnRandomText() {
+        Random random = new Random(20240601);
+        for (int round = 0; round < 200; round++) {
+            List<String> patterns = new ArrayList<>();
+            int patternCount = 1 + random.nextInt(8);
+            for (int i = 0; i < patternCount; i++) {
+                patterns.add(randomString(random, 1 + random.nextInt(4)));
+            }
+            String text = randomString(random, random.nextInt(60));
+
+            assertEquals(indexOfMatches(patterns, text), scan(patterns, text),
+                () -> "patterns=" + patterns + ", text=" + text);
+        }
+    }
+
+    @Test
+    void ignoresEmptyPatternsAndText() {
+        assertEquals(Set.of(), scan(List.of("", "a"), ""));
+        assertEquals(Set.of(), scan(List.of(""), "abc"));
+    }
+
+    @Test
+    void reportsEveryValueOfDuplicatePatterns() {
+        AhoCorasick<String> automaton = AhoCorasick.<String>builder()
+            .add("ab", "first")
+            .add("ab", "second")
+            .build();
+        Set<String> values = new HashSet<>();
+        automaton.scan("xab", (start, end, value) -> values.add(value + "@" + start + "-" + end));
+
+        assertEquals(Set.of("first@1-3", "second@1-3"), values);
+    }
+
+    private static Set<String> scan(List<String> patterns, String text) {
+        AhoCorasick.Builder<String> builder = AhoCorasick.builder();
+        patterns.forEach(pattern -> builder.add(pattern, pattern));
+        Set<String> matches = new HashSet<>();
+        builder.build().scan(text, (start, end, pattern) -> {
+            assertEquals(pattern, text.substring(start, end));
+            matches.add(start + ":" + pattern);
+        });
+        return matches;
+    }
+
+    /**
+     * 逐个模式串用 indexOf 查找全部出现位置（包括重叠的出现）
+     */
+    private static Set<String> indexOfMatches(List<String> patterns, String text) {
+        Set<String> matches = new HashSet<>();
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+                matches.add(i + ":" + pattern);
+            }
+        }
+        return matches;
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append("abc".charAt(random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+}
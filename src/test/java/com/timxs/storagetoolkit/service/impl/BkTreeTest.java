@@ -0,0 +1,84 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BkTreeTest {
+
+    @Test
+    void returnsEntriesWithinRadius() {
+        BkTree<String> tree = new BkTree<>();
+        tree.add(0b0000L, "a");
+        tree.add(0b0001L, "b");
+        tree.add(0b0011L, "c");
+        tree.add(0b0111L, "d");
+        tree.add(0b1111L, "e");
+
+        assertEquals(Set.of("a"), new HashSet<>(tree.search(0L, 0)));
+        assertEquals(Set.of("a", "b"), new HashSet<>(tree.search(0L, 1)));
+        assertEquals(Set.of("b", "c", "d"), new HashSet<>(tree.search(0b0011L, 1)));
+        assertEquals(Set.of("a", "b", "c", "d", "e"), new HashSet<>(tree.search(0b0011L, 2)));
+        assertEquals(5, tree.size());
+    }
+
+    @Test
+    void keepsEntriesWithSameHash() {
+        BkTree<Integer> tree = new BkTree<>();
+        tree.add(42L, 1);
+        tree.add(42L, 2);
+        tree.add(43L, 3);
+
+        assertEquals(Set.of(1, 2), new HashSet<>(tree.search(42L, 0)));
+        assertEquals(Set.of(1, 2, 3), new HashSet<>(tree.search(42L, 1)));
+    }
+
+    @Test
+    void returnsEmptyListForEmptyTree() {
+        assertEquals(List.of(), new BkTree<Integer>().search(0L, 64));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(15);
+        List<Long> hashes = new ArrayList<>();
+        BkTree<Integer> tree = new BkTree<>();
+        for (int i = 0; i < 2000; i++) {
+            // 一部分哈希由已有哈希翻转少量位得到，保证阈值内有近邻
+            long hash = i > 0 && random.nextBoolean()
+                ? flipBits(hashes.get(random.nextInt(i)), random.nextInt(8), random)
+                : random.nextLong();
+            hashes.add(hash);
+            tree.add(hash, i);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            long hash = flipBits(hashes.get(random.nextInt(hashes.size())), random.nextInt(4), random);
+            for (int threshold : new int[] {0, 1, 6, 16}) {
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < hashes.size(); i++) {
+                    if (Long.bitCount(hashes.get(i) ^ hash) <= threshold) {
+                        expected.add(i);
+                    }
+                }
+                List<Integer> found = tree.search(hash, threshold);
+
+                assertEquals(expected, new HashSet<>(found));
+                assertEquals(expected.size(), found.size());
+            }
+        }
+    }
+
+    private static long flipBits(long hash, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            hash ^= 1L << random.nextInt(64);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,128 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Murmur3Hash128Test {
+
+    private static final byte[] FOX = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * FOX 前 n 个字节（n = 0..16）的 h1、h2，覆盖空输入、1-15 字节的全部尾部长度和恰好一个块
+     * 由参考 C 实现 MurmurHash3_x64_128 计算
+     */
+    private static final long[][] FOX_PREFIXES = {
+        {0x0000000000000000L, 0x0000000000000000L},
+        {0x8c03777e9184689aL, 0x3ab5d6b4ba293e79L},
+        {0xd7dd0beaee68e3b9L, 0xa56fb69099026b97L},
+        {0x304f2652dcd66d9aL, 0xef385e5d15eabf42L},
+        {0xbd4301beaba07d9cL, 0xdfae3c4b8026dd1cL},
+        {0x6f7aac75205270feL, 0x76f5ebd390dac61fL},
+        {0x796e1100f3f66746L, 0xb2a07e0b1665ab1fL},
+        {0xf0d3843a5abcd5c9L, 0x9394b7f9c86d6073L},
+        {0x644baae4ad5b71cdL, 0x8eeef997e2881cdfL},
+        {0x37a06404b2a8f155L, 0xadbcc8ff3d6eccc0L},
+        {0x420e44df457484b8L, 0x9cabadd477515fe9L},
+        {0x87c320550739a882L, 0xfa91e8a5d66e7b9fL},
+        {0x61d6a1372f90f9cbL, 0xb66353ea7c002529L},
+        {0x3c600c93f99bfd3bL, 0xc3e13319056f26f4L},
+        {0xdcd216a95d6e6007L, 0x84c1eeb85c46c838L},
+        {0x48137cb864e39216L, 0xfd7baf64397ad64bL},
+        {0x9d1244f4af9b32c4L, 0x3d153c8b2c2a3aa6L},
+    };
+
+    @Test
+    void matchesGuavaTestVectors() {
+        // Guava Murmur3Hash128Test 中的已知结果
+        assertHash(0, 0x629942693e10f867L, 0x92db0b82baeb5347L, "hell");
+        assertHash(1, 0xa78ddff5adae8d10L, 0x128900ef20900135L, "hello");
+        assertHash(2, 0x8a486b23f422e826L, 0xf962a2c58947765fL, "hello ");
+        assertHash(3, 0x2ea59f466f6bed8cL, 0xc610990acc428a17L, "hello w");
+        assertHash(4, 0x79f6305a386c572cL, 0x46305aed3483b94eL, "hello wo");
+        assertHash(5, 0xc2219d213ec1f1b5L, 0xa1d8e2e0a52785bdL, "hello wor");
+        assertHash(0, 0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L, "The quick brown fox jumps over the lazy dog");
+        assertHash(0, 0x658ca970ff85269aL, 0x43fee3eaa68e5c3eL, "The quick brown fox jumps over the lazy cog");
+    }
+
+    @Test
+    void matchesReferenceForEveryTailLength() {
+        for (int length = 0; length < FOX_PREFIXES.length; length++) {
+            Murmur3Hash128 digest = new Murmur3Hash128();
+            digest.update(FOX, 0, length);
+
+            assertArrayEquals(bytes(FOX_PREFIXES[length][0], FOX_PREFIXES[length][1]), digest.digest(),
+                "length " + length);
+        }
+    }
+
+    @Test
+    void passesSmhasherVerification() {
+        // SMHasher VerificationTest：长度 0..255 的输入 {0, 1, ..., n-1} 以 256-n 为种子，
+        // 拼接全部结果再以 0 为种子计算，前 4 字节（小端）应为 0x6384BA69
+        byte[] key = new byte[256];
+        byte[] hashes = new byte[256 * 16];
+        for (int i = 0; i < 256; i++) {
+            key[i] = (byte) i;
+            Murmur3Hash128 digest = new Murmur3Hash128(256 - i);
+            digest.update(key, 0, i);
+            System.arraycopy(digest.digest(), 0, hashes, i * 16, 16);
+        }
+        Murmur3Hash128 digest = new Murmur3Hash128();
+        digest.update(hashes, 0, hashes.length);
+
+        assertEquals(0x6384BA69, ByteBuffer.wrap(digest.digest()).order(ByteOrder.LITTLE_ENDIAN).getInt());
+    }
+
+    @Test
+    void streamingUpdatesMatchSingleUpdate() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            byte[] data = new byte[random.nextInt(100)];
+            random.nextBytes(data);
+            Murmur3Hash128 whole = new Murmur3Hash128();
+            whole.update(data, 0, data.length);
+
+            // 任意切分，跨块边界的数据经过尾部缓冲
+            Murmur3Hash128 chunked = new Murmur3Hash128();
+            int offset = 0;
+            while (offset < data.length) {
+                int chunk = Math.min(data.length - offset, random.nextInt(20));
+                if (random.nextBoolean()) {
+                    chunked.update(data, offset, chunk);
+                } else {
+                    chunked.update(ByteBuffer.wrap(data, offset, chunk));
+                }
+                offset += chunk;
+            }
+
+            assertArrayEquals(whole.digest(), chunked.digest(), "length " + data.length);
+        }
+    }
+
+    @Test
+    void consumesByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap(FOX, 3, 20);
+        new Murmur3Hash128().update(buffer);
+
+        assertEquals(23, buffer.position());
+    }
+
+    private static void assertHash(int seed, long expectedH1, long expectedH2, String input) {
+        Murmur3Hash128 digest = new Murmur3Hash128(seed);
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        digest.update(bytes, 0, bytes.length);
+
+        assertArrayEquals(bytes(expectedH1, expectedH2), digest.digest(), input);
+    }
+
+    private static byte[] bytes(long h1, long h2) {
+        return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(h1).putLong(h2).array();
+    }
+}
@@ -0,0 +1,118 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHasherTest {
+
+    @Test
+    void uniformImagesHaveFlatHash() {
+        for (Color color : new Color[] {Color.WHITE, Color.BLACK, Color.GRAY, new Color(30, 120, 200)}) {
+            long hash = PerceptualHasher.dHash(filled(640, 480, color));
+
+            assertEquals(PerceptualHasher.FLAT_HASH, hash);
+            assertFalse(PerceptualHasher.isDistinctive(hash));
+        }
+    }
+
+    @Test
+    void transparentImageHasFlatHash() {
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+
+        assertFalse(PerceptualHasher.isDistinctive(PerceptualHasher.dHash(image)));
+    }
+
+    @Test
+    void nearUniformImageIsNotDistinctive() {
+        // 白底上的小图标：只有图标边缘的少数几位不为 0
+        BufferedImage image = filled(640, 480, Color.WHITE);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(300, 220, 40, 40);
+        graphics.dispose();
+        long hash = PerceptualHasher.dHash(image);
+
+        assertTrue(Long.bitCount(hash) < PerceptualHasher.MIN_DISTINCT_BITS);
+        assertFalse(PerceptualHasher.isDistinctive(hash));
+    }
+
+    @Test
+    void darkeningGradientIsNotDistinctive() {
+        // 从左到右变暗：每个相邻比较都为 1，哈希接近全 1
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int x = 0; x < 640; x++) {
+            int level = 230 - 200 * x / 640;
+            graphics.setColor(new Color(level, level, level));
+            graphics.fillRect(x, 0, 1, 480);
+        }
+        graphics.dispose();
+        long hash = PerceptualHasher.dHash(image);
+
+        assertTrue(Long.bitCount(hash) > PerceptualHasher.MAX_DISTINCT_BITS);
+        assertFalse(PerceptualHasher.isDistinctive(hash));
+    }
+
+    @Test
+    void rescaledImageKeepsHash() {
+        BufferedImage original = pattern(800, 600);
+        long hash = PerceptualHasher.dHash(original);
+        long rescaled = PerceptualHasher.dHash(RasterUtils.resize(original, 200, 150));
+
+        assertTrue(PerceptualHasher.isDistinctive(hash));
+        assertTrue(Long.bitCount(hash ^ rescaled) <= 2);
+    }
+
+    @Test
+    void differentImagesAreFarApart() {
+        long hash = PerceptualHasher.dHash(pattern(400, 300));
+        long mirrored = PerceptualHasher.dHash(mirror(pattern(400, 300)));
+
+        assertTrue(Long.bitCount(hash ^ mirrored) > 16);
+    }
+
+    private static BufferedImage filled(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * 左暗右亮的背景上叠加几个色块
+     */
+    private static BufferedImage pattern(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int x = 0; x < width; x++) {
+            int level = 40 + 180 * x / width;
+            graphics.setColor(new Color(level, level, level));
+            graphics.fillRect(x, 0, 1, height);
+        }
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(width / 2, height / 8, width / 8, height / 2);
+        graphics.setColor(Color.WHITE);
+        graphics.fillOval(width / 8, height / 2, width / 4, height / 3);
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage mirror(BufferedImage image) {
+        BufferedImage mirrored = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                mirrored.setRGB(image.getWidth() - 1 - x, y, image.getRGB(x, y));
+            }
+        }
+        return mirrored;
+    }
+}
@@ -0,0 +1,112 @@
+package com.timxs.storagetoolkit.service.impl;
+
+import com.timxs.storagetoolkit.extension.AttachmentReference;
+import com.timxs.storagetoolkit.service.ContentScanner;
+import org.junit.jupiter.api.Test;
+import run.halo.app.core.extension.attachment.Attachment;
+import run.halo.app.extension.Metadata;
+import run.halo.app.infra.ExternalLinkProcessor;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class PermalinkMatcherTest {
+
+    private static final String SITE = "https://blog.example.com";
+
+    // 相对路径拼接站点地址
+    private final ExternalLinkProcessor externalLinkProcessor =
+        mock(ExternalLinkProcessor.class, invocation -> SITE + invocation.getArgument(0));
+
+    private final PermalinkMatcher matcher = PermalinkMatcher.build(
+        List.of(attachment("a", "/upload/a.png"),
+            attachment("cn", "/upload/%E5%9B%BE%E7%89%87.png"),
+            attachment("cdn", "https://cdn.example.com/img/c.png")),
+        new ContentScanner(), externalLinkProcessor, url -> URLDecoder.decode(url, StandardCharsets.UTF_8));
+
+    @Test
+    void matchesRelativePermalink() {
+        Result result = collect("<img src=\"/upload/a.png\">");
+
+        assertEquals(Set.of(), result.fullUrls());
+        assertEquals(Set.of("/upload/a.png"), result.relativePaths());
+    }
+
+    @Test
+    void rejectsMatchFollowedByPathCharacter() {
+        assertEquals(Result.EMPTY, collect("/upload/a.png.bak"));
+        assertEquals(Result.EMPTY, collect("/upload/a.pngx"));
+        assertEquals(Result.EMPTY, collect("/upload/a.png/thumb"));
+        assertEquals(Result.EMPTY, collect("/upload/a.png%20"));
+    }
+
+    @Test
+    void acceptsMatchFollowedByNonPathCharacter() {
+        assertEquals(Set.of("/upload/a.png"), collect("/upload/a.png说明").relativePaths());
+        assertEquals(Set.of("/upload/a.png"), collect("/upload/a.png?width=100").relativePaths());
+        assertEquals(Set.of("/upload/a.png"), collect("![](/upload/a.png)").relativePaths());
+        assertEquals(Set.of("/upload/a.png"), collect("\"/upload/a.png\"").relativePaths());
+    }
+
+    @Test
+    void rejectsRelativePathInsideOtherHost() {
+        assertEquals(Result.EMPTY, collect("https://other.example.org/upload/a.png"));
+    }
+
+    @Test
+    void recordsSiteUrlOfRelativePermalinkAsFullUrl() {
+        Result result = collect("<a href=\"https://blog.example.com/upload/a.png\">");
+
+        assertEquals(Set.of("https://blog.example.com/upload/a.png"), result.fullUrls());
+        // 完整 URL 中的路径部分前面是域名字符，不再记为相对路径
+        assertEquals(Set.of(), result.relativePaths());
+    }
+
+    @Test
+    void matchesEncodedAndDecodedForms() {
+        assertEquals(Set.of("/upload/图片.png"), collect("/upload/%E5%9B%BE%E7%89%87.png").relativePaths());
+        assertEquals(Set.of("/upload/图片.png"), collect("/upload/图片.png").relativePaths());
+    }
+
+    @Test
+    void matchesFullUrlPermalinkAndItsPath() {
+        assertEquals(Set.of("https://cdn.example.com/img/c.png"),
+            collect("url(https://cdn.example.com/img/c.png)").fullUrls());
+        assertEquals(Set.of("/img/c.png"), collect("src=\"/img/c.png\"").relativePaths());
+    }
+
+    @Test
+    void ignoresBlankContent() {
+        assertEquals(Result.EMPTY, collect(""));
+        assertEquals(Result.EMPTY, collect(null));
+    }
+
+    private Result collect(String content) {
+        Map<String, Set<AttachmentReference.ReferenceSource>> fullUrlToSources = new HashMap<>();
+        Map<String, Set<AttachmentReference.ReferenceSource>> relativePathToSources = new HashMap<>();
+        matcher.collect(content, new AttachmentReference.ReferenceSource(), fullUrlToSources, relativePathToSources);
+        return new Result(fullUrlToSources.keySet(), relativePathToSources.keySet());
+    }
+
+    private static Attachment attachment(String name, String permalink) {
+        Attachment attachment = new Attachment();
+        Metadata metadata = new Metadata();
+        metadata.setName(name);
+        attachment.setMetadata(metadata);
+        Attachment.AttachmentStatus status = new Attachment.AttachmentStatus();
+        status.setPermalink(permalink);
+        attachment.setStatus(status);
+        return attachment;
+    }
+
+    private record Result(Set<String> fullUrls, Set<String> relativePaths) {
+        static final Result EMPTY = new Result(Set.of(), Set.of());
+    }
+}
@@ -0,0 +1,38 @@
+import { onUnmounted, ref } from 'vue'
+import type { ScanProgress } from '@/types/scan'
+
+/**
+ * 订阅扫描进度事件流（SSE）
+ * 扫描结束（completed / error）后自动断开并回调 onFinish，
+ * 连接失败时回调 onError，由调用方退回轮询
+ */
+export function useScanProgress(url: string) {
+  const progress = ref<ScanProgress | null>(null)
+  let source: EventSource | null = null
+
+  const close = () => {
+    source?.close()
+    source = null
+  }
+
+  const watchProgress = (onFinish: (progress: ScanProgress) => void, onError: () => void) => {
+    close()
+    source = new EventSource(url, { withCredentials: true })
+    source.addEventListener('progress', (event) => {
+      const data = JSON.parse((event as MessageEvent).data) as ScanProgress
+      progress.value = data
+      if (data.phase !== 'scanning') {
+        close()
+        onFinish(data)
+      }
+    })
+    source.onerror = () => {
+      close()
+      onError()
+    }
+  }
+
+  onUnmounted(close)
+
+  return { progress, watchProgress, close }
+}
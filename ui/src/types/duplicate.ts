@@ -22,6 +22,8 @@ export interface DuplicateStats {
   duplicateFileCount: number
   /** 可节省空间（字节） */
   savableSize: number
+  /** 相似图片组数 */
+  similarGroupCount: number
   /** 错误信息 */
   errorMessage: string | null
 }
@@ -38,6 +40,8 @@ export interface DuplicateFile {
   mediaType: string | null
   /** 永久链接 */
   permalink: string | null
+  /** 文件大小（字节） */
+  size: number | null
   /** 上传时间 */
   uploadTime: string | null
   /** 分组名称 */
@@ -54,8 +58,10 @@ export interface DuplicateFile {
  * 重复组
  */
 export interface DuplicateGroup {
-  /** MD5 哈希值 */
+  /** 内容哈希值（字段名沿用旧版本） */
   md5Hash: string
+  /** 哈希算法（MD5 / SHA256 / MURMUR3_128） */
+  hashAlgorithm: string
   /** 文件大小（字节） */
   fileSize: number
   /** 组内文件数量 */
@@ -72,6 +78,28 @@ export interface DuplicateGroup {
   files: DuplicateFile[]
 }
 
+/**
+ * 相似图片组（感知哈希检测结果）
+ */
+export interface SimilarImageGroup {
+  /** 代表图片的感知哈希（dHash） */
+  perceptualHash: string
+  /** 组内文件总大小（字节） */
+  totalSize: number
+  /** 组内文件数量 */
+  fileCount: number
+  /** 可节省空间（字节） */
+  savableSize: number
+  /** 组内最大汉明距离 */
+  maxDistance: number
+  /** 推荐保留的附件名称 */
+  recommendedKeep: string | null
+  /** 预览 URL */
+  previewUrl: string | null
+  /** 组内文件列表 */
+  files: DuplicateFile[]
+}
+
 /**
  * 分页结果
  */
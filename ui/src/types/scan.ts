@@ -0,0 +1,29 @@
+/**
+ * 扫描进度相关类型定义
+ */
+
+/**
+ * 扫描进度事件（SSE 推送）
+ */
+export interface ScanProgress {
+  /** 扫描阶段，尚未扫描过时为 null */
+  phase: 'scanning' | 'completed' | 'error' | null
+  /** 当前步骤 */
+  stage: string | null
+  /** 已处理数量 */
+  processed: number
+  /** 总数量，未知时为 0 */
+  total: number
+  /** 已读取字节数 */
+  bytesProcessed: number
+  /** 处理速度（个/秒） */
+  throughput: number
+  /** 读取速度（字节/秒） */
+  bytesPerSecond: number
+  /** 预计剩余时间（秒） */
+  etaSeconds: number | null
+  /** 扫描开始时间 */
+  startTime: string | null
+  /** 附加信息 */
+  message: string | null
+}